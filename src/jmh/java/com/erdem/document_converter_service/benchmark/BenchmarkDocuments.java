@@ -0,0 +1,51 @@
+package com.erdem.document_converter_service.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Synthetic inputs for the benchmarks.
+ */
+public final class BenchmarkDocuments {
+
+    private static final String ROW = "<tr><td>Item %d</td><td class=\"num\">%d.00</td><td>Lorem ipsum dolor sit amet</td></tr>\n";
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * An HTML report of roughly the given size. shape is "head" (regular document), "html"
+     * (no head element) or "fragment" (bare table, gets wrapped).
+     */
+    public static byte[] html(int approximateBytes, String shape) {
+        StringBuilder sb = new StringBuilder(approximateBytes + 256);
+        switch (shape) {
+            case "head" -> sb.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>Report</title>\n</head>\n<body>\n");
+            case "html" -> sb.append("<!DOCTYPE html>\n<html lang=\"en\">\n<body>\n");
+            case "fragment" -> sb.append("<h1>Report</h1>\n");
+            default -> throw new IllegalArgumentException("Unknown HTML shape: " + shape);
+        }
+        sb.append("<table>\n");
+        for (int i = 0; sb.length() < approximateBytes; i++) {
+            sb.append(String.format(ROW, i, i * 7));
+        }
+        sb.append("</table>\n");
+        if (!shape.equals("fragment")) {
+            sb.append("</body>\n</html>\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A PDF-shaped payload of the given size. Only the bytes matter, nothing parses it.
+     */
+    public static byte[] pdf(int size) {
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] trailer = "\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] data = new byte[Math.max(size, header.length + trailer.length)];
+        Arrays.fill(data, (byte) ' ');
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(trailer, 0, data, data.length - trailer.length, trailer.length);
+        return data;
+    }
+}
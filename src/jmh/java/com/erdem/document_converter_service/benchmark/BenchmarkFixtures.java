@@ -0,0 +1,77 @@
+package com.erdem.document_converter_service.benchmark;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import com.erdem.document_converter_service.cache.PdfResultCache;
+import com.erdem.document_converter_service.cache.SharedResultStore;
+import com.erdem.document_converter_service.conversion.ConversionService;
+import com.erdem.document_converter_service.conversion.ElasticOfficePool;
+import com.erdem.document_converter_service.conversion.NativeExcelRenderer;
+import com.erdem.document_converter_service.conversion.PdfOptimizer;
+import com.erdem.document_converter_service.conversion.TempFileManager;
+import com.erdem.document_converter_service.html.NativeHtmlRenderer;
+import com.erdem.document_converter_service.html.PlaywrightEngine;
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds the conversion beans without starting the application: a small context holds only
+ * the components a benchmark needs, configured through the application's own property names
+ * (their defaults are those of application.properties). Nothing is scanned, so no engine starts
+ * unless it is listed; stand-ins such as {@link StubPlaywrightEngine} are registered as
+ * ready-made singletons and not processed by the context.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Starts a context with the given components, the given singletons by bean name, and the
+     * given properties on top of the components' defaults.
+     */
+    public static AnnotationConfigApplicationContext context(Map<String, Object> properties, Map<String, Object> singletons,
+            Class<?>... components) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        singletons.forEach(context.getBeanFactory()::registerSingleton);
+        context.register(components);
+        context.refresh();
+        return context;
+    }
+
+    public static StageMetrics stageMetrics(MeterRegistry meterRegistry) {
+        return context(Map.of(), Map.of("meterRegistry", meterRegistry), StageMetrics.class).getBean(StageMetrics.class);
+    }
+
+    public static TempFileManager tempFileManager(Path directory, MeterRegistry meterRegistry) {
+        return context(Map.of("app.output.directory", directory.toString()), Map.of("meterRegistry", meterRegistry),
+                TempFileManager.class).getBean(TempFileManager.class);
+    }
+
+    /**
+     * A conversion service rendering HTML with the given engine. The result cache and the native
+     * renderers are disabled so every call goes through the full pipeline to that engine.
+     */
+    public static ConversionService htmlConversionService(PlaywrightEngine engine, TempFileManager tempFiles, Path directory) {
+        Map<String, Object> properties = Map.of(
+                "app.output.directory", directory.toString(),
+                "app.cache.enabled", false,
+                "app.html.native.enabled", false,
+                "app.office.native.enabled", false);
+        Map<String, Object> singletons = Map.of(
+                "meterRegistry", new SimpleMeterRegistry(),
+                "playwrightEngine", engine,
+                "tempFileManager", tempFiles);
+        return context(properties, singletons,
+                ConversionService.class, PdfResultCache.class, SharedResultStore.class, NativeHtmlRenderer.class,
+                NativeExcelRenderer.class, PdfOptimizer.class, StageMetrics.class, ElasticOfficePool.class)
+                .getBean(ConversionService.class);
+    }
+}
@@ -0,0 +1,115 @@
+package com.erdem.document_converter_service.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the benchmark suite and writes the results as JMH JSON.
+ * <p>
+ * System properties:
+ * <ul>
+ * <li>{@code bench.include} - regex of benchmarks to run (default all)</li>
+ * <li>{@code bench.engines} - {@code auto} runs the LibreOffice and Chromium benchmarks only
+ * when the engine is found, {@code none} never runs them</li>
+ * <li>{@code bench.result} - JSON result file</li>
+ * <li>{@code bench.baseline} - optional earlier result file; the run fails when a benchmark is
+ * slower than its baseline by more than {@code bench.max-regression} (a fraction)</li>
+ * </ul>
+ */
+public final class BenchmarkMain {
+
+    private static final String CHROMIUM_BENCHMARK = "ChromiumRenderBenchmark";
+    private static final String OFFICE_BENCHMARK = "LibreOfficeConvertBenchmark";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String include = System.getProperty("bench.include", ".*");
+        String engines = System.getProperty("bench.engines", "auto").toLowerCase(Locale.ROOT);
+        Path result = Paths.get(System.getProperty("bench.result", "target/jmh-results.json"));
+        String baseline = System.getProperty("bench.baseline", "");
+        double maxRegression = Double.parseDouble(System.getProperty("bench.max-regression", "0.20"));
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString());
+
+        boolean probe = engines.equals("auto");
+        if (!probe || !EngineProbe.chromiumAvailable()) {
+            System.out.println("Skipping " + CHROMIUM_BENCHMARK + ": Chromium " + (probe ? "not installed" : "disabled"));
+            options.exclude(CHROMIUM_BENCHMARK);
+        }
+        File officeHome = probe ? EngineProbe.officeHome() : null;
+        if (officeHome == null) {
+            System.out.println("Skipping " + OFFICE_BENCHMARK + ": LibreOffice " + (probe ? "not installed" : "disabled"));
+            options.exclude(OFFICE_BENCHMARK);
+        } else {
+            options.jvmArgsAppend("-D" + EngineProbe.OFFICE_HOME_PROPERTY + "=" + officeHome.getAbsolutePath());
+        }
+
+        new Runner(options.build()).run();
+        System.out.println("Benchmark results written to " + result.toAbsolutePath());
+
+        if (!baseline.isBlank()) {
+            List<String> regressions = compare(Paths.get(baseline), result, maxRegression);
+            if (!regressions.isEmpty()) {
+                System.err.println("Benchmarks slower than baseline by more than " + Math.round(maxRegression * 100) + "%:");
+                regressions.forEach(line -> System.err.println("  " + line));
+                System.exit(1);
+            }
+            System.out.println("No regressions against " + baseline);
+        }
+    }
+
+    /**
+     * Compares average times of benchmarks present in both files. All benchmarks report time
+     * per operation, so a higher score is slower.
+     */
+    static List<String> compare(Path baselineFile, Path resultFile, double maxRegression) throws IOException {
+        Map<String, Double> before = scores(baselineFile);
+        Map<String, Double> after = scores(resultFile);
+        List<String> regressions = new ArrayList<>();
+        after.forEach((key, score) -> {
+            Double previous = before.get(key);
+            if (previous != null && previous > 0 && score > previous * (1 + maxRegression)) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.3f -> %.3f (+%.0f%%)", key, previous, score, (score / previous - 1) * 100));
+            }
+        });
+        return regressions;
+    }
+
+    private static Map<String, Double> scores(Path file) throws IOException {
+        Map<String, Double> scores = new HashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            JsonNode paramsNode = run.path("params");
+            for (Iterator<Map.Entry<String, JsonNode>> it = paramsNode.fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            scores.put(run.path("benchmark").asText() + params, run.path("primaryMetric").path("score").asDouble());
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,46 @@
+package com.erdem.document_converter_service.benchmark;
+
+import java.io.File;
+import java.util.Map;
+
+import org.jodconverter.local.office.LocalOfficeUtils;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Playwright;
+
+/**
+ * Finds out which real engines exist on this machine, so their benchmarks can be skipped
+ * instead of failing the run.
+ */
+public final class EngineProbe {
+
+    public static final String OFFICE_HOME_PROPERTY = "bench.office-home";
+
+    private EngineProbe() {
+    }
+
+    /**
+     * True when Playwright can launch Chromium without downloading it first.
+     */
+    public static boolean chromiumAvailable() {
+        Playwright.CreateOptions options = new Playwright.CreateOptions()
+                .setEnv(Map.of("PLAYWRIGHT_SKIP_BROWSER_DOWNLOAD", "1"));
+        try (Playwright playwright = Playwright.create(options)) {
+            Browser browser = playwright.chromium().launch();
+            browser.close();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The LibreOffice installation from {@code -Dbench.office-home}, or the platform default,
+     * or null when there is none.
+     */
+    public static File officeHome() {
+        String configured = System.getProperty(OFFICE_HOME_PROPERTY, "");
+        File home = configured.isBlank() ? LocalOfficeUtils.getDefaultOfficeHome() : new File(configured);
+        return home != null && home.isDirectory() ? home : null;
+    }
+}
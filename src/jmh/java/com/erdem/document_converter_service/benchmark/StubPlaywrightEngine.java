@@ -0,0 +1,39 @@
+package com.erdem.document_converter_service.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.erdem.document_converter_service.html.PlaywrightEngine;
+import com.erdem.document_converter_service.html.PrintOptions;
+
+/**
+ * Stands in for Chromium so the conversion pipeline around it can be measured on its own:
+ * reads the prepared HTML and writes a fixed PDF.
+ */
+public class StubPlaywrightEngine extends PlaywrightEngine {
+
+    private final byte[] pdf;
+    private final int capacity;
+
+    public StubPlaywrightEngine(byte[] pdf, int capacity) {
+        this.pdf = pdf;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void renderPdf(Path htmlPath, Path outputPath, PrintOptions printOptions, long maxPageWaitMs) throws Exception {
+        // Chromium would read the whole document, keep that part of the cost
+        Files.readAllBytes(htmlPath);
+        Files.write(outputPath, pdf);
+    }
+}
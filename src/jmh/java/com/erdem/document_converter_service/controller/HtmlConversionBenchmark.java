@@ -0,0 +1,89 @@
+package com.erdem.document_converter_service.controller;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkDocuments;
+import com.erdem.document_converter_service.benchmark.BenchmarkFixtures;
+import com.erdem.document_converter_service.benchmark.StubPlaywrightEngine;
+import com.erdem.document_converter_service.cache.CachedPdf;
+import com.erdem.document_converter_service.conversion.ConversionService;
+import com.erdem.document_converter_service.conversion.TempFileManager;
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The synchronous HTML to PDF path end to end (upload to temp file, CSS injection, admission,
+ * render, response body) with Chromium replaced by {@link StubPlaywrightEngine}. This is the
+ * service's own overhead per request; the real engine is covered by ChromiumRenderBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlConversionBenchmark {
+
+    @Param({"16", "1024"})
+    public int sizeKb;
+
+    private Path directory;
+    private TempFileManager tempFiles;
+    private ConversionService conversionService;
+    private MockMultipartFile upload;
+    private Timer responseTimer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("bench-html-");
+        tempFiles = BenchmarkFixtures.tempFileManager(directory, new SimpleMeterRegistry());
+        conversionService = BenchmarkFixtures.htmlConversionService(
+                new StubPlaywrightEngine(BenchmarkDocuments.pdf(64 * 1024), 4), tempFiles, directory);
+        responseTimer = BenchmarkFixtures.stageMetrics(new SimpleMeterRegistry()).timer(StageMetrics.RESPONSE, "html");
+        upload = new MockMultipartFile("file", "report.html", "text/html", BenchmarkDocuments.html(sizeKb * 1024, "head"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tempFiles.shutdown();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void convertSingleThreaded() throws Exception {
+        convert();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void convertConcurrent() throws Exception {
+        convert();
+    }
+
+    private void convert() throws Exception {
+        CachedPdf pdf = conversionService.convertHtml(upload, upload.getOriginalFilename());
+        PdfResponses.of(pdf, "converted-from-html.pdf", responseTimer).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
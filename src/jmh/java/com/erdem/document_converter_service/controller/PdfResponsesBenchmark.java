@@ -0,0 +1,76 @@
+package com.erdem.document_converter_service.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkDocuments;
+import com.erdem.document_converter_service.cache.CachedPdf;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Building a PDF download response and writing its body, for in-memory and file-backed results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfResponsesBenchmark {
+
+    @Param({"16", "512", "8192"})
+    public int sizeKb;
+
+    private byte[] data;
+    private Path file;
+    private Timer responseTimer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = BenchmarkDocuments.pdf(sizeKb * 1024);
+        file = Files.createTempFile("bench-response-", ".pdf");
+        Files.write(file, data);
+        responseTimer = Timer.builder("converter.stage").register(new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ResponseEntity<StreamingResponseBody> buildOnly() throws IOException {
+        return PdfResponses.of(CachedPdf.ofBytes(data), "converted.pdf", responseTimer);
+    }
+
+    @Benchmark
+    public void writeFromMemory() throws IOException {
+        PdfResponses.of(CachedPdf.ofBytes(data), "converted.pdf", responseTimer).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeFromFile() throws IOException {
+        PdfResponses.of(CachedPdf.ofFile(file), "converted.pdf", responseTimer).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,91 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jodconverter.core.DocumentConverter;
+import org.jodconverter.local.LocalConverter;
+import org.jodconverter.local.office.LocalOfficeManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import com.erdem.document_converter_service.benchmark.EngineProbe;
+
+/**
+ * Real LibreOffice spreadsheet to PDF conversion on a started office process. A CSV sheet is
+ * used as input so no spreadsheet library is needed to build it; it goes through the same
+ * calc_pdf_Export filter as an uploaded workbook. Only runs when LibreOffice is installed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibreOfficeConvertBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private Path directory;
+    private File input;
+    private File output;
+    private LocalOfficeManager officeManager;
+    private DocumentConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File officeHome = EngineProbe.officeHome();
+        if (officeHome == null) {
+            throw new IllegalStateException("LibreOffice not found, set -D" + EngineProbe.OFFICE_HOME_PROPERTY);
+        }
+        directory = Files.createTempDirectory("bench-office-");
+        input = directory.resolve("sheet.csv").toFile();
+        output = directory.resolve("sheet.pdf").toFile();
+
+        StringBuilder csv = new StringBuilder("Item,Quantity,Price,Description\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Item ").append(i).append(',').append(i % 50).append(',').append(i * 7).append(".00,Lorem ipsum dolor sit amet\n");
+        }
+        Files.writeString(input.toPath(), csv, StandardCharsets.UTF_8);
+
+        officeManager = LocalOfficeManager.builder()
+                .officeHome(officeHome)
+                .portNumbers(2102)
+                .disableOpengl(true)
+                .build();
+        officeManager.start();
+        converter = LocalConverter.make(officeManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (officeManager != null) {
+            officeManager.stop();
+        }
+        if (directory != null) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public long convert() throws Exception {
+        converter.convert(input).to(output).execute();
+        return output.length();
+    }
+}
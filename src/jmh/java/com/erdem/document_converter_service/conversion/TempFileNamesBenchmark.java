@@ -0,0 +1,78 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkFixtures;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * File-name and temp-path derivation done for every synchronous conversion, before the
+ * engine is involved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TempFileNamesBenchmark {
+
+    @Param({"report.xlsx", "Quarterly Report (final) – März 2024 v2.xlsx"})
+    public String originalFilename;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private Path directory;
+    private TempFileManager tempFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("bench-temp-");
+        tempFiles = BenchmarkFixtures.tempFileManager(directory, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tempFiles.shutdown();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String deriveBaseName() {
+        String safeName = TempFileNames.safeName(originalFilename);
+        return TempFileNames.uniqueBaseName(safeName, sequence.incrementAndGet()) + TempFileNames.extension(safeName, ".xlsx");
+    }
+
+    /**
+     * Names plus tracking of the input and output paths, as the sync methods do. Nothing is
+     * written, so releasing only untracks.
+     */
+    @Benchmark
+    public Path allocateAndRelease() {
+        String safeName = TempFileNames.safeName(originalFilename);
+        String baseName = TempFileNames.uniqueBaseName(safeName, sequence.incrementAndGet());
+        Path inputPath = tempFiles.allocate(baseName + TempFileNames.extension(safeName, ".xlsx"));
+        Path outputPath = tempFiles.allocate(baseName + ".pdf");
+        tempFiles.release(inputPath);
+        tempFiles.release(outputPath);
+        return outputPath;
+    }
+}
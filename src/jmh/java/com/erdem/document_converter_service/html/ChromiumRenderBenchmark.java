@@ -0,0 +1,90 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkDocuments;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Real Chromium rendering of a prepared document on a warm page. Only runs when Chromium is
+ * installed; see BenchmarkMain.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChromiumRenderBenchmark {
+
+    @Param({"16", "1024"})
+    public int sizeKb;
+
+    private Path directory;
+    private Path htmlPath;
+    private Path outputPath;
+    private Playwright playwright;
+    private Browser browser;
+    private Page page;
+    private HtmlPrinter printer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("bench-chromium-");
+        htmlPath = directory.resolve("report.html");
+        outputPath = directory.resolve("report.pdf");
+        try (InputStream in = new ByteArrayInputStream(BenchmarkDocuments.html(sizeKb * 1024, "head"));
+                OutputStream out = Files.newOutputStream(htmlPath)) {
+            PrintCssInjector.inject(in, out);
+        }
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(PlaywrightEngine.launchOptions());
+        page = browser.newPage();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // No asset cache: the documents have no remote resources
+        printer = new HtmlPrinter(null, 10000, Timer.builder("navigate").register(meterRegistry),
+                Timer.builder("pdf").register(meterRegistry), meterRegistry.counter("budget-exceeded"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (browser != null) {
+            browser.close();
+        }
+        if (playwright != null) {
+            playwright.close();
+        }
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long render() throws Exception {
+        printer.print(page, htmlPath, outputPath, PrintOptions.DEFAULT, Long.MAX_VALUE);
+        return Files.size(outputPath);
+    }
+}
@@ -0,0 +1,84 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkDocuments;
+import com.erdem.document_converter_service.benchmark.BenchmarkFixtures;
+
+/**
+ * In-JVM rendering of the same prepared documents as {@link ChromiumRenderBenchmark}, plus
+ * the classification that routes a document to it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NativeRenderBenchmark {
+
+    @Param({"16", "1024"})
+    public int sizeKb;
+
+    private Path directory;
+    private Path htmlPath;
+    private Path outputPath;
+    private NativeHtmlRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("bench-native-");
+        htmlPath = directory.resolve("report.html");
+        outputPath = directory.resolve("report.pdf");
+        try (InputStream in = new ByteArrayInputStream(BenchmarkDocuments.html(sizeKb * 1024, "head"));
+                OutputStream out = Files.newOutputStream(htmlPath)) {
+            PrintCssInjector.inject(in, out);
+        }
+        renderer = BenchmarkFixtures.context(Map.of(
+                "app.html.native.enabled", true,
+                "app.html.native.max-bytes", 2L * 1024 * 1024,
+                // Standard PDF fonts only, the benchmark must not depend on installed fonts
+                "app.html.native.font-directory", ""),
+                Map.of(), NativeHtmlRenderer.class).getBean(NativeHtmlRenderer.class);
+        if (renderer.rejectReason(htmlPath) != null) {
+            throw new IllegalStateException("Benchmark document not accepted: " + renderer.rejectReason(htmlPath));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long render() throws Exception {
+        renderer.renderPdf(htmlPath, outputPath);
+        return Files.size(outputPath);
+    }
+
+    @Benchmark
+    public String classify() throws Exception {
+        return renderer.rejectReason(htmlPath);
+    }
+}
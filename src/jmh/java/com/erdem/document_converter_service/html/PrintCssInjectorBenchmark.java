@@ -0,0 +1,75 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkDocuments;
+
+/**
+ * Print CSS injection across document sizes and shapes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrintCssInjectorBenchmark {
+
+    @Param({"1", "64", "1024", "16384"})
+    public int sizeKb;
+
+    @Param({"head", "html", "fragment"})
+    public String shape;
+
+    private byte[] document;
+
+    @Setup
+    public void setUp() {
+        document = BenchmarkDocuments.html(sizeKb * 1024, shape);
+    }
+
+    @Benchmark
+    public void inject(Blackhole blackhole) throws IOException {
+        PrintCssInjector.inject(new ByteArrayInputStream(document), new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public int findHead() {
+        return PrintCssInjector.findStartTagEnd(document, "head");
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.jodconverter.core.document.DefaultDocumentFormatRegistry;
+import org.jodconverter.core.job.AbstractConversionJob;
+import org.jodconverter.core.job.AbstractConversionJobWithSourceFormatUnspecified;
+import org.jodconverter.core.job.AbstractConverter;
+import org.jodconverter.core.job.AbstractSourceDocumentSpecs;
+import org.jodconverter.core.job.AbstractTargetDocumentSpecs;
+import org.jodconverter.core.office.OfficeException;
+
+/**
+ * Stands in for LibreOffice conversions under load, with the same fluent API as
+ * {@code LocalConverter}. Every conversion runs as a task on the {@link FakeOfficeManager},
+ * takes a sampled service time, fails at the model's rate and otherwise writes a fixed PDF to
+ * the target. Page options, filters and export properties are not applied.
+ */
+public class FakeDocumentConverter extends AbstractConverter {
+
+    private final LatencyModel latency;
+    private final byte[] pdf;
+
+    public FakeDocumentConverter(FakeOfficeManager officeManager, LatencyModel latency, byte[] pdf) {
+        super(officeManager, DefaultDocumentFormatRegistry.getInstance());
+        this.latency = latency;
+        this.pdf = pdf;
+    }
+
+    @Override
+    protected AbstractConversionJobWithSourceFormatUnspecified convert(AbstractSourceDocumentSpecs source) {
+        return new FakeJobWithSourceFormatUnspecified(source);
+    }
+
+    private void convert(AbstractSourceDocumentSpecs source, AbstractTargetDocumentSpecs target) throws OfficeException {
+        File sourceFile = null;
+        File targetFile = null;
+        try {
+            sourceFile = source.getFile();
+            targetFile = target.getFile();
+            Thread.sleep(latency.sampleMs());
+            if (latency.sampleFailure()) {
+                throw new OfficeException("Injected office failure");
+            }
+            Files.write(targetFile.toPath(), pdf);
+            target.onComplete(targetFile);
+        } catch (OfficeException e) {
+            target.onFailure(targetFile, e);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OfficeException("Interrupted while converting", e);
+        } catch (IOException e) {
+            throw new OfficeException("Could not write the result", e);
+        } finally {
+            if (sourceFile != null) {
+                source.onConsumed(sourceFile);
+            }
+        }
+    }
+
+    private final class FakeJobWithSourceFormatUnspecified extends AbstractConversionJobWithSourceFormatUnspecified {
+
+        private FakeJobWithSourceFormatUnspecified(AbstractSourceDocumentSpecs source) {
+            super(source, FakeDocumentConverter.this.officeManager, FakeDocumentConverter.this.formatRegistry);
+        }
+
+        @Override
+        protected AbstractConversionJob to(AbstractTargetDocumentSpecs target) {
+            return new FakeJob(sourceSpecs, target);
+        }
+    }
+
+    private final class FakeJob extends AbstractConversionJob {
+
+        private FakeJob(AbstractSourceDocumentSpecs source, AbstractTargetDocumentSpecs target) {
+            super(source, target);
+        }
+
+        @Override
+        public void doExecute() throws OfficeException {
+            FakeDocumentConverter.this.officeManager.execute(context -> convert(sourceSpecs, targetSpecs));
+        }
+    }
+}
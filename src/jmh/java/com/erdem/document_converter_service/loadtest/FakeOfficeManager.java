@@ -0,0 +1,73 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.jodconverter.core.office.OfficeException;
+import org.jodconverter.core.office.OfficeManager;
+import org.jodconverter.core.office.TemporaryFileMaker;
+import org.jodconverter.core.task.OfficeTask;
+
+/**
+ * Stands in for the LibreOffice processes under load. Like {@code LocalOfficeManager} it runs
+ * one task per process and queues the rest for at most the task queue timeout. Tasks come from
+ * the {@link FakeDocumentConverter} and run without an office context.
+ */
+public class FakeOfficeManager implements OfficeManager, TemporaryFileMaker {
+
+    private final Semaphore processes;
+    private final long queueTimeoutMs;
+    private final Path workingDirectory;
+    private volatile boolean running;
+
+    public FakeOfficeManager(int processes, long queueTimeoutMs, Path workingDirectory) {
+        this.processes = new Semaphore(processes, true);
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.workingDirectory = workingDirectory;
+    }
+
+    @Override
+    public void execute(OfficeTask task) throws OfficeException {
+        try {
+            if (!processes.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new OfficeException("Task did not run within " + queueTimeoutMs + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OfficeException("Interrupted while queued", e);
+        }
+        try {
+            task.execute(null);
+        } finally {
+            processes.release();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public File makeTemporaryFile() {
+        return workingDirectory.resolve("tempfile_" + UUID.randomUUID()).toFile();
+    }
+
+    @Override
+    public File makeTemporaryFile(String extension) {
+        return workingDirectory.resolve("tempfile_" + UUID.randomUUID() + "." + extension).toFile();
+    }
+}
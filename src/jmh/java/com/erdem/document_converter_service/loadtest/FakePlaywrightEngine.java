@@ -0,0 +1,64 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.erdem.document_converter_service.html.PlaywrightEngine;
+import com.erdem.document_converter_service.html.PrintOptions;
+
+/**
+ * Stands in for Chromium under load: renders take a sampled service time on one of
+ * {@code capacity} pages, like the real page pool, and fail at the model's rate.
+ */
+public class FakePlaywrightEngine extends PlaywrightEngine {
+
+    private final LatencyModel latency;
+    private final int capacity;
+    private final Semaphore pages;
+    private final byte[] pdf;
+
+    public FakePlaywrightEngine(LatencyModel latency, int capacity, byte[] pdf) {
+        this.latency = latency;
+        this.capacity = capacity;
+        this.pages = new Semaphore(capacity, true);
+        this.pdf = pdf;
+    }
+
+    @Override
+    public void init() {
+        // No browser to start
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void renderPdf(Path htmlPath, Path outputPath, PrintOptions printOptions, long maxPageWaitMs) throws Exception {
+        if (!pages.tryAcquire(maxPageWaitMs, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("No browser page within " + maxPageWaitMs + "ms");
+        }
+        try {
+            Files.readAllBytes(htmlPath);
+            Thread.sleep(latency.sampleMs());
+            if (latency.sampleFailure()) {
+                throw new IllegalStateException("Injected browser failure");
+            }
+            Files.write(outputPath, pdf);
+        } finally {
+            pages.release();
+        }
+    }
+}
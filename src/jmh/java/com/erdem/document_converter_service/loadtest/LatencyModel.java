@@ -0,0 +1,60 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service time and failure rate of a fake engine. Latencies follow a lognormal distribution
+ * fitted to the given median and 99th percentile, which is close to what real LibreOffice and
+ * Chromium renders look like: most are near the median, a few take many times longer.
+ *
+ * @param medianMs    median service time
+ * @param p99Ms       99th percentile service time, at least the median
+ * @param failureRate fraction of calls that fail, between 0 and 1
+ */
+public record LatencyModel(double medianMs, double p99Ms, double failureRate) {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    public LatencyModel {
+        if (medianMs < 0 || p99Ms < medianMs) {
+            throw new IllegalArgumentException("Need 0 <= median <= p99, got " + medianMs + " and " + p99Ms);
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Failure rate must be between 0 and 1, got " + failureRate);
+        }
+    }
+
+    /**
+     * Parses {@code median,p99[,failureRate]}, e.g. {@code 800,6000,0.01}.
+     */
+    public static LatencyModel parse(String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Expected median,p99[,failureRate] but got '" + spec + "'");
+        }
+        double failureRate = parts.length == 3 ? Double.parseDouble(parts[2].trim()) : 0;
+        return new LatencyModel(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()), failureRate);
+    }
+
+    /**
+     * A service time in milliseconds.
+     */
+    public long sampleMs() {
+        if (medianMs == 0) {
+            return 0;
+        }
+        double sigma = Math.log(p99Ms / medianMs) / Z_99;
+        return Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    public boolean sampleFailure() {
+        return failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "median=%.0fms p99=%.0fms failures=%.1f%%", medianMs, p99Ms, failureRate * 100);
+    }
+}
@@ -0,0 +1,77 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.jodconverter.core.DocumentConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import com.erdem.document_converter_service.html.PlaywrightEngine;
+
+/**
+ * Replaces LibreOffice and Chromium with fakes for the load test. Needs
+ * {@code jodconverter.local.enabled=false} and bean definition overriding, which
+ * {@link LoadTestMain} sets.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class LoadTestEngines {
+
+    // median,p99[,failureRate] in milliseconds
+    @Value("${loadtest.office.latency:800,6000,0.005}")
+    private String officeLatency;
+
+    @Value("${loadtest.office.processes:4}")
+    private int officeProcesses;
+
+    @Value("${jodconverter.local.task-queue-timeout:30000}")
+    private long officeQueueTimeoutMs;
+
+    @Value("${loadtest.browser.latency:400,3000,0.005}")
+    private String browserLatency;
+
+    @Value("${loadtest.browser.pages:4}")
+    private int browserPages;
+
+    @Value("${loadtest.pdf-pages:1}")
+    private int pdfPages;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public FakeOfficeManager officeManager() throws IOException {
+        return new FakeOfficeManager(officeProcesses, officeQueueTimeoutMs, Files.createTempDirectory("loadtest-office"));
+    }
+
+    /**
+     * The only office bean the conversion service needs: without a {@code LocalOfficeManager}
+     * it serves every Excel conversion with this converter.
+     */
+    @Bean
+    public DocumentConverter documentConverter(FakeOfficeManager officeManager) throws IOException {
+        return new FakeDocumentConverter(officeManager, LatencyModel.parse(officeLatency), pdf());
+    }
+
+    /**
+     * Overrides the {@link PlaywrightEngine} component, it has the same bean name.
+     */
+    @Bean
+    public PlaywrightEngine playwrightEngine() throws IOException {
+        return new FakePlaywrightEngine(LatencyModel.parse(browserLatency), browserPages, pdf());
+    }
+
+    /**
+     * A real, blank PDF, so merging and optimizing work on fake results too.
+     */
+    private byte[] pdf() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < Math.max(1, pdfPages); i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import com.erdem.document_converter_service.DocumentConverterServiceApplication;
+import com.erdem.document_converter_service.conversion.ConversionScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+
+/**
+ * Starts the service in-process with fake LibreOffice and Chromium engines
+ * ({@link LoadTestEngines}), replays a {@link Workload} against it over HTTP at a fixed rate and
+ * reports throughput, latency percentiles, queue depths and rejections.
+ * <p>
+ * Requests are sent open-loop: on schedule whether or not earlier ones have finished, so an
+ * overloaded service shows up as growing latency and rejections instead of a slower client.
+ * <p>
+ * System properties:
+ * <ul>
+ * <li>{@code loadtest.workload} - workload CSV (default the bundled sample)</li>
+ * <li>{@code loadtest.rate} - requests per second (default 10)</li>
+ * <li>{@code loadtest.duration-seconds} - how long to send requests (default 60)</li>
+ * <li>{@code loadtest.warmup-seconds} - leading part of the run left out of the report (default 5)</li>
+ * <li>{@code loadtest.timeout-ms} - client timeout per request (default 120000)</li>
+ * <li>{@code loadtest.report} - JSON report file (default target/load-test.json)</li>
+ * <li>{@code loadtest.office.latency}, {@code loadtest.browser.latency} - engine service times
+ * as {@code median,p99[,failureRate]} in milliseconds</li>
+ * <li>{@code loadtest.office.processes}, {@code loadtest.browser.pages} - engine concurrency</li>
+ * </ul>
+ * Any application property can be set the same way, e.g. {@code -Dserver.tomcat.threads.max=20}.
+ */
+public final class LoadTestMain {
+
+    private static final long SAMPLE_INTERVAL_MS = 250;
+
+    // Properties the harness needs; each applies only when not set as a system property
+    private static final Map<String, String> HARNESS_PROPERTIES = Map.of(
+            "server.port", "0",
+            "jodconverter.local.enabled", "false",
+            "spring.main.allow-bean-definition-overriding", "true",
+            "app.cache.enabled", "false",
+            "server.tomcat.mbeanregistry.enabled", "true",
+            "logging.level.root", "WARN");
+
+    private record Sample(Workload.Type type, long sentNanos, long latencyNanos, int status) {
+    }
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String workloadFile = System.getProperty("loadtest.workload", "");
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "10"));
+        long durationSeconds = Long.parseLong(System.getProperty("loadtest.duration-seconds", "60"));
+        long warmupSeconds = Long.parseLong(System.getProperty("loadtest.warmup-seconds", "5"));
+        long timeoutMs = Long.parseLong(System.getProperty("loadtest.timeout-ms", "120000"));
+        Path report = Path.of(System.getProperty("loadtest.report", "target/load-test.json"));
+
+        Path directory = Files.createTempDirectory("loadtest");
+        Workload workload = Workload.load(workloadFile, directory.resolve("documents"));
+        Files.createDirectories(directory.resolve("documents"));
+        workload.prepare();
+
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        HARNESS_PROPERTIES.forEach((key, value) -> addDefault(arguments, key, value));
+        addDefault(arguments, "app.output.directory", directory.resolve("outputs").toString());
+        SpringApplication application = new SpringApplication(DocumentConverterServiceApplication.class, LoadTestEngines.class);
+        ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) application.run(arguments.toArray(new String[0]));
+        try {
+            URI base = URI.create("http://localhost:" + context.getWebServer().getPort());
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            System.out.printf(Locale.ROOT, "Replaying %d recorded requests at %.1f/s for %ds against %s%n",
+                    workload.size(), rate, durationSeconds, base);
+
+            Map<String, Object> result = run(workload, base, meterRegistry, rate, durationSeconds, warmupSeconds, timeoutMs);
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("workload", workloadFile.isBlank() ? "bundled" : workloadFile);
+            config.put("rate", rate);
+            config.put("durationSeconds", durationSeconds);
+            config.put("warmupSeconds", warmupSeconds);
+            for (String key : List.of("loadtest.office.latency", "loadtest.office.processes", "loadtest.browser.latency",
+                    "loadtest.browser.pages", "server.tomcat.threads.max", "server.tomcat.accept-count",
+                    "server.tomcat.max-connections", "spring.threads.virtual.enabled", "app.admission.office.max-waiting",
+                    "app.admission.browser.max-waiting", "app.scheduler.lane-capacity")) {
+                config.put(key, context.getEnvironment().getProperty(key));
+            }
+            result.put("config", config);
+
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), result);
+            System.out.println("Load test report written to " + report.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void addDefault(List<String> arguments, String key, String value) {
+        if (System.getProperty(key) == null && arguments.stream().noneMatch(a -> a.startsWith("--" + key + "="))) {
+            // Command line arguments, so they win over application.properties
+            arguments.add("--" + key + "=" + value);
+        }
+    }
+
+    private static Map<String, Object> run(Workload workload, URI base, MeterRegistry meterRegistry, double rate,
+            long durationSeconds, long warmupSeconds, long timeoutMs) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+        Map<String, double[]> depths = new TreeMap<>();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        sampler.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() >= measureFrom) {
+                sampleDepths(meterRegistry, depths);
+            }
+        }, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long sent = 0;
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long due = start; due < end; due += intervalNanos) {
+                LockSupport.parkNanos(due - System.nanoTime());
+                Workload.Request request = workload.get(sent++);
+                long scheduled = due;
+                senders.execute(() -> samples.add(send(client, base, workload, request, scheduled, timeoutMs)));
+            }
+            // Closing waits for the requests still in flight
+        }
+        long elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+
+        List<Sample> measured = samples.stream().filter(s -> s.sentNanos() >= measureFrom).toList();
+        double measuredSeconds = Math.max(1e-9, (elapsed - (measureFrom - start)) / 1e9);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sent", sent);
+        result.put("overall", summary(measured, measuredSeconds));
+        Map<String, Object> byType = new LinkedHashMap<>();
+        for (Workload.Type type : Workload.Type.values()) {
+            List<Sample> ofType = measured.stream().filter(s -> s.type() == type).toList();
+            if (!ofType.isEmpty()) {
+                byType.put(type.name().toLowerCase(Locale.ROOT), summary(ofType, measuredSeconds));
+            }
+        }
+        result.put("byType", byType);
+        Map<String, Object> queues = new LinkedHashMap<>();
+        synchronized (depths) {
+            depths.forEach((name, d) -> queues.put(name, Map.of("mean", d[2] == 0 ? 0 : d[0] / d[2], "max", d[1])));
+        }
+        result.put("queueDepths", queues);
+        Map<String, Object> rejections = new LinkedHashMap<>();
+        rejections.put("scheduler", sum(meterRegistry.find("converter.scheduler.rejected")));
+        rejections.put("admission", sum(meterRegistry.find("converter.admission.rejected")));
+        result.put("serverRejections", rejections);
+
+        print(result);
+        return result;
+    }
+
+    /**
+     * Sends one request. Latency counts from when it was due, so client-side delays are not
+     * hidden; the status is -1 when no response came back.
+     */
+    private static Sample send(HttpClient client, URI base, Workload workload, Workload.Request request, long scheduled, long timeoutMs) {
+        int status;
+        try {
+            Path document = workload.document(request);
+            String boundary = UUID.randomUUID().toString();
+            String head = "--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\""
+                    + document.getFileName() + "\"\r\nContent-Type: application/octet-stream\r\n\r\n";
+            String tail = "\r\n--" + boundary + "--\r\n";
+            String query = request.type() == Workload.Type.EXCEL
+                    ? "?landscape=" + request.landscape() + "&fitToPage=" + request.fitToPage() : "";
+            HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(request.type().path + query))
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofInputStream(() -> multipart(head, document, tail)));
+            if (!request.priority().isEmpty()) {
+                builder.header(ConversionScheduler.PRIORITY_HEADER, request.priority());
+            }
+            if (!request.tenant().isEmpty()) {
+                builder.header(ConversionScheduler.TENANT_HEADER, request.tenant());
+            }
+            status = client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = -1;
+        } catch (IOException e) {
+            status = -1;
+        }
+        return new Sample(request.type(), scheduled, System.nanoTime() - scheduled, status);
+    }
+
+    private static InputStream multipart(String head, Path document, String tail) {
+        try {
+            return new SequenceInputStream(Collections.enumeration(List.of(
+                    new ByteArrayInputStream(head.getBytes(StandardCharsets.UTF_8)),
+                    Files.newInputStream(document),
+                    new ByteArrayInputStream(tail.getBytes(StandardCharsets.UTF_8)))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the current queue depths to the running sum (index 0), maximum (1) and sample
+     * count (2) of each series.
+     */
+    private static void sampleDepths(MeterRegistry meterRegistry, Map<String, double[]> depths) {
+        Map<String, Double> now = new LinkedHashMap<>();
+        now.put("scheduler.queued", sum(meterRegistry.find("converter.scheduler.queued")));
+        for (String engine : List.of("office", "browser")) {
+            now.put("admission.waiting." + engine, sum(meterRegistry.find("converter.admission.waiting").tag("engine", engine)));
+            now.put("admission.in-use." + engine, sum(meterRegistry.find("converter.admission.in-use").tag("engine", engine)));
+        }
+        now.put("convert.threads", sum(meterRegistry.find("executor.pool.size").tag("name", "convert")));
+        now.put("tomcat.threads.busy", sum(meterRegistry.find("tomcat.threads.busy")));
+        synchronized (depths) {
+            now.forEach((name, value) -> {
+                double[] d = depths.computeIfAbsent(name, n -> new double[3]);
+                d[0] += value;
+                d[1] = Math.max(d[1], value);
+                d[2]++;
+            });
+        }
+    }
+
+    private static double sum(Search search) {
+        double total = 0;
+        for (Gauge gauge : search.gauges()) {
+            total += gauge.value();
+        }
+        for (Counter counter : search.counters()) {
+            total += counter.count();
+        }
+        return total;
+    }
+
+    private static Map<String, Object> summary(List<Sample> samples, double seconds) {
+        long[] ok = samples.stream().filter(s -> s.status() == 200).mapToLong(Sample::latencyNanos).sorted().toArray();
+        Map<String, Long> statuses = new TreeMap<>();
+        samples.forEach(s -> statuses.merge(s.status() < 0 ? "error" : String.valueOf(s.status()), 1L, Long::sum));
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", samples.size());
+        summary.put("throughputPerSecond", ok.length / seconds);
+        summary.put("p50Ms", percentileMs(ok, 0.50));
+        summary.put("p99Ms", percentileMs(ok, 0.99));
+        summary.put("maxMs", ok.length == 0 ? 0 : ok[ok.length - 1] / 1e6);
+        summary.put("statuses", statuses);
+        summary.put("rejected", statuses.getOrDefault("429", 0L) + statuses.getOrDefault("503", 0L));
+        return summary;
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, rank)] / 1e6;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> result) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %8s %10s %10s %10s %10s %9s  %s%n", "", "requests", "ok/s", "p50 ms", "p99 ms", "max ms", "rejected", "statuses");
+        Map<String, Object> rows = new LinkedHashMap<>();
+        rows.put("all", result.get("overall"));
+        rows.putAll((Map<String, Object>) result.get("byType"));
+        rows.forEach((name, value) -> {
+            Map<String, Object> s = (Map<String, Object>) value;
+            System.out.printf(Locale.ROOT, "%-8s %8d %10.2f %10.0f %10.0f %10.0f %9d  %s%n", name, s.get("requests"),
+                    s.get("throughputPerSecond"), s.get("p50Ms"), s.get("p99Ms"), s.get("maxMs"), s.get("rejected"), s.get("statuses"));
+        });
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-28s %8s %8s%n", "queue depth", "mean", "max");
+        ((Map<String, Object>) result.get("queueDepths")).forEach((name, value) -> {
+            Map<String, Object> d = (Map<String, Object>) value;
+            System.out.printf(Locale.ROOT, "%-28s %8.1f %8.0f%n", name, d.get("mean"), d.get("max"));
+        });
+        System.out.println();
+        System.out.println("Server-side rejections: " + result.get("serverRejections"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.erdem.document_converter_service.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkDocuments;
+
+/**
+ * A recorded request mix, replayed in order and from the start again when it runs out.
+ * <p>
+ * The CSV has a header and one request per line:
+ * {@code type,bytes,sheets,landscape,fitToPage,priority,tenant}, where type is {@code excel} or
+ * {@code html}, sheets only applies to Excel and priority and tenant may be empty. Documents are
+ * synthetic and generated once per type, size and sheet count.
+ */
+public final class Workload {
+
+    public enum Type {
+        EXCEL("/api/convert/ExcelToPdf", ".xlsx"),
+        HTML("/api/convert/HtmlToPdf", ".html");
+
+        final String path;
+        final String extension;
+
+        Type(String path, String extension) {
+            this.path = path;
+            this.extension = extension;
+        }
+    }
+
+    public record Request(Type type, int bytes, int sheets, boolean landscape, boolean fitToPage, String priority, String tenant) {
+    }
+
+    // Compressed size of one generated worksheet row, measured once
+    private static volatile double xlsxBytesPerRow;
+
+    private final List<Request> requests;
+    private final Path directory;
+    private final Map<String, Path> documents = new ConcurrentHashMap<>();
+
+    private Workload(List<Request> requests, Path directory) {
+        this.requests = requests;
+        this.directory = directory;
+    }
+
+    /**
+     * Reads a recording from the file, or the bundled sample when the location is empty.
+     */
+    public static Workload load(String location, Path directory) throws IOException {
+        if (location == null || location.isBlank()) {
+            try (InputStream in = Workload.class.getResourceAsStream("/loadtest/workload.csv")) {
+                if (in == null) {
+                    throw new IOException("Bundled workload /loadtest/workload.csv not on the classpath");
+                }
+                return new Workload(parse(in), directory);
+            }
+        }
+        try (InputStream in = Files.newInputStream(Path.of(location))) {
+            return new Workload(parse(in), directory);
+        }
+    }
+
+    static List<Request> parse(InputStream in) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (lineNumber == 1 || line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] f = line.split(",", -1);
+            if (f.length < 7) {
+                throw new IOException("Line " + lineNumber + ": expected 7 columns but got " + f.length);
+            }
+            try {
+                requests.add(new Request(Type.valueOf(f[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(f[1].trim()),
+                        f[2].isBlank() ? 1 : Integer.parseInt(f[2].trim()), Boolean.parseBoolean(f[3].trim()),
+                        Boolean.parseBoolean(f[4].trim()), f[5].trim(), f[6].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if (requests.isEmpty()) {
+            throw new IOException("Workload has no requests");
+        }
+        return requests;
+    }
+
+    public Request get(long index) {
+        return requests.get((int) (index % requests.size()));
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * The document to upload for the request, generated on first use.
+     */
+    public Path document(Request request) throws IOException {
+        String name = request.type().name().toLowerCase(Locale.ROOT) + "-" + request.bytes()
+                + (request.type() == Type.EXCEL ? "-" + request.sheets() : "") + request.type().extension;
+        Path file = documents.get(name);
+        if (file == null) {
+            // Generating twice in a race only wastes a little time
+            file = directory.resolve(name);
+            if (request.type() == Type.EXCEL) {
+                writeWorkbook(file, request.bytes(), request.sheets());
+            } else {
+                Files.write(file, BenchmarkDocuments.html(request.bytes(), "head"));
+            }
+            documents.put(name, file);
+        }
+        return file;
+    }
+
+    /**
+     * Generates every document up front so generation does not count towards latency.
+     */
+    public void prepare() throws IOException {
+        for (Request request : requests) {
+            document(request);
+        }
+    }
+
+    private static void writeWorkbook(Path file, int approximateBytes, int sheets) throws IOException {
+        if (xlsxBytesPerRow == 0) {
+            Path sample = Files.createTempFile("calibrate", ".xlsx");
+            try {
+                writeRows(sample, 1, 2000);
+                xlsxBytesPerRow = Math.max(1.0, (double) Files.size(sample) / 2000);
+            } finally {
+                Files.deleteIfExists(sample);
+            }
+        }
+        writeRows(file, Math.max(1, sheets), Math.max(1, (int) (approximateBytes / xlsxBytesPerRow)));
+    }
+
+    private static void writeRows(Path file, int sheets, int totalRows) throws IOException {
+        Random random = new Random(totalRows);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100); OutputStream out = Files.newOutputStream(file)) {
+            int rowsPerSheet = Math.max(1, totalRows / sheets);
+            for (int s = 0; s < sheets; s++) {
+                Sheet sheet = workbook.createSheet("Sheet" + (s + 1));
+                for (int r = 0; r < rowsPerSheet; r++) {
+                    Row row = sheet.createRow(r);
+                    row.createCell(0).setCellValue("Item " + r);
+                    row.createCell(1).setCellValue(random.nextInt(100_000) / 100.0);
+                    row.createCell(2).setCellValue(random.nextInt(1000));
+                    row.createCell(3).setCellValue("Lorem ipsum " + random.nextInt(50));
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.erdem.document_converter_service.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.erdem.document_converter_service.benchmark.BenchmarkFixtures;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+/**
+ * Cost of recording one stage on the hot path against the Prometheus registry, with and
+ * without the timer lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageMetricsBenchmark {
+
+    private StageMetrics stageMetrics;
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        stageMetrics = BenchmarkFixtures.stageMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        timer = stageMetrics.timer(StageMetrics.NAVIGATE, "html");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordCached() {
+        long start = System.nanoTime();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void lookupAndRecord() {
+        long start = System.nanoTime();
+        stageMetrics.timer(StageMetrics.ADMISSION, "excel", StageMetrics.excelOptions(true, false))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,56 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * Content-addressed key for a conversion result: SHA-256 over the upload bytes,
+ * the conversion kind and every option that influences the rendered PDF.
+ */
+public record CacheKey(String hash) {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static CacheKey of(String kind, InputStreamSource source, Map<String, ?> options) throws IOException {
+        try (InputStream in = source.getInputStream()) {
+            return of(kind, in, options);
+        }
+    }
+
+    public static CacheKey of(String kind, InputStream content, Map<String, ?> options) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+
+        // Sort options so the key does not depend on map iteration order
+        StringBuilder suffix = new StringBuilder("\n").append(kind);
+        new TreeMap<>(options).forEach((name, value) -> suffix.append('\n').append(name).append('=').append(value));
+        digest.update(suffix.toString().getBytes(StandardCharsets.UTF_8));
+
+        return new CacheKey(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return hash.substring(0, 12);
+    }
+}
@@ -0,0 +1,90 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A rendered PDF served either from the in-memory tier (bytes) or from a file on disk.
+ */
+public final class CachedPdf {
+
+    private static final Runnable NO_RELEASE = () -> {
+    };
+
+    private final byte[] bytes;
+    private final Path path;
+    private final long length;
+    private final Runnable onRelease;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private CachedPdf(byte[] bytes, Path path, long length, Runnable onRelease) {
+        this.bytes = bytes;
+        this.path = path;
+        this.length = length;
+        this.onRelease = onRelease;
+    }
+
+    public static CachedPdf ofBytes(byte[] bytes) {
+        return new CachedPdf(bytes, null, bytes.length, NO_RELEASE);
+    }
+
+    public static CachedPdf ofFile(Path path) throws IOException {
+        return new CachedPdf(null, path, Files.size(path), NO_RELEASE);
+    }
+
+    /**
+     * Returns this PDF with an action to run once the consumer is done with it, e.g. deleting
+     * an uncached render output after the response has been written.
+     */
+    public CachedPdf withRelease(Runnable onRelease) {
+        return new CachedPdf(bytes, path, length, onRelease);
+    }
+
+    /**
+     * Signals that the PDF has been fully consumed. Only the first call has an effect.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            onRelease.run();
+        }
+    }
+
+    /**
+     * Releases the result of a conversion nobody is going to consume, now or once it finishes.
+     */
+    public static void releaseWhenDone(CompletableFuture<CachedPdf> result) {
+        result.thenAccept(CachedPdf::release);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public boolean inMemory() {
+        return bytes != null;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * The PDF content of an in-memory result, or null for a file-backed one.
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Opens the PDF for streaming. A file that is opened before a concurrent eviction
+     * deletes it remains readable until the stream is closed.
+     */
+    public InputStream openStream() throws IOException {
+        return bytes != null ? new ByteArrayInputStream(bytes) : Files.newInputStream(path);
+    }
+}
@@ -0,0 +1,278 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * {@link ResultStore} on a directory, typically a volume mounted by every replica. Results and
+ * claims are created atomically by hard-linking a fully written temp file into place. Taking
+ * over or releasing a claim runs under a lock on {@value #CLAIM_LOCK}, so checking the claim
+ * and replacing it is one step for every replica. The claim is also renamed to a unique
+ * tombstone before it is deleted, and put back if it turns out to have been replaced
+ * meanwhile, which keeps that mostly true on file systems without locks. Also serves as a
+ * stand-in for the object store in development.
+ */
+final class LocalResultStore implements ResultStore {
+
+    private static final String CLAIM_LOCK = ".claims.lock";
+
+    @FunctionalInterface
+    private interface ClaimChange<T> {
+        T apply() throws IOException;
+    }
+
+    private final Path directory;
+    // File locks are held per process; threads of this one take turns on the monitor first
+    private final Object claimMonitor = new Object();
+
+    LocalResultStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        try {
+            return Files.size(result(hash));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public InputStream read(String hash, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(result(hash), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public boolean putIfAbsent(String hash, Path file) throws IOException {
+        Path target = result(hash);
+        if (Files.exists(target)) {
+            return false;
+        }
+        Path tmp = Files.createTempFile(directory, hash, ".tmp");
+        try {
+            Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+            link(target, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public boolean tryClaim(String hash, String owner, long ttlMillis) throws IOException {
+        Path claim = claim(hash);
+        byte[] content = (System.currentTimeMillis() + ttlMillis + " " + owner).getBytes(StandardCharsets.UTF_8);
+        if (create(claim, content)) {
+            return true;
+        }
+        return underClaimLock(() -> {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                byte[] existing = readClaim(claim);
+                if (existing != null && expiresAt(existing) > System.currentTimeMillis()) {
+                    return false;
+                }
+                // Expired (or vanished): take it away and race for a fresh one, the link picks the winner
+                if (existing != null && !removeIf(claim, existing)) {
+                    return false;
+                }
+                if (create(claim, content)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void releaseClaim(String hash, String owner) throws IOException {
+        Path claim = claim(hash);
+        underClaimLock(() -> {
+            byte[] existing = readClaim(claim);
+            if (existing != null && owner.equals(owner(existing))) {
+                removeIf(claim, existing);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs a claim change while no other replica can change a claim. A fresh claim needs no
+     * lock: it only ever appears where there was none.
+     */
+    private <T> T underClaimLock(ClaimChange<T> change) throws IOException {
+        synchronized (claimMonitor) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(CLAIM_LOCK), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                FileLock lock;
+                try {
+                    lock = channel.lock();
+                } catch (IOException e) {
+                    // No locks on this file system: the tombstone check below is all there is
+                    lock = null;
+                }
+                try {
+                    return change.apply();
+                } finally {
+                    if (lock != null) {
+                        lock.release();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates target with the given content, false when it exists already.
+     */
+    private boolean create(Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            link(target, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Removes the claim if it still holds expected; true when it is gone. The claim is renamed to
+     * a unique tombstone first, so one written since expected was read is never deleted: the
+     * tombstone is linked back instead, unless a newer claim has taken its place already. Claims
+     * are never rewritten in place, so their content tells them apart.
+     */
+    private boolean removeIf(Path claim, byte[] expected) throws IOException {
+        byte[] current = readClaim(claim);
+        if (current == null) {
+            return true;
+        }
+        if (!Arrays.equals(current, expected)) {
+            // Replaced since it was read; checked again after the rename, this only narrows the race
+            return false;
+        }
+        Path tombstone = claim.resolveSibling(claim.getFileName() + "." + UUID.randomUUID() + ".stale");
+        try {
+            Files.move(claim, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        try {
+            if (Arrays.equals(Files.readAllBytes(tombstone), expected)) {
+                return true;
+            }
+            link(claim, tombstone);
+            return false;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(tombstone);
+        }
+    }
+
+    /**
+     * Links source into place as target, failing with {@link FileAlreadyExistsException} if
+     * target exists.
+     */
+    private static void link(Path target, Path source) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException e) {
+            // No hard links on this file system: a plain move does not replace an existing target
+            Files.move(source, target);
+        }
+    }
+
+    private static byte[] readClaim(Path claim) throws IOException {
+        try {
+            return Files.readAllBytes(claim);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * When the claim expires, 0 for an unreadable one so that it is taken over.
+     */
+    private static long expiresAt(byte[] claim) {
+        String[] parts = new String(claim, StandardCharsets.UTF_8).split(" ", 2);
+        try {
+            return Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String owner(byte[] claim) {
+        String[] parts = new String(claim, StandardCharsets.UTF_8).split(" ", 2);
+        return parts.length == 2 ? parts[1] : null;
+    }
+
+    private Path result(String hash) {
+        return directory.resolve(hash + ".pdf");
+    }
+
+    private Path claim(String hash) {
+        return directory.resolve(hash + ".claim");
+    }
+
+    /**
+     * Stops after {@code remaining} bytes, so a ranged read behaves like one of the object store.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
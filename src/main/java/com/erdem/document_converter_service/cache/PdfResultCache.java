@@ -0,0 +1,495 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.erdem.document_converter_service.conversion.Deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Two-tier cache of rendered PDFs keyed by {@link CacheKey}.
+ * Small results live in a bounded LRU memory tier, every result is kept on disk under
+ * the output directory. Both tiers are evicted by total size and TTL; disk entries are pinned
+ * while a response streams them and only evicted once released. Concurrent requests for the
+ * same key are coalesced so that only one of them renders.
+ * <p>
+ * With a {@link SharedResultStore} configured, local misses are looked up in the shared store
+ * next, and only the replica that claims a key renders it; the others wait for its result.
+ */
+@Component
+public class PdfResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PdfResultCache.class);
+
+    private static final String FILE_SUFFIX = ".pdf";
+
+    @Value("${app.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.memory.max-bytes:67108864}")
+    private long memoryMaxBytes;
+
+    @Value("${app.cache.memory.max-entry-bytes:2097152}")
+    private long memoryMaxEntryBytes;
+
+    @Value("${app.cache.disk.max-bytes:1073741824}")
+    private long diskMaxBytes;
+
+    @Value("${app.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${app.output.directory:}")
+    private String configuredOutputDirectory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SharedResultStore sharedStore;
+
+    private Path cacheDir;
+    private long ttlMillis;
+
+    private final Map<String, MemoryEntry> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    private final Map<String, DiskEntry> disk = new ConcurrentHashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    // Disk entries being served, by hash; eviction skips them
+    private final Map<String, Integer> pins = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<CachedPdf>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter memoryHits;
+    private Counter diskHits;
+    private Counter misses;
+    private Counter sharedHits;
+    private Counter coalesced;
+
+    @FunctionalInterface
+    public interface PdfRenderer {
+        /**
+         * Renders the PDF, either into a file or into memory.
+         */
+        CachedPdf render() throws Exception;
+    }
+
+    private record MemoryEntry(byte[] data, long createdAt) {
+    }
+
+    private record DiskEntry(Path path, long size, long createdAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        ttlMillis = ttlSeconds * 1000L;
+
+        memoryHits = Counter.builder("converter.cache.requests").tag("result", "hit").tag("tier", "memory").register(meterRegistry);
+        diskHits = Counter.builder("converter.cache.requests").tag("result", "hit").tag("tier", "disk").register(meterRegistry);
+        misses = Counter.builder("converter.cache.requests").tag("result", "miss").tag("tier", "none").register(meterRegistry);
+        sharedHits = Counter.builder("converter.cache.requests").tag("result", "hit").tag("tier", "shared").register(meterRegistry);
+        coalesced = Counter.builder("converter.cache.coalesced").register(meterRegistry);
+        Gauge.builder("converter.cache.size", this, c -> c.currentMemoryBytes()).tag("tier", "memory").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("converter.cache.size", diskBytes, AtomicLong::get).tag("tier", "disk").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("converter.cache.entries", disk, Map::size).tag("tier", "disk").register(meterRegistry);
+
+        if (!enabled) {
+            LOGGER.info("PDF result cache disabled");
+            return;
+        }
+
+        try {
+            cacheDir = resolveCacheDir();
+            Files.createDirectories(cacheDir);
+            reindexDisk();
+            LOGGER.info("PDF result cache initialized: dir={} entries={} diskBytes={} memoryMaxBytes={} ttl={}s",
+                    cacheDir, disk.size(), diskBytes.get(), memoryMaxBytes, ttlSeconds);
+        } catch (IOException e) {
+            LOGGER.error("Failed to initialize PDF result cache, caching disabled: {}", e.getMessage(), e);
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached PDF for the key, or renders it exactly once across concurrent callers.
+     * Waiting for another caller's or replica's render fails once the deadline has passed.
+     */
+    public CachedPdf getOrRender(CacheKey key, Deadline deadline, PdfRenderer renderer) throws Exception {
+        if (!enabled) {
+            return renderer.render();
+        }
+
+        while (true) {
+            CachedPdf hit = lookup(key);
+            if (hit != null) {
+                return hit;
+            }
+
+            CompletableFuture<CachedPdf> ours = new CompletableFuture<>();
+            CompletableFuture<CachedPdf> existing = inFlight.putIfAbsent(key.hash(), ours);
+            if (existing == null) {
+                return renderOnce(key, deadline, renderer, ours);
+            }
+            coalesced.increment();
+            LOGGER.debug("Waiting for in-flight render of {}", key);
+            CachedPdf shared = await(existing, deadline);
+            if (shared.inMemory()) {
+                return shared;
+            }
+            // The leader's pin is released by the leader's consumer, every waiter takes its own
+            CachedPdf own = pinned(key.hash());
+            if (own != null) {
+                return own;
+            }
+            // Evicted before we could pin it: look again, render if need be
+        }
+    }
+
+    private CachedPdf renderOnce(CacheKey key, Deadline deadline, PdfRenderer renderer, CompletableFuture<CachedPdf> ours)
+            throws Exception {
+        try {
+            // Another caller may have finished between our lookup and registering the future
+            CachedPdf result = lookup(key);
+            if (result == null) {
+                result = sharedStore.isEnabled() ? renderShared(key, deadline, renderer) : renderLocal(key, renderer);
+            }
+            ours.complete(result);
+            return result;
+        } catch (Exception e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key.hash(), ours);
+        }
+    }
+
+    private CachedPdf renderLocal(CacheKey key, PdfRenderer renderer) throws Exception {
+        misses.increment();
+        return store(key, renderer.render());
+    }
+
+    /**
+     * Takes the result from the shared store, or renders it if this replica wins the claim on
+     * the key. Otherwise another replica is rendering it: poll for its result, and render
+     * anyway if none shows up within {@code app.store.wait-timeout-ms} or the claim is dropped
+     * without one. The wait never outlasts the request's deadline.
+     */
+    private CachedPdf renderShared(CacheKey key, Deadline deadline, PdfRenderer renderer) throws Exception {
+        long waitUntil = System.currentTimeMillis() + deadline.bound(sharedStore.waitTimeoutMs());
+        while (true) {
+            CachedPdf fetched = fetchShared(key);
+            if (fetched != null) {
+                return fetched;
+            }
+            if (sharedStore.tryClaim(key)) {
+                try {
+                    // The result may have been published between our lookup and the claim
+                    fetched = fetchShared(key);
+                    return fetched != null ? fetched : renderAndPublish(key, renderer);
+                } finally {
+                    sharedStore.releaseClaim(key);
+                }
+            }
+            deadline.check("shared-wait");
+            long remainingMs = waitUntil - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                LOGGER.warn("No shared result for {} after {}ms, rendering locally", key, sharedStore.waitTimeoutMs());
+                return renderAndPublish(key, renderer);
+            }
+            Thread.sleep(Math.min(sharedStore.pollIntervalMs(), remainingMs));
+        }
+    }
+
+    private CachedPdf renderAndPublish(CacheKey key, PdfRenderer renderer) throws Exception {
+        misses.increment();
+        CachedPdf rendered = renderer.render();
+        if (rendered.inMemory()) {
+            CachedPdf stored = store(key, rendered);
+            Path published = cacheDir.resolve(key.hash() + FILE_SUFFIX);
+            if (Files.exists(published)) {
+                sharedStore.publish(key, published);
+            }
+            return stored;
+        }
+        // Publish from the render output, which the caller keeps until we return
+        sharedStore.publish(key, rendered.path());
+        return store(key, rendered);
+    }
+
+    private CachedPdf fetchShared(CacheKey key) throws IOException {
+        Path tmp = tempPath(key);
+        if (!sharedStore.download(key, tmp)) {
+            Files.deleteIfExists(tmp);
+            return null;
+        }
+        sharedHits.increment();
+        return commit(key, tmp, null);
+    }
+
+    private CachedPdf await(CompletableFuture<CachedPdf> future, Deadline deadline) throws Exception {
+        try {
+            return deadline.isBounded() ? future.get(deadline.remainingMs(), TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            throw deadline.exceeded("cache-wait");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CachedPdf lookup(CacheKey key) throws IOException {
+        long now = System.currentTimeMillis();
+
+        synchronized (memory) {
+            MemoryEntry entry = memory.get(key.hash());
+            if (entry != null) {
+                if (now - entry.createdAt() <= ttlMillis) {
+                    memoryHits.increment();
+                    return CachedPdf.ofBytes(entry.data());
+                }
+                removeMemoryEntry(key.hash(), "ttl");
+            }
+        }
+
+        DiskEntry entry = disk.get(key.hash());
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.createdAt() > ttlMillis) {
+            removeDiskEntry(key.hash(), entry, "ttl");
+            return null;
+        }
+        if (!Files.exists(entry.path())) {
+            if (disk.remove(key.hash(), entry)) {
+                diskBytes.addAndGet(-entry.size());
+            }
+            return null;
+        }
+
+        if (entry.size() <= memoryMaxEntryBytes) {
+            byte[] data;
+            try {
+                data = Files.readAllBytes(entry.path());
+            } catch (NoSuchFileException e) {
+                // Evicted since the check above
+                return null;
+            }
+            diskHits.increment();
+            putMemory(key.hash(), data, entry.createdAt());
+            return CachedPdf.ofBytes(data);
+        }
+        CachedPdf pinned = pinned(key.hash());
+        if (pinned != null) {
+            diskHits.increment();
+        }
+        return pinned;
+    }
+
+    /**
+     * The file of the current disk entry for the hash, pinned until the returned PDF is released,
+     * or null when it has been evicted.
+     */
+    private CachedPdf pinned(String hash) throws IOException {
+        pins.merge(hash, 1, Integer::sum);
+        DiskEntry entry = disk.get(hash);
+        try {
+            if (entry != null) {
+                return CachedPdf.ofFile(entry.path()).withRelease(() -> unpin(hash));
+            }
+        } catch (NoSuchFileException e) {
+            // Removed behind the index, e.g. by hand
+        }
+        unpin(hash);
+        return null;
+    }
+
+    private void unpin(String hash) {
+        pins.computeIfPresent(hash, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private CachedPdf store(CacheKey key, CachedPdf rendered) throws IOException {
+        Path tmp = tempPath(key);
+        if (rendered.inMemory()) {
+            Files.write(tmp, rendered.bytes());
+        } else {
+            // Copy rather than move: the caller still owns (and cleans up) the rendered file
+            Files.copy(rendered.path(), tmp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return commit(key, tmp, rendered.inMemory() ? rendered.bytes() : null);
+    }
+
+    private Path tempPath(CacheKey key) {
+        return cacheDir.resolve(key.hash() + ".tmp-" + Thread.currentThread().threadId());
+    }
+
+    /**
+     * Moves a fully written temp file into the disk tier and indexes it.
+     *
+     * @param content the PDF when the caller already holds it in memory, else null
+     */
+    private CachedPdf commit(CacheKey key, Path tmp, byte[] content) throws IOException {
+        long now = System.currentTimeMillis();
+        Path target = cacheDir.resolve(key.hash() + FILE_SUFFIX);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long size = Files.size(target);
+        DiskEntry previous = disk.put(key.hash(), new DiskEntry(target, size, now));
+        diskBytes.addAndGet(size - (previous != null ? previous.size() : 0));
+        evictDisk(now);
+
+        if (content != null) {
+            // Already in memory, no need to read the cache file back
+            if (size <= memoryMaxEntryBytes) {
+                putMemory(key.hash(), content, now);
+            }
+            return CachedPdf.ofBytes(content);
+        }
+        if (size <= memoryMaxEntryBytes) {
+            byte[] data = Files.readAllBytes(target);
+            putMemory(key.hash(), data, now);
+            return CachedPdf.ofBytes(data);
+        }
+        CachedPdf pinned = pinned(key.hash());
+        if (pinned == null) {
+            throw new NoSuchFileException(target.toString(), null, "evicted right after it was stored");
+        }
+        return pinned;
+    }
+
+    private void putMemory(String hash, byte[] data, long createdAt) {
+        synchronized (memory) {
+            MemoryEntry previous = memory.put(hash, new MemoryEntry(data, createdAt));
+            memoryBytes += data.length - (previous != null ? previous.data().length : 0);
+
+            Iterator<Map.Entry<String, MemoryEntry>> it = memory.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && it.hasNext()) {
+                Map.Entry<String, MemoryEntry> eldest = it.next();
+                it.remove();
+                memoryBytes -= eldest.getValue().data().length;
+                countEviction("memory", "size");
+            }
+        }
+    }
+
+    private void removeMemoryEntry(String hash, String cause) {
+        MemoryEntry removed = memory.remove(hash);
+        if (removed != null) {
+            memoryBytes -= removed.data().length;
+            countEviction("memory", cause);
+        }
+    }
+
+    private void evictDisk(long now) {
+        disk.forEach((hash, entry) -> {
+            if (now - entry.createdAt() > ttlMillis) {
+                removeDiskEntry(hash, entry, "ttl");
+            }
+        });
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+
+        List<Map.Entry<String, DiskEntry>> entries = new ArrayList<>(disk.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().createdAt()));
+        for (Map.Entry<String, DiskEntry> e : entries) {
+            if (diskBytes.get() <= diskMaxBytes) {
+                break;
+            }
+            removeDiskEntry(e.getKey(), e.getValue(), "size");
+        }
+    }
+
+    /**
+     * Removes and deletes the entry unless it is pinned; the pin check and the removal are atomic
+     * with respect to {@link #pinned}.
+     */
+    private void removeDiskEntry(String hash, DiskEntry entry, String cause) {
+        pins.compute(hash, (k, count) -> {
+            if (count == null && disk.remove(hash, entry)) {
+                diskBytes.addAndGet(-entry.size());
+                countEviction("disk", cause);
+                try {
+                    Files.deleteIfExists(entry.path());
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to delete evicted cache file {}: {}", entry.path(), e.getMessage());
+                }
+            }
+            return count;
+        });
+    }
+
+    private void countEviction(String tier, String cause) {
+        meterRegistry.counter("converter.cache.evictions", "tier", tier, "cause", cause).increment();
+    }
+
+    private long currentMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    /**
+     * Rebuilds the disk index from files left by a previous run, dropping expired entries.
+     */
+    private void reindexDisk() throws IOException {
+        long now = System.currentTimeMillis();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(FILE_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                long createdAt = Files.getLastModifiedTime(file).toMillis();
+                if (now - createdAt > ttlMillis) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                long size = Files.size(file);
+                disk.put(name.substring(0, name.length() - FILE_SUFFIX.length()), new DiskEntry(file, size, createdAt));
+                diskBytes.addAndGet(size);
+            }
+        }
+        evictDisk(now);
+    }
+
+    private Path resolveCacheDir() {
+        if (configuredOutputDirectory != null && !configuredOutputDirectory.isBlank()) {
+            return Paths.get(configuredOutputDirectory, "cache");
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "convert-cache");
+    }
+}
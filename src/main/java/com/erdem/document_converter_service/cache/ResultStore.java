@@ -0,0 +1,44 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Storage for rendered PDFs shared by all replicas, addressed by {@link CacheKey#hash()}.
+ * <p>
+ * Writes are conditional: a result is only created if none exists, and a render claim only
+ * if no live one exists, so replicas racing for the same document agree on one winner.
+ */
+interface ResultStore {
+
+    /**
+     * Size of the stored result, or -1 if there is none.
+     */
+    long size(String hash) throws IOException;
+
+    /**
+     * Reads {@code length} bytes of the result starting at {@code offset}.
+     */
+    InputStream read(String hash, long offset, long length) throws IOException;
+
+    /**
+     * Stores the file as the result unless one exists already.
+     *
+     * @return false if another writer stored it first
+     */
+    boolean putIfAbsent(String hash, Path file) throws IOException;
+
+    /**
+     * Claims the render of a result for {@code ttlMillis} unless another live claim exists.
+     * An expired claim is taken over.
+     *
+     * @param owner identifies the claim, releasing it needs the same value
+     */
+    boolean tryClaim(String hash, String owner, long ttlMillis) throws IOException;
+
+    /**
+     * Drops the claim if it is still held by {@code owner}.
+     */
+    void releaseClaim(String hash, String owner) throws IOException;
+}
@@ -0,0 +1,245 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * {@link ResultStore} on an S3-compatible object store, spoken to over plain HTTP with
+ * path-style URLs ({@code <endpoint>/<bucket>/<prefix><hash>.pdf}) and Signature Version 4,
+ * so it works with AWS S3, MinIO or a local stub without an SDK.
+ * <p>
+ * Results and claims are created with {@code If-None-Match: *}; an expired claim is taken
+ * over with {@code If-Match} on the ETag that was read, and released the same way. Results
+ * are read with {@code Range} requests.
+ */
+final class S3ResultStore implements ResultStore {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String SIGNED_HEADERS = "host;x-amz-content-sha256;x-amz-date";
+
+    private final URI endpoint;
+    private final String bucket;
+    private final String prefix;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    S3ResultStore(String endpoint, String bucket, String prefix, String region, String accessKey, String secretKey, Duration timeout) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        HttpResponse<Void> response = send(request("HEAD", hash + ".pdf").method("HEAD", HttpRequest.BodyPublishers.noBody()),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return -1;
+        }
+        expect(response, 200);
+        return response.headers().firstValueAsLong("content-length").orElse(-1);
+    }
+
+    @Override
+    public InputStream read(String hash, long offset, long length) throws IOException {
+        HttpResponse<InputStream> response = send(request("GET", hash + ".pdf")
+                .header("Range", "bytes=" + offset + "-" + (offset + length - 1))
+                .GET(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 206 && !(response.statusCode() == 200 && offset == 0)) {
+            response.body().close();
+            throw new IOException("Ranged read of " + hash + " answered " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    @Override
+    public boolean putIfAbsent(String hash, Path file) throws IOException {
+        HttpResponse<Void> response = send(request("PUT", hash + ".pdf")
+                .header("If-None-Match", "*")
+                .header("Content-Type", "application/pdf")
+                .PUT(HttpRequest.BodyPublishers.ofFile(file)), HttpResponse.BodyHandlers.discarding());
+        return created(response);
+    }
+
+    @Override
+    public boolean tryClaim(String hash, String owner, long ttlMillis) throws IOException {
+        String body = System.currentTimeMillis() + ttlMillis + " " + owner;
+        HttpResponse<Void> response = send(request("PUT", hash + ".claim")
+                .header("If-None-Match", "*")
+                .PUT(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)), HttpResponse.BodyHandlers.discarding());
+        if (created(response)) {
+            return true;
+        }
+
+        HttpResponse<String> existing = readClaim(hash);
+        if (existing == null) {
+            return false;
+        }
+        String[] parts = existing.body().split(" ", 2);
+        if (parts.length == 2 && Long.parseLong(parts[0]) > System.currentTimeMillis()) {
+            return false;
+        }
+        // Expired: replace exactly the claim we read, a concurrent takeover makes this fail
+        String etag = existing.headers().firstValue("etag").orElse(null);
+        if (etag == null) {
+            return false;
+        }
+        response = send(request("PUT", hash + ".claim")
+                .header("If-Match", etag)
+                .PUT(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)), HttpResponse.BodyHandlers.discarding());
+        return created(response);
+    }
+
+    @Override
+    public void releaseClaim(String hash, String owner) throws IOException {
+        HttpResponse<String> existing = readClaim(hash);
+        if (existing == null || !existing.body().endsWith(" " + owner)) {
+            return;
+        }
+        HttpRequest.Builder delete = request("DELETE", hash + ".claim").DELETE();
+        existing.headers().firstValue("etag").ifPresent(etag -> delete.header("If-Match", etag));
+        HttpResponse<Void> response = send(delete, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 412) {
+            expect(response, 204, 200, 404);
+        }
+    }
+
+    private HttpResponse<String> readClaim(String hash) throws IOException {
+        HttpResponse<String> response = send(request("GET", hash + ".claim").GET(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        expect(response, 200);
+        return response;
+    }
+
+    /**
+     * 412 (and 409 for a concurrent conditional write) means another writer won.
+     */
+    private static boolean created(HttpResponse<?> response) throws IOException {
+        if (response.statusCode() == 412 || response.statusCode() == 409) {
+            return false;
+        }
+        expect(response, 200);
+        return true;
+    }
+
+    private static void expect(HttpResponse<?> response, int... statuses) throws IOException {
+        for (int status : statuses) {
+            if (response.statusCode() == status) {
+                return;
+            }
+        }
+        throw new IOException(response.request().method() + " " + response.uri().getPath() + " answered " + response.statusCode());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    /**
+     * A request for the object with the SigV4 headers set. The payload is not signed, which
+     * spares hashing the PDF; the ETag and the conditional headers protect the content.
+     */
+    private HttpRequest.Builder request(String method, String name) {
+        String path = endpoint.getRawPath() + "/" + encode(bucket) + "/" + encode(prefix + name);
+        URI uri = endpoint.resolve(path);
+        String host = uri.getPort() > 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+        String amzDate = ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE);
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+
+        String canonicalRequest = method + "\n" + path + "\n\n"
+                + "host:" + host + "\n"
+                + "x-amz-content-sha256:" + UNSIGNED_PAYLOAD + "\n"
+                + "x-amz-date:" + amzDate + "\n\n"
+                + SIGNED_HEADERS + "\n" + UNSIGNED_PAYLOAD;
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest));
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        String signature = hex(hmac(key, stringToSign));
+
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + SIGNED_HEADERS + ", Signature=" + signature);
+    }
+
+    /**
+     * URI-encodes an object key the way SigV4 expects, keeping '/' as the separator.
+     */
+    private static String encode(String key) {
+        StringBuilder encoded = new StringBuilder(key.length());
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
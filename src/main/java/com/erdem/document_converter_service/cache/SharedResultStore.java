@@ -0,0 +1,215 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * The {@link ResultStore} selected by {@code app.store.type} ({@code none}, {@code local} or
+ * {@code s3}), behind which the {@link PdfResultCache} shares results between replicas.
+ * <p>
+ * Store failures never fail a conversion: they are logged and counted, and the caller falls
+ * back to rendering locally.
+ */
+@Component
+public class SharedResultStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedResultStore.class);
+
+    @Value("${app.store.type:none}")
+    private String type;
+
+    // Shared directory for type=local, e.g. a volume mounted by every replica
+    @Value("${app.store.local.directory:}")
+    private String localDirectory;
+
+    @Value("${app.store.s3.endpoint:https://s3.amazonaws.com}")
+    private String s3Endpoint;
+
+    @Value("${app.store.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${app.store.s3.bucket:}")
+    private String s3Bucket;
+
+    @Value("${app.store.s3.prefix:results/}")
+    private String s3Prefix;
+
+    @Value("${app.store.s3.access-key:${AWS_ACCESS_KEY_ID:}}")
+    private String s3AccessKey;
+
+    @Value("${app.store.s3.secret-key:${AWS_SECRET_ACCESS_KEY:}}")
+    private String s3SecretKey;
+
+    @Value("${app.store.timeout-ms:10000}")
+    private long timeoutMs;
+
+    // A replica that dies mid-render holds its claim at most this long
+    @Value("${app.store.claim-ttl-ms:120000}")
+    private long claimTtlMs;
+
+    // How long to wait for another replica's render before rendering anyway
+    @Value("${app.store.wait-timeout-ms:60000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.store.poll-interval-ms:250}")
+    private long pollIntervalMs;
+
+    // Results are read in ranges of this size; a failed range is retried on its own
+    @Value("${app.store.read-chunk-bytes:8388608}")
+    private long readChunkBytes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ResultStore store;
+    private String owner;
+
+    @PostConstruct
+    public void init() throws IOException {
+        owner = hostName() + "-" + UUID.randomUUID();
+        switch (type.trim().toLowerCase(Locale.ROOT)) {
+            case "none", "" -> {
+                return;
+            }
+            case "local" -> {
+                Path directory = localDirectory.isBlank()
+                        ? Paths.get(System.getProperty("java.io.tmpdir"), "convert-results")
+                        : Paths.get(localDirectory);
+                store = new LocalResultStore(directory);
+                LOGGER.info("Shared result store: local directory {}", directory);
+            }
+            case "s3" -> {
+                if (s3Bucket.isBlank()) {
+                    throw new IllegalStateException("app.store.s3.bucket is required for app.store.type=s3");
+                }
+                store = new S3ResultStore(s3Endpoint, s3Bucket, s3Prefix, s3Region, s3AccessKey, s3SecretKey,
+                        Duration.ofMillis(timeoutMs));
+                LOGGER.info("Shared result store: s3 {}/{}/{}", s3Endpoint, s3Bucket, s3Prefix);
+            }
+            default -> throw new IllegalStateException("Unknown app.store.type: " + type);
+        }
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    long waitTimeoutMs() {
+        return waitTimeoutMs;
+    }
+
+    long pollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    /**
+     * Copies the stored result to {@code target} with ranged reads.
+     *
+     * @return false if there is no stored result or it could not be read
+     */
+    boolean download(CacheKey key, Path target) {
+        try {
+            long size = store.size(key.hash());
+            if (size < 0) {
+                return false;
+            }
+            try (OutputStream out = Files.newOutputStream(target)) {
+                for (long offset = 0; offset < size; offset += readChunkBytes) {
+                    long length = Math.min(readChunkBytes, size - offset);
+                    readRange(key, offset, length, out);
+                }
+            }
+            count("download", "hit");
+            return true;
+        } catch (IOException e) {
+            count("download", "error");
+            LOGGER.warn("Failed to read {} from the shared result store: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private void readRange(CacheKey key, long offset, long length, OutputStream out) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            // Buffer the range so a retry does not leave a partial copy behind
+            byte[] range;
+            try (InputStream in = store.read(key.hash(), offset, length)) {
+                range = in.readNBytes((int) length);
+            } catch (IOException e) {
+                if (attempt >= 2) {
+                    throw e;
+                }
+                LOGGER.debug("Retrying range {}+{} of {}: {}", offset, length, key, e.getMessage());
+                continue;
+            }
+            if (range.length != length) {
+                throw new IOException("Short read of " + key + " at " + offset);
+            }
+            out.write(range);
+            return;
+        }
+    }
+
+    /**
+     * Publishes a rendered result; a result stored by another replica in the meantime wins.
+     */
+    void publish(CacheKey key, Path file) {
+        try {
+            count("publish", store.putIfAbsent(key.hash(), file) ? "stored" : "exists");
+        } catch (IOException e) {
+            count("publish", "error");
+            LOGGER.warn("Failed to publish {} to the shared result store: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Claims the render of a result for this replica. On store failures the claim counts as
+     * granted, so a broken store degrades to every replica rendering on its own.
+     */
+    boolean tryClaim(CacheKey key) {
+        try {
+            boolean claimed = store.tryClaim(key.hash(), owner, claimTtlMs);
+            count("claim", claimed ? "granted" : "held");
+            return claimed;
+        } catch (IOException | RuntimeException e) {
+            count("claim", "error");
+            LOGGER.warn("Failed to claim {} in the shared result store: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    void releaseClaim(CacheKey key) {
+        try {
+            store.releaseClaim(key.hash(), owner);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Failed to release claim on {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void count(String operation, String result) {
+        meterRegistry.counter("converter.store.requests", "operation", operation, "result", result).increment();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "replica";
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.erdem.document_converter_service.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async request handling of the conversion endpoints, which answer with futures and streamed
+ * bodies. The timeout follows the request deadline, so the container cannot cut a conversion
+ * off before it has answered 504 itself; {@code spring.mvc.async.request-timeout} is not used.
+ * Bodies are written on virtual threads of their own rather than on the shared application
+ * task executor, where a few slow clients would queue every other download.
+ */
+@Configuration
+class AsyncRequestConfig implements WebMvcConfigurer {
+
+    // Left after the deadline for the 504 or the last stage to finish answering
+    private static final long TIMEOUT_MARGIN_MS = 15_000;
+
+    // End-to-end budget of a conversion request (0 = none)
+    @Value("${app.deadline.default-ms:60000}")
+    private long deadlineMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Zero or less is no timeout for the servlet container
+        configurer.setDefaultTimeout(deadlineMs > 0 ? deadlineMs + TIMEOUT_MARGIN_MS : 0);
+        SimpleAsyncTaskExecutor responseExecutor = new SimpleAsyncTaskExecutor("pdf-response-");
+        responseExecutor.setVirtualThreads(true);
+        configurer.setTaskExecutor(responseExecutor);
+    }
+}
@@ -1,205 +1,91 @@
 package com.erdem.document_converter_service.controller;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import org.jodconverter.core.DocumentConverter;
-import org.jodconverter.core.office.OfficeException;
-import org.jodconverter.local.LocalConverter;
-import org.jodconverter.local.filter.DefaultFilterChain;
-import org.jodconverter.local.filter.Filter;
-import org.jodconverter.local.filter.FilterChain;
-import org.jodconverter.local.office.LocalOfficeManager;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-
-import com.microsoft.playwright.Browser;
-import com.microsoft.playwright.BrowserType;
-import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
-import com.sun.star.beans.XPropertySet;
-import com.sun.star.container.XIndexAccess;
-import com.sun.star.container.XNameAccess;
-import com.sun.star.lang.XComponent;
-import com.sun.star.sheet.XSpreadsheet;
-import com.sun.star.sheet.XSpreadsheetDocument;
-import com.sun.star.style.XStyle;
-import com.sun.star.style.XStyleFamiliesSupplier;
-import com.sun.star.uno.UnoRuntime;
-
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+import com.erdem.document_converter_service.conversion.AdmissionRejectedException;
+import com.erdem.document_converter_service.conversion.BatchZipWriter;
+import com.erdem.document_converter_service.conversion.ConversionScheduler;
+import com.erdem.document_converter_service.conversion.ConversionService;
+import com.erdem.document_converter_service.conversion.ConversionTicket;
+import com.erdem.document_converter_service.conversion.ConversionTicket.Engine;
+import com.erdem.document_converter_service.conversion.Deadline;
+import com.erdem.document_converter_service.conversion.DeadlineExceededException;
+import com.erdem.document_converter_service.conversion.PdfMerger;
+import com.erdem.document_converter_service.conversion.PdfProfile;
+import com.erdem.document_converter_service.conversion.TempFileNames;
+import com.erdem.document_converter_service.html.HtmlEngine;
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+import io.micrometer.core.instrument.Timer;
 
 @RestController
 @RequestMapping("/api/convert")
 public class ConvertController {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConvertController.class);
 
-    private ExecutorService executorService;
-    private Playwright playwright;
-    private Browser browser;
-    private Semaphore browserSemaphore;
-    private int poolSize;
-
-    @Value("${playwright.browser.pool.size:4}")
-    private int configuredPoolSize;
-
-    // Use Spring Boot's standard 'debug' flag to control cleanup behavior
-    // When debug=false (production), output files will be deleted after serving
-    // When debug=true (dev), output files will be retained
-    @Value("${debug:false}")
-    private boolean debugEnabled;
-
-    // Optional configurable output directory; if set, all temp files will be created here
-    @Value("${app.output.directory:}")
-    private String configuredOutputDirectory;
-
-    @Autowired(required = false)
-    private DocumentConverter documentConverter;
-    
-    @Autowired(required = false)
-    private LocalOfficeManager officeManager;
-
-    private static final DateTimeFormatter TIMESTAMP_FMT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
-
-    @PostConstruct
-    public void init() {
-        initThreadPool();
-        initPlaywright();
-    }
-
-    private void initThreadPool() {
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        int threadPoolSize = Math.max(8, availableProcessors * 4);
-        BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>(200);
+    @Autowired
+    private ConversionService conversionService;
 
-        ThreadFactory threadFactory = new ThreadFactory() {
-            private final AtomicInteger threadNumber = new AtomicInteger(1);
+    @Autowired
+    private ConversionScheduler scheduler;
 
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "convert-pool-" + threadNumber.getAndIncrement());
-                t.setDaemon(true);
-                return t;
-            }
-        };
-
-        executorService = new ThreadPoolExecutor(
-                threadPoolSize,
-                threadPoolSize,
-                60L,
-                TimeUnit.SECONDS,
-                workQueue,
-                threadFactory,
-                new ThreadPoolExecutor.CallerRunsPolicy()
-        );
-
-        poolSize = Math.max(1, Math.min(configuredPoolSize, Math.max(1, availableProcessors / 2)));
-        browserSemaphore = new Semaphore(poolSize);
-
-        LOGGER.info("Executor initialized: poolSize={} queueCapacity={}", threadPoolSize, 200);
-    }
-
-    private void initPlaywright() {
-        try {
-            playwright = Playwright.create();
-            BrowserType.LaunchOptions opts = new BrowserType.LaunchOptions()
-                    .setHeadless(true)
-                    .setArgs(java.util.Arrays.asList(
-                            "--no-sandbox",
-                            "--disable-dev-shm-usage",
-                            "--disable-gpu",
-                            "--disable-extensions",
-                            "--disable-plugins",
-                            "--disable-background-timer-throttling",
-                            "--disable-backgrounding-occluded-windows",
-                            "--disable-renderer-backgrounding"
-                    ));
-
-            browser = playwright.chromium().launch(opts);
-            LOGGER.info("Playwright browser launched (concurrency limit={})", poolSize);
-        } catch (Exception e) {
-            LOGGER.error("Failed to initialize Playwright: {}", e.getMessage(), e);
-        }
-    }
+    @Autowired
+    private StageMetrics stageMetrics;
 
-    @PreDestroy
-    public void shutdownThreadPool() {
-        if (executorService != null && !executorService.isShutdown()) {
-            LOGGER.info("Shutting down executor...");
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+    @Value("${app.batch.max-files:50}")
+    private int batchMaxFiles;
 
-        if (browser != null) {
-            try {
-                browser.close();
-            } catch (Exception e) {
-                LOGGER.warn("Error closing Playwright browser: {}", e.getMessage());
-            }
-        }
-        if (playwright != null) {
-            try {
-                playwright.close();
-            } catch (Exception e) {
-                LOGGER.warn("Error closing Playwright: {}", e.getMessage());
-            }
-        }
-    }
+    // End-to-end budget of a conversion request, from arrival until the PDF is ready (0 = none)
+    @Value("${app.deadline.default-ms:60000}")
+    private long deadlineMs;
 
     @PostMapping(value = "/ExcelToPdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public CompletableFuture<ResponseEntity<Resource>> convertExcelToPdf(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> convertExcelToPdf(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "landscape", defaultValue = "false") boolean landscape,
-            @RequestParam(value = "fitToPage", defaultValue = "false") boolean fitToPage) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return convertExcelToPdfSync(file, landscape, fitToPage);
-            } catch (Exception e) {
-                LOGGER.error("Error in async Excel to PDF: {}", e.getMessage(), e);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-            }
-        }, executorService);
+            @RequestParam(value = "fitToPage", defaultValue = "false") boolean fitToPage,
+            @RequestParam(value = PdfProfile.PARAM, required = false) String profile,
+            @RequestHeader(value = ConversionScheduler.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = ConversionScheduler.TENANT_HEADER, required = false) String tenant,
+            @RequestHeader(value = Deadline.HEADER, required = false) String deadlineHeader) {
+        Deadline deadline = Deadline.forRequest(deadlineMs, deadlineHeader);
+        PdfProfile pdfProfile;
+        try {
+            pdfProfile = PdfProfile.parse(profile);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(invalidProfile(e));
+        }
+        ConversionTicket ticket = scheduler.ticket(Engine.OFFICE, file, priority, tenant);
+        return schedule(ticket, "Excel", deadline, () -> convertExcelToPdfSync(file, landscape, fitToPage, pdfProfile, deadline));
     }
 
-    private ResponseEntity<Resource> convertExcelToPdfSync(MultipartFile file, boolean landscape, boolean fitToPage) throws Exception {
-        if (documentConverter == null) {
+    private ResponseEntity<StreamingResponseBody> convertExcelToPdfSync(MultipartFile file, boolean landscape, boolean fitToPage,
+            PdfProfile profile, Deadline deadline) throws Exception {
+        if (!conversionService.isExcelAvailable()) {
             LOGGER.error("Excel conversion unavailable: LibreOffice not configured");
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .header("X-Error", "Excel conversion requires LibreOffice")
@@ -212,7 +98,7 @@ public class ConvertController {
         }
 
         String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || (!originalFilename.toLowerCase().endsWith(".xlsx") && !originalFilename.toLowerCase().endsWith(".xls"))) {
+        if (!ConversionService.isExcelFilename(originalFilename)) {
             LOGGER.warn("Invalid Excel file type: {}", originalFilename);
             return ResponseEntity.badRequest().build();
         }
@@ -220,88 +106,58 @@ public class ConvertController {
         LOGGER.info("Starting Excel conversion: {} size={} bytes, landscape={}, fitToPage={}", 
                    originalFilename, file.getSize(), landscape, fitToPage);
 
-        Path tempDir = determineTempDir();
-        String safeName = originalFilename.replaceAll("[^a-zA-Z0-9._-]", "_");
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FMT);
-        String ext = safeName.contains(".") ? safeName.substring(safeName.lastIndexOf('.')) : ".xlsx";
-        String baseName = (safeName.contains(".") ? safeName.substring(0, safeName.lastIndexOf('.')) : safeName) + "-" + timestamp;
-        Path inputPath = tempDir.resolve(baseName + ext);
-        file.transferTo(inputPath);
-        Path outputPath = inputPath.getParent().resolve(baseName + ".pdf");
+        CachedPdf pdf = conversionService.convertExcel(file, originalFilename, landscape, fitToPage, profile, deadline);
+        return PdfResponses.of(pdf, "converted.pdf",
+                stageMetrics.timer(StageMetrics.RESPONSE, "excel", StageMetrics.excelOptions(landscape, fitToPage)));
+    }
 
+    @PostMapping(value = "/HtmlToPdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> convertHtmlToPdf(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = PdfProfile.PARAM, required = false) String profile,
+            @RequestHeader(value = ConversionScheduler.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = ConversionScheduler.TENANT_HEADER, required = false) String tenant,
+            @RequestHeader(value = HtmlEngine.HEADER, required = false) String engine,
+            @RequestHeader(value = Deadline.HEADER, required = false) String deadlineHeader) {
+        Deadline deadline = Deadline.forRequest(deadlineMs, deadlineHeader);
+        PdfProfile pdfProfile;
         try {
-            if (landscape || fitToPage) {
-                // Use LibreOffice UNO API to set page properties before conversion
-                Filter pagePropertiesFilter = createPagePropertiesFilter(landscape, fitToPage);
-                Filter pdfExportFilter = createPdfExportFilter(landscape);
-                
-                // Create filter chain
-                FilterChain filterChain = new DefaultFilterChain(pagePropertiesFilter, pdfExportFilter);
-                
-                // Create PDF format
-                org.jodconverter.core.document.DocumentFormat pdfFormat = 
-                    org.jodconverter.core.document.DocumentFormat.builder()
-                        .name("PDF")
-                        .extension("pdf")
-                        .mediaType("application/pdf")
-                        .storeProperty(org.jodconverter.core.document.DocumentFamily.SPREADSHEET, 
-                                      "FilterName", "calc_pdf_Export")
-                        .build();
-                
-                // Use LocalConverter with filter support
-                LocalConverter.builder()
-                    .officeManager(officeManager)
-                    .filterChain(filterChain)
-                    .build()
-                    .convert(inputPath.toFile())
-                    .as(pdfFormat)
-                    .to(outputPath.toFile())
-                    .execute();
-                    
-                LOGGER.info("Excel converted with UNO API settings: landscape={}, fitToPage={}", landscape, fitToPage);
-            } else {
-                // Standard conversion
-                documentConverter.convert(inputPath.toFile()).to(outputPath.toFile()).execute();
-                LOGGER.info("Excel converted with default settings");
-            }
-        } catch (OfficeException e) {
-            LOGGER.error("JODConverter failed: {}", e.getMessage(), e);
-            throw new RuntimeException("Document conversion failed", e);
+            pdfProfile = PdfProfile.parseHtml(profile);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(invalidProfile(e));
         }
-
-        if (!Files.exists(outputPath)) {
-            LOGGER.error("JODConverter output missing: {}", outputPath);
-            throw new RuntimeException("Output PDF not created");
-        }
-
-        InputStream is = Files.newInputStream(outputPath);
-        InputStreamResource resource = new InputStreamResource(is);
-        long contentLength = Files.size(outputPath);
-
-        ResponseEntity<Resource> response = ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.pdf\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .contentLength(contentLength)
-                .body(resource);
-
-        scheduleCleanupAsync(inputPath, outputPath);
-        return response;
+        ConversionTicket ticket = scheduler.ticket(Engine.BROWSER, file, priority, tenant);
+        return schedule(ticket, "HTML", deadline, () -> convertHtmlToPdfSync(file, HtmlEngine.parse(engine), pdfProfile, deadline));
     }
 
-    @PostMapping(value = "/HtmlToPdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public CompletableFuture<ResponseEntity<Resource>> convertHtmlToPdf(@RequestParam("file") MultipartFile file) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return convertHtmlToPdfSync(file);
-            } catch (Exception e) {
-                LOGGER.error("Error in async HTML to PDF: {}", e.getMessage(), e);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * Runs a conversion in its scheduler lane and maps failures, including a full lane, an open
+     * circuit breaker and a missed deadline, to a response.
+     */
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> schedule(ConversionTicket ticket, String type, Deadline deadline,
+            Callable<ResponseEntity<StreamingResponseBody>> conversion) {
+        return scheduler.submit(ticket, () -> {
+            deadline.check("queue");
+            return conversion.call();
+        }).handle((response, error) -> {
+            if (error == null) {
+                return response;
             }
-        }, executorService);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof AdmissionRejectedException e) {
+                return rejected(e);
+            }
+            if (cause instanceof DeadlineExceededException e) {
+                return timedOut(e);
+            }
+            LOGGER.error("Error in async {} to PDF: {}", type, cause.getMessage(), cause);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        });
     }
 
-    private ResponseEntity<Resource> convertHtmlToPdfSync(MultipartFile file) throws Exception {
-        if (browser == null) {
+    private ResponseEntity<StreamingResponseBody> convertHtmlToPdfSync(MultipartFile file, HtmlEngine engine, PdfProfile profile,
+            Deadline deadline) throws Exception {
+        if (!conversionService.isHtmlAvailable()) {
             LOGGER.error("HTML conversion unavailable: Playwright not initialized");
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .header("X-Error", "HTML conversion not available")
@@ -314,274 +170,172 @@ public class ConvertController {
         }
 
         String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || (!originalFilename.toLowerCase().endsWith(".html") && !originalFilename.toLowerCase().endsWith(".htm"))) {
+        if (!ConversionService.isHtmlFilename(originalFilename)) {
             LOGGER.warn("Invalid HTML file type: {}", originalFilename);
             return ResponseEntity.badRequest().build();
         }
 
         LOGGER.info("Starting HTML conversion: {} size={} bytes", originalFilename, file.getSize());
 
-        Path tempDir = determineTempDir();
-        String safeName = originalFilename.replaceAll("[^a-zA-Z0-9._-]", "_");
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FMT);
-        String ext = safeName.contains(".") ? safeName.substring(safeName.lastIndexOf('.')) : ".html";
-        String baseName = (safeName.contains(".") ? safeName.substring(0, safeName.lastIndexOf('.')) : safeName) + "-" + timestamp;
-        Path inputPath = tempDir.resolve(baseName + ext);
-        file.transferTo(inputPath);
-        Path outputPath = inputPath.getParent().resolve(baseName + ".pdf");
-
-        String htmlContent = Files.readString(inputPath, StandardCharsets.UTF_8);
-        htmlContent = optimizeHtmlForPdf(htmlContent);
-
-        boolean permitAcquired = browserSemaphore.tryAcquire(30, TimeUnit.SECONDS);
-        if (!permitAcquired) {
-            LOGGER.warn("No Playwright permits available (max={})", poolSize);
-            throw new RuntimeException("Server is busy. Try again later.");
-        }
+        CachedPdf pdf = conversionService.convertHtml(file, originalFilename, engine, profile, deadline);
+        return PdfResponses.of(pdf, "converted-from-html.pdf", stageMetrics.timer(StageMetrics.RESPONSE, "html"));
+    }
 
-        try (com.microsoft.playwright.BrowserContext context = browser.newContext()) {
-            Page page = context.newPage();
-            page.setDefaultTimeout(15000);
-            page.setDefaultNavigationTimeout(15000);
-            page.setContent(htmlContent, new Page.SetContentOptions().setWaitUntil(com.microsoft.playwright.options.WaitUntilState.NETWORKIDLE));
-            page.pdf(new Page.PdfOptions()
-                    .setPath(outputPath)
-                    .setFormat("A4")
-                    .setMargin(new com.microsoft.playwright.options.Margin().setTop("5mm").setRight("5mm").setBottom("5mm").setLeft("5mm"))
-                    .setPrintBackground(true)
-                    .setPreferCSSPageSize(true)
-                    .setDisplayHeaderFooter(false)
-                    .setScale(0.9));
-            LOGGER.info("HTML to PDF completed. Output: {}", outputPath);
-        } catch (Exception e) {
-            LOGGER.error("Playwright conversion failed: {}", e.getMessage(), e);
-            throw e;
-        } finally {
-            browserSemaphore.release();
+    @PostMapping(value = "/BatchToPdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> convertBatchToPdf(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "output", defaultValue = "zip") String output,
+            @RequestParam(value = "landscape", defaultValue = "false") boolean landscape,
+            @RequestParam(value = "fitToPage", defaultValue = "false") boolean fitToPage,
+            @RequestParam(value = PdfProfile.PARAM, required = false) String profile,
+            @RequestHeader(value = ConversionScheduler.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = ConversionScheduler.TENANT_HEADER, required = false) String tenant,
+            @RequestHeader(value = Deadline.HEADER, required = false) String deadlineHeader) {
+        Deadline deadline = Deadline.forRequest(deadlineMs, deadlineHeader);
+        PdfProfile pdfProfile;
+        try {
+            pdfProfile = PdfProfile.parse(profile);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(invalidProfile(e));
         }
-
-        if (!Files.exists(outputPath)) {
-            LOGGER.error("Playwright output missing: {}", outputPath);
-            throw new RuntimeException("Output PDF not created");
+        boolean merged = "merged".equalsIgnoreCase(output);
+        if (!merged && !"zip".equalsIgnoreCase(output)) {
+            LOGGER.warn("Invalid batch output: {}", output);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().header("X-Error", "output must be 'zip' or 'merged'").build());
         }
-
-        InputStream is = Files.newInputStream(outputPath);
-        InputStreamResource resource = new InputStreamResource(is);
-        long contentLength = Files.size(outputPath);
-
-        ResponseEntity<Resource> response = ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted-from-html.pdf\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .contentLength(contentLength)
-                .body(resource);
-
-        scheduleCleanupAsync(inputPath, outputPath);
-        return response;
-    }
-
-    private Path determineTempDir() throws IOException {
-        if (configuredOutputDirectory != null && !configuredOutputDirectory.isBlank()) {
-            Path configuredDir = Paths.get(configuredOutputDirectory);
-            Files.createDirectories(configuredDir);
-            return configuredDir;
+        if (files == null || files.isEmpty() || files.size() > batchMaxFiles) {
+            LOGGER.warn("Invalid batch size: {}", files == null ? 0 : files.size());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().header("X-Error", "Send 1 to " + batchMaxFiles + " files").build());
         }
-
-        Path localOutputsDir = Paths.get("outputs");
-        if (Files.exists(localOutputsDir) && Files.isDirectory(localOutputsDir)) {
-            return localOutputsDir;
+        for (MultipartFile file : files) {
+            String name = file.getOriginalFilename();
+            boolean excel = ConversionService.isExcelFilename(name);
+            if (file.isEmpty() || (!excel && !ConversionService.isHtmlFilename(name))) {
+                LOGGER.warn("Invalid batch file: {}", name);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().header("X-Error", "Unsupported file: " + name).build());
+            }
+            if (!excel && pdfProfile != null && pdfProfile.pdfA()) {
+                return CompletableFuture.completedFuture(invalidProfile(new IllegalArgumentException(
+                        PdfProfile.PARAM + " " + pdfProfile.tag() + " is only available for Excel conversions, not " + name)));
+            }
+            if (excel ? !conversionService.isExcelAvailable() : !conversionService.isHtmlAvailable()) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header("X-Error", "Conversion engine not available for " + name)
+                        .build());
+            }
         }
 
-        if (debugEnabled) {
-            Path debugDir = Paths.get("/tmp/outputs");
-            Files.createDirectories(debugDir);
-            return debugDir;
+        LOGGER.info("Starting batch conversion: files={} output={} landscape={}, fitToPage={}", files.size(), output, landscape, fitToPage);
+
+        // Fan out over the scheduler lanes, each part classified on its own; each part goes through the result cache individually
+        List<CompletableFuture<CachedPdf>> parts = new ArrayList<>(files.size());
+        List<String> entryNames = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            Engine engine = ConversionService.isExcelFilename(file.getOriginalFilename()) ? Engine.OFFICE : Engine.BROWSER;
+            ConversionTicket ticket = scheduler.ticket(engine, file, priority, tenant);
+            parts.add(scheduler.submit(ticket, () -> convertBatchPart(file, landscape, fitToPage, pdfProfile, deadline)));
+            entryNames.add(String.format("%03d-%s.pdf", i + 1, TempFileNames.stem(TempFileNames.safeName(file.getOriginalFilename()))));
         }
 
-        return Files.createTempDirectory("convert-");
-    }
+        Timer responseTimer = stageMetrics.timer(StageMetrics.RESPONSE, "batch", merged ? "merged" : "zip");
+        if (!merged) {
+            // Includes waiting for parts that are still converting, the ZIP streams as they finish
+            StreamingResponseBody body = out -> {
+                long start = System.nanoTime();
+                BatchZipWriter.write(entryNames, parts, out);
+                responseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            };
+            return CompletableFuture.completedFuture(ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.zip\"")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(body));
+        }
 
-    private void scheduleCleanupAsync(Path inputPath, Path outputPath) {
-        executorService.submit(() -> {
-            try {
-                TimeUnit.SECONDS.sleep(2);
-                Files.deleteIfExists(inputPath);
-                if (!debugEnabled) {
-                    TimeUnit.SECONDS.sleep(30);
-                    Files.deleteIfExists(outputPath);
+        // Append parts in request order as soon as each one and its predecessors are done; the
+        // merged PDF is only written once the last part is in
+        PdfMerger merger = new PdfMerger();
+        CompletableFuture<PdfMerger> merging = CompletableFuture.completedFuture(merger);
+        for (CompletableFuture<CachedPdf> part : parts) {
+            merging = merging.thenCombine(part, (m, pdf) -> {
+                try {
+                    m.append(pdf);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } catch (IOException | RuntimeException e) {
-                LOGGER.warn("Async cleanup failed: {}", e.getMessage());
-            }
-        });
-    }
-
-    /**
-     * Creates a JODConverter Filter that uses LibreOffice UNO API to set page properties.
-     * This allows us to programmatically set landscape orientation and fit-to-page scaling.
-     */
-    private Filter createPagePropertiesFilter(boolean landscape, boolean fitToPage) {
-        return (context, document, chain) -> {
-            try {
-                // Get the document as XComponent
-                XComponent xComponent = document;
-                
-                // Query for XSpreadsheetDocument interface
-                XSpreadsheetDocument xSpreadsheetDoc = UnoRuntime.queryInterface(
-                    XSpreadsheetDocument.class, xComponent);
-                
-                if (xSpreadsheetDoc != null) {
-                    // Get the style families
-                    XStyleFamiliesSupplier xStyleFamiliesSupplier = UnoRuntime.queryInterface(
-                        XStyleFamiliesSupplier.class, xSpreadsheetDoc);
-                    
-                    XNameAccess xStyleFamilies = xStyleFamiliesSupplier.getStyleFamilies();
-                    
-                    // Get PageStyles family
-                    Object pageStylesObj = xStyleFamilies.getByName("PageStyles");
-                    XNameAccess xPageStyles = UnoRuntime.queryInterface(XNameAccess.class, pageStylesObj);
-                    
-                    // Get all sheets and apply settings to each
-                    XIndexAccess xSheets = UnoRuntime.queryInterface(
-                        XIndexAccess.class, xSpreadsheetDoc.getSheets());
-                    
-                    int sheetCount = xSheets.getCount();
-                    for (int i = 0; i < sheetCount; i++) {
-                        Object sheetObj = xSheets.getByIndex(i);
-                        XSpreadsheet xSheet = UnoRuntime.queryInterface(XSpreadsheet.class, sheetObj);
-                        
-                        // Get the page style property set for this sheet
-                        XPropertySet xSheetProps = UnoRuntime.queryInterface(XPropertySet.class, xSheet);
-                        String pageStyleName = (String) xSheetProps.getPropertyValue("PageStyle");
-                        
-                        // Get the actual page style
-                        Object pageStyleObj = xPageStyles.getByName(pageStyleName);
-                        XStyle xPageStyle = UnoRuntime.queryInterface(XStyle.class, pageStyleObj);
-                        XPropertySet xPageProps = UnoRuntime.queryInterface(XPropertySet.class, xPageStyle);
-                        
-                        // Set landscape orientation
-                        if (landscape) {
-                            // First get current dimensions
-                            int currentWidth = (Integer) xPageProps.getPropertyValue("Width");
-                            int currentHeight = (Integer) xPageProps.getPropertyValue("Height");
-                            
-                            LOGGER.info("Sheet {}: Original dimensions Width={}, Height={}", i, currentWidth, currentHeight);
-                            
-                            // Set IsLandscape property
-                            xPageProps.setPropertyValue("IsLandscape", Boolean.TRUE);
-                            
-                            // CRITICAL: For landscape to work in PDF export, we must swap Width and Height
-                            // LibreOffice doesn't automatically swap dimensions when IsLandscape=true
-                            if (currentWidth < currentHeight) {
-                                // Currently portrait, swap to landscape
-                                xPageProps.setPropertyValue("Width", currentHeight);
-                                xPageProps.setPropertyValue("Height", currentWidth);
-                                LOGGER.info("Sheet {}: Swapped dimensions to Width={}, Height={}", i, currentHeight, currentWidth);
-                            } else {
-                                LOGGER.info("Sheet {}: Already landscape (Width >= Height)", i);
-                            }
-                            
-                            // Verify final state
-                            Boolean isLandscapeValue = (Boolean) xPageProps.getPropertyValue("IsLandscape");
-                            int finalWidth = (Integer) xPageProps.getPropertyValue("Width");
-                            int finalHeight = (Integer) xPageProps.getPropertyValue("Height");
-                            LOGGER.info("Sheet {}: Final state - IsLandscape={}, Width={}, Height={}", 
-                                       i, isLandscapeValue, finalWidth, finalHeight);
-                        }
-                        
-                        // Set fit-to-page scaling
-                        if (fitToPage) {
-                            // ScaleToPages = 1 means fit all content to 1 page
-                            xPageProps.setPropertyValue("ScaleToPages", (short) 1);
-                            
-                            // Verify it was set
-                            Short scaleValue = (Short) xPageProps.getPropertyValue("ScaleToPages");
-                            LOGGER.info("Sheet {}: Set ScaleToPages=1, verified={}", i, scaleValue);
+                return m;
+            });
+        }
+        return merging.handle((m, error) -> {
+            if (error != null) {
+                closeQuietly(merger);
+                // Parts behind the failed one, or still converting, never reach the merger
+                for (CompletableFuture<CachedPdf> part : parts) {
+                    part.thenAccept(pdf -> {
+                        if (!merger.holds(pdf)) {
+                            pdf.release();
                         }
-                    }
-                    
-                    LOGGER.info("Successfully applied UNO page properties: landscape={}, fitToPage={}", 
-                               landscape, fitToPage);
-                } else {
-                    LOGGER.warn("Document is not a spreadsheet, skipping page property modifications");
+                    });
                 }
-                
-            } catch (com.sun.star.uno.Exception e) {
-                LOGGER.error("Failed to apply UNO page properties: {}", e.getMessage(), e);
-                // Don't throw - let conversion continue even if properties fail
-            } catch (RuntimeException e) {
-                LOGGER.error("Runtime error applying UNO page properties: {}", e.getMessage(), e);
-                // Don't throw - let conversion continue even if properties fail
-            }
-            
-            // Continue the filter chain
-            chain.doFilter(context, document);
-        };
-    }
-
-    /**
-     * Creates a filter to apply PDF export settings like orientation.
-     * This filter manipulates the FilterData that gets passed to LibreOffice's PDF export.
-     */
-    private Filter createPdfExportFilter(boolean landscape) {
-        return (context, document, chain) -> {
-            LOGGER.info("Applying PDF export filter: landscape={}", landscape);
-            
-            if (landscape) {
-                try {
-                    // Get the XComponent
-                    XComponent xComponent = document;
-                    
-                    // Query for XSpreadsheetDocument
-                    com.sun.star.sheet.XSpreadsheetDocument xSpreadsheetDoc = 
-                        com.sun.star.uno.UnoRuntime.queryInterface(
-                            com.sun.star.sheet.XSpreadsheetDocument.class, xComponent);
-                    
-                    if (xSpreadsheetDoc != null) {
-                        // Access the printer property set for the document
-                        com.sun.star.beans.XPropertySet xDocProps = 
-                            com.sun.star.uno.UnoRuntime.queryInterface(
-                                com.sun.star.beans.XPropertySet.class, xSpreadsheetDoc);
-                        
-                        if (xDocProps != null) {
-                            // Try to set printer/export orientation
-                            try {
-                                // Some LibreOffice versions support this property
-                                xDocProps.setPropertyValue("PrinterOrientation", 
-                                    com.sun.star.view.PaperOrientation.LANDSCAPE);
-                                LOGGER.info("Set PrinterOrientation to LANDSCAPE");
-                            } catch (com.sun.star.uno.Exception e) {
-                                LOGGER.debug("PrinterOrientation not available: {}", e.getMessage());
-                            }
-                        }
+                for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof AdmissionRejectedException rejection) {
+                        return rejected(rejection);
+                    }
+                    if (cause instanceof DeadlineExceededException exceeded) {
+                        return timedOut(exceeded);
                     }
-                } catch (Exception e) {
-                    LOGGER.warn("Could not apply PDF export orientation: {}", e.getMessage());
                 }
+                LOGGER.error("Batch merge failed: {}", error.getMessage(), error);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
             }
-            
-            // Continue the filter chain
-            chain.doFilter(context, document);
-        };
+            StreamingResponseBody body = out -> {
+                long start = System.nanoTime();
+                try (m) {
+                    m.writeTo(out);
+                }
+                responseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted-batch.pdf\"")
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .body(body);
+        });
     }
 
-    private String optimizeHtmlForPdf(String htmlContent) {
+    private CachedPdf convertBatchPart(MultipartFile file, boolean landscape, boolean fitToPage, PdfProfile profile, Deadline deadline) {
+        String name = file.getOriginalFilename();
         try {
-            String pdfOptimizedCss = """
-                <style type=\"text/css\" media=\"print\">@page{margin:0.5cm;size:A4;}body{margin:0;padding:10px;font-family:Arial, sans-serif;-webkit-print-color-adjust:exact;}</style>
-                """;
-            if (htmlContent.toLowerCase().contains("<head>")) {
-                htmlContent = htmlContent.replaceFirst("(?i)(<head[^>]*>)", "$1" + pdfOptimizedCss);
-            } else if (htmlContent.toLowerCase().contains("<html>")) {
-                htmlContent = htmlContent.replaceFirst("(?i)(<html[^>]*>)", "$1<head>" + pdfOptimizedCss + "</head>");
-            } else {
-                htmlContent = "<!DOCTYPE html><html><head>" + pdfOptimizedCss + "</head><body>" + htmlContent + "</body></html>";
-            }
-            return htmlContent;
+            deadline.check("queue");
+            return ConversionService.isExcelFilename(name)
+                    ? conversionService.convertExcel(file, name, landscape, fitToPage, profile, deadline)
+                    : conversionService.convertHtml(file, name, HtmlEngine.AUTO, profile, deadline);
         } catch (Exception e) {
-            LOGGER.warn("HTML optimization failed: {}", e.getMessage());
-            return htmlContent;
+            throw new CompletionException("Conversion of " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static <T> ResponseEntity<T> rejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(e.status())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                .header("X-Error", e.getMessage())
+                .build();
+    }
+
+    private static <T> ResponseEntity<T> timedOut(DeadlineExceededException e) {
+        LOGGER.warn("Conversion timed out: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).header("X-Error", e.getMessage()).build();
+    }
+
+    private static <T> ResponseEntity<T> invalidProfile(IllegalArgumentException e) {
+        LOGGER.warn("Invalid PDF profile: {}", e.getMessage());
+        return ResponseEntity.badRequest().header("X-Error", e.getMessage()).build();
+    }
+
+    private static void closeQuietly(PdfMerger merger) {
+        try {
+            merger.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to release batch merge resources: {}", e.getMessage());
         }
     }
 
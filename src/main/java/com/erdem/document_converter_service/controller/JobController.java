@@ -0,0 +1,175 @@
+package com.erdem.document_converter_service.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+import com.erdem.document_converter_service.conversion.ConversionService;
+import com.erdem.document_converter_service.conversion.PdfProfile;
+import com.erdem.document_converter_service.job.ConversionJob;
+import com.erdem.document_converter_service.job.JobCallbackClient;
+import com.erdem.document_converter_service.job.JobService;
+import com.erdem.document_converter_service.job.JobStatus;
+import com.erdem.document_converter_service.job.JobType;
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Asynchronous counterpart of {@link ConvertController}: submit returns a job id right away,
+ * the client then polls the job (or waits for its callback) and downloads the result.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobController.class);
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private JobCallbackClient callbackClient;
+
+    public record JobResponse(String id, JobType type, JobStatus status, String error,
+            long createdAt, long startedAt, long finishedAt, String resultUrl) {
+
+        static JobResponse of(ConversionJob job) {
+            return new JobResponse(job.id(), job.type(), job.status(), job.error(),
+                    job.createdAt(), job.startedAt(), job.finishedAt(),
+                    job.status() == JobStatus.SUCCEEDED ? "/api/jobs/" + job.id() + "/result" : null);
+        }
+    }
+
+    @PostMapping(value = "/ExcelToPdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<JobResponse> submitExcelToPdf(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "landscape", defaultValue = "false") boolean landscape,
+            @RequestParam(value = "fitToPage", defaultValue = "false") boolean fitToPage,
+            @RequestParam(value = PdfProfile.PARAM, required = false) String profile,
+            @RequestParam(value = "callbackUrl", required = false) String callbackUrl) {
+        if (!conversionService.isExcelAvailable()) {
+            LOGGER.error("Excel conversion unavailable: LibreOffice not configured");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("X-Error", "Excel conversion requires LibreOffice")
+                    .build();
+        }
+        if (file == null || file.isEmpty() || !ConversionService.isExcelFilename(file.getOriginalFilename())) {
+            LOGGER.warn("Invalid Excel job upload: {}", file != null ? file.getOriginalFilename() : null);
+            return ResponseEntity.badRequest().build();
+        }
+        return submit(JobType.EXCEL, file, landscape, fitToPage, profile, callbackUrl);
+    }
+
+    @PostMapping(value = "/HtmlToPdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<JobResponse> submitHtmlToPdf(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = PdfProfile.PARAM, required = false) String profile,
+            @RequestParam(value = "callbackUrl", required = false) String callbackUrl) {
+        if (!conversionService.isHtmlAvailable()) {
+            LOGGER.error("HTML conversion unavailable: Playwright not initialized");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("X-Error", "HTML conversion not available")
+                    .build();
+        }
+        if (file == null || file.isEmpty() || !ConversionService.isHtmlFilename(file.getOriginalFilename())) {
+            LOGGER.warn("Invalid HTML job upload: {}", file != null ? file.getOriginalFilename() : null);
+            return ResponseEntity.badRequest().build();
+        }
+        return submit(JobType.HTML, file, false, false, profile, callbackUrl);
+    }
+
+    private ResponseEntity<JobResponse> submit(JobType type, MultipartFile file, boolean landscape, boolean fitToPage,
+            String profile, String callbackUrl) {
+        if (callbackUrl != null && !callbackClient.isAllowed(callbackUrl)) {
+            LOGGER.warn("Rejected job callback URL: {}", callbackUrl);
+            return ResponseEntity.badRequest().header("X-Error", "callbackUrl must be an http(s) URL on an allowed, public host").build();
+        }
+        PdfProfile pdfProfile;
+        try {
+            pdfProfile = type == JobType.HTML ? PdfProfile.parseHtml(profile) : PdfProfile.parse(profile);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid PDF profile: {}", e.getMessage());
+            return ResponseEntity.badRequest().header("X-Error", e.getMessage()).build();
+        }
+        try {
+            ConversionJob job = jobService.submit(type, file, landscape, fitToPage, pdfProfile, callbackUrl);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/jobs/" + job.id()))
+                    .body(JobResponse.of(job));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Rejecting {} job: {}", type, e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("X-Error", "Job queue is full. Try again later.")
+                    .build();
+        } catch (IOException e) {
+            LOGGER.error("Failed to store {} job upload: {}", type, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobResponse> status(@PathVariable("id") String id) {
+        return jobService.find(id)
+                .map(job -> ResponseEntity.ok(JobResponse.of(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> result(@PathVariable("id") String id) throws IOException {
+        Optional<ConversionJob> found = jobService.find(id);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ConversionJob job = found.get();
+        if (job.status() != JobStatus.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(JobResponse.of(job));
+        }
+        Path result = jobService.resultPath(job);
+        if (!Files.exists(result)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        String downloadName = job.type() == JobType.HTML ? "converted-from-html.pdf" : "converted.pdf";
+        Timer responseTimer = stageMetrics.timer(StageMetrics.RESPONSE, job.type().name().toLowerCase(Locale.ROOT),
+                job.type() == JobType.EXCEL ? StageMetrics.excelOptions(job.landscape(), job.fitToPage()) : StageMetrics.DEFAULT_OPTIONS);
+        return PdfResponses.of(CachedPdf.ofFile(result), downloadName, responseTimer);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobResponse> cancel(@PathVariable("id") String id) {
+        Optional<ConversionJob> job = jobService.cancel(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().status() != JobStatus.CANCELLED) {
+            // Already finished, nothing to cancel
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(JobResponse.of(job.get()));
+        }
+        return ResponseEntity.ok(JobResponse.of(job.get()));
+    }
+}
@@ -0,0 +1,82 @@
+package com.erdem.document_converter_service.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Builds PDF download responses. File-backed PDFs are opened right away and streamed from the
+ * channel; the PDF is released once the body is written or has failed. Writing the body is
+ * recorded on the given response timer.
+ */
+final class PdfResponses {
+
+    private PdfResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> of(CachedPdf pdf, String downloadName, Timer responseTimer) throws IOException {
+        StreamingResponseBody body;
+        if (pdf.inMemory()) {
+            byte[] data = pdf.bytes();
+            body = out -> {
+                long start = System.nanoTime();
+                try {
+                    out.write(data);
+                    responseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } finally {
+                    pdf.release();
+                }
+            };
+        } else {
+            // Open now: a concurrent cache eviction may delete the file before the body is written
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(pdf.path(), StandardOpenOption.READ);
+            } catch (IOException | RuntimeException e) {
+                pdf.release();
+                throw e;
+            }
+            long length = pdf.length();
+            body = out -> {
+                long start = System.nanoTime();
+                try (channel) {
+                    transferFully(channel, length, out);
+                    responseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } finally {
+                    pdf.release();
+                }
+            };
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadName + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(pdf.length())
+                .body(body);
+    }
+
+    private static void transferFully(FileChannel channel, long length, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = 0;
+        while (position < length) {
+            long transferred = channel.transferTo(position, length - position, target);
+            if (transferred <= 0) {
+                throw new IOException("PDF ended after " + position + " of " + length + " bytes");
+            }
+            position += transferred;
+        }
+    }
+}
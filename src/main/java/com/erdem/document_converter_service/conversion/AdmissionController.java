@@ -0,0 +1,170 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limits concurrent work on one conversion engine to what the engine can actually run.
+ * <p>
+ * Up to {@code permits} conversions run at once and up to {@code maxWaiting} more wait in FIFO
+ * order for at most {@code waitTimeoutMs}. Anything beyond that is rejected right away with
+ * 429, a wait that times out with 503; both carry a Retry-After estimated from the average
+ * time a permit is held.
+ */
+public class AdmissionController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionController.class);
+
+    // Weight of the latest sample in the moving average of permit hold times
+    private static final double HOLD_TIME_ALPHA = 0.2;
+
+    private final String engine;
+    private volatile int permits;
+    private final int maxWaiting;
+    private final long waitTimeoutMs;
+    private final MeterRegistry meterRegistry;
+
+    private final ResizableSemaphore semaphore;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile double avgHoldMs = 1000;
+
+    public AdmissionController(String engine, int permits, int maxWaiting, long waitTimeoutMs, MeterRegistry meterRegistry) {
+        this.engine = engine;
+        this.permits = permits;
+        this.maxWaiting = maxWaiting;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.meterRegistry = meterRegistry;
+        this.semaphore = new ResizableSemaphore(permits);
+
+        Gauge.builder("converter.admission.in-use", this, a -> a.permits - a.semaphore.availablePermits()).tag("engine", engine).register(meterRegistry);
+        Gauge.builder("converter.admission.waiting", waiting, AtomicInteger::get).tag("engine", engine).register(meterRegistry);
+        Gauge.builder("converter.admission.permits", this, a -> a.permits).tag("engine", engine).register(meterRegistry);
+        LOGGER.info("Admission control for {}: permits={} maxWaiting={} waitTimeout={}ms", engine, permits, maxWaiting, waitTimeoutMs);
+    }
+
+    public Permit acquire() throws InterruptedException {
+        return acquire(Deadline.none());
+    }
+
+    /**
+     * Waits for a permit for at most the wait timeout or what is left of the deadline,
+     * whichever is shorter.
+     *
+     * @throws DeadlineExceededException when the deadline ran out first
+     */
+    public Permit acquire(Deadline deadline) throws InterruptedException {
+        if (semaphore.tryAcquire()) {
+            return new Permit();
+        }
+        deadline.check("admission");
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw reject("queue-full", HttpStatus.TOO_MANY_REQUESTS);
+        }
+        long timeoutMs = deadline.bound(waitTimeoutMs);
+        try {
+            if (!semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                if (timeoutMs < waitTimeoutMs) {
+                    meterRegistry.counter("converter.admission.rejected", "engine", engine, "reason", "deadline").increment();
+                    throw deadline.exceeded("admission");
+                }
+                throw reject("timeout", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        return new Permit();
+    }
+
+    /**
+     * A permit if one is free right now, otherwise null; never waits or counts a rejection.
+     */
+    public Permit tryAcquire() {
+        return semaphore.tryAcquire() ? new Permit() : null;
+    }
+
+    public String engine() {
+        return engine;
+    }
+
+    /**
+     * Number of conversions that may run at once.
+     */
+    public int permits() {
+        return permits;
+    }
+
+    /**
+     * Number of conversions currently waiting for a permit.
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Changes the number of permits, e.g. when an engine pool grows or shrinks. Shrinking does
+     * not interrupt running conversions, their permits are simply not handed out again.
+     */
+    public synchronized void resize(int newPermits) {
+        int delta = newPermits - permits;
+        if (delta > 0) {
+            semaphore.release(delta);
+        } else if (delta < 0) {
+            semaphore.reducePermits(-delta);
+        }
+        permits = newPermits;
+        LOGGER.info("Admission control for {} resized: permits={}", engine, newPermits);
+    }
+
+    private AdmissionRejectedException reject(String reason, HttpStatus status) {
+        meterRegistry.counter("converter.admission.rejected", "engine", engine, "reason", reason).increment();
+        long retryAfter = retryAfterSeconds();
+        LOGGER.warn("Rejecting {} conversion ({}): waiting={} retryAfter={}s", engine, reason, waiting.get(), retryAfter);
+        return new AdmissionRejectedException(engine, "Server is busy. Try again later.", status, retryAfter);
+    }
+
+    /**
+     * Time until the current backlog has drained through all permits, at least one second.
+     */
+    long retryAfterSeconds() {
+        double drainMs = avgHoldMs * (waiting.get() + 1) / Math.max(1, permits);
+        return Math.max(1, (long) Math.ceil(drainMs / 1000));
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    public final class Permit implements AutoCloseable {
+        private final long acquiredAt = System.nanoTime();
+        private boolean released;
+
+        private Permit() {
+        }
+
+        @Override
+        public synchronized void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            semaphore.release();
+            double heldMs = (System.nanoTime() - acquiredAt) / 1_000_000.0;
+            avgHoldMs = avgHoldMs + HOLD_TIME_ALPHA * (heldMs - avgHoldMs);
+        }
+    }
+}
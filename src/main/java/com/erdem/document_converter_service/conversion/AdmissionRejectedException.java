@@ -0,0 +1,33 @@
+package com.erdem.document_converter_service.conversion;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when an engine's admission controller turns a conversion away instead of letting it
+ * queue until a timeout. Carries the HTTP status and Retry-After hint for the client.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String engine;
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String engine, String message, HttpStatus status, long retryAfterSeconds) {
+        super(message);
+        this.engine = engine;
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String engine() {
+        return engine;
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,110 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+
+/**
+ * Streams batch results into a ZIP in completion order: each PDF is written and flushed as
+ * soon as its conversion finishes. Parts that fail are listed in an errors.txt entry instead
+ * of aborting the archive, since the response status is already committed by then. When
+ * writing fails, e.g. because the client went away, the parts not written yet are released as
+ * they finish.
+ */
+public final class BatchZipWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchZipWriter.class);
+
+    private BatchZipWriter() {
+    }
+
+    public static void write(List<String> entryNames, List<CompletableFuture<CachedPdf>> parts, OutputStream out) throws IOException {
+        BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+        for (int i = 0; i < parts.size(); i++) {
+            int index = i;
+            parts.get(i).whenComplete((pdf, error) -> completed.add(index));
+        }
+
+        boolean[] taken = new boolean[parts.size()];
+        try {
+            writeEntries(entryNames, parts, completed, taken, out);
+        } catch (IOException | RuntimeException e) {
+            for (int i = 0; i < parts.size(); i++) {
+                if (!taken[i]) {
+                    CachedPdf.releaseWhenDone(parts.get(i));
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void writeEntries(List<String> entryNames, List<CompletableFuture<CachedPdf>> parts,
+            BlockingQueue<Integer> completed, boolean[] taken, OutputStream out) throws IOException {
+        StringBuilder errors = new StringBuilder();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs are already compressed, do not spend CPU on deflating them again
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        for (int n = 0; n < parts.size(); n++) {
+            int index = take(completed);
+            taken[index] = true;
+            String name = entryNames.get(index);
+
+            CachedPdf pdf = null;
+            InputStream in;
+            try {
+                pdf = parts.get(index).join();
+                in = pdf.openStream();
+            } catch (CompletionException | IOException e) {
+                if (pdf != null) {
+                    pdf.release();
+                }
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                LOGGER.warn("Batch part {} failed: {}", name, cause.getMessage());
+                errors.append(name).append(": ").append(cause.getMessage()).append('\n');
+                continue;
+            }
+
+            try (in) {
+                zip.putNextEntry(new ZipEntry(name));
+                in.transferTo(zip);
+                zip.closeEntry();
+            } finally {
+                pdf.release();
+            }
+            zip.flush();
+        }
+
+        if (!errors.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("errors.txt"));
+            zip.write(errors.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        // finish() rather than close(): the container owns the response stream
+        zip.finish();
+        zip.flush();
+    }
+
+    private static int take(BlockingQueue<Integer> completed) throws IOException {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch results");
+        }
+    }
+}
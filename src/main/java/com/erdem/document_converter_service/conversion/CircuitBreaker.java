@@ -0,0 +1,249 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fails conversions fast while an engine is unhealthy instead of letting every request wait
+ * out its timeouts on a hung soffice or a degraded browser.
+ * <p>
+ * Closed, the outcomes of the last {@code windowSize} engine calls are kept; once at least
+ * {@code minCalls} are in and the share of failures (errors and calls abandoned at their
+ * deadline) reaches {@code failureRateThreshold}, the breaker opens. Open, conversions are
+ * rejected with 503 and a Retry-After until {@code openMs} have passed. Then up to
+ * {@code halfOpenCalls} probe conversions are let through: if they all succeed the breaker
+ * closes again, the first failure opens it for another {@code openMs}.
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String engine;
+    private final boolean enabled;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openMs;
+    private final int halfOpenCalls;
+    private final MeterRegistry meterRegistry;
+
+    // Ring buffer of the latest outcomes, true = failure
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public CircuitBreaker(String engine, boolean enabled, int windowSize, int minCalls, double failureRateThreshold, long openMs,
+            int halfOpenCalls, MeterRegistry meterRegistry) {
+        this.engine = engine;
+        this.enabled = enabled;
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, outcomes.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("converter.breaker.state", this, b -> b.state().ordinal()).tag("engine", engine).register(meterRegistry);
+        LOGGER.info("Circuit breaker for {}: enabled={} window={} minCalls={} failureRate={} open={}ms", engine, enabled,
+                outcomes.length, this.minCalls, failureRateThreshold, openMs);
+    }
+
+    public String engine() {
+        return engine;
+    }
+
+    /**
+     * Rejects the conversion right away while the breaker is open, before it queues for admission.
+     */
+    public synchronized void checkAvailable() {
+        if (enabled && state == State.OPEN && !openPeriodOver()) {
+            throw reject();
+        }
+    }
+
+    /**
+     * Starts an engine call; its outcome must be reported on the returned call.
+     *
+     * @throws AdmissionRejectedException while open, or half-open with all probes taken
+     */
+    public synchronized Call begin() {
+        if (!enabled) {
+            return new Call();
+        }
+        if (state == State.OPEN) {
+            if (!openPeriodOver()) {
+                throw reject();
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenCalls) {
+                throw reject();
+            }
+            probesStarted++;
+            return new Call(true);
+        }
+        return new Call();
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && openPeriodOver()) {
+            // Reported as half-open: the next call is a probe
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * State and window statistics for the health endpoint.
+     */
+    public synchronized Map<String, Object> details() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", state().name().toLowerCase(Locale.ROOT));
+        details.put("calls", recorded);
+        details.put("failureRate", recorded == 0 ? 0.0 : (double) failures / recorded);
+        if (state == State.OPEN) {
+            details.put("retryAfterSeconds", retryAfterSeconds());
+        }
+        return details;
+    }
+
+    private boolean openPeriodOver() {
+        return System.currentTimeMillis() - openedAt >= openMs;
+    }
+
+    private synchronized void record(boolean probe, boolean failed) {
+        if (probe) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            if (failed) {
+                transition(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            // Calls started before the breaker opened do not count towards the next window
+            return;
+        }
+        if (recorded == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        failures += failed ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+        if (failed && recorded >= minCalls && (double) failures / recorded >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        switch (to) {
+            case OPEN -> openedAt = System.currentTimeMillis();
+            case HALF_OPEN -> {
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                recorded = 0;
+                failures = 0;
+                next = 0;
+            }
+        }
+        meterRegistry.counter("converter.breaker.transitions", "engine", engine, "state", to.name().toLowerCase(Locale.ROOT)).increment();
+        if (to == State.OPEN) {
+            LOGGER.warn("Circuit breaker for {} opened (was {}): failing conversions fast for {}ms", engine, from, openMs);
+        } else {
+            LOGGER.info("Circuit breaker for {}: {} -> {}", engine, from, to);
+        }
+    }
+
+    private AdmissionRejectedException reject() {
+        meterRegistry.counter("converter.breaker.rejected", "engine", engine).increment();
+        return new AdmissionRejectedException(engine, "Conversion engine is unavailable. Try again later.",
+                HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds());
+    }
+
+    private long retryAfterSeconds() {
+        long remainingMs = openMs - (System.currentTimeMillis() - openedAt);
+        return Math.max(1, (remainingMs + 999) / 1000);
+    }
+
+    /**
+     * One engine call. Only the first outcome reported counts, so a call abandoned at its
+     * deadline stays a failure when the engine finishes it later.
+     */
+    public final class Call implements AutoCloseable {
+        private final boolean probe;
+        private boolean done;
+
+        private Call() {
+            this(false);
+        }
+
+        private Call(boolean probe) {
+            this.probe = probe;
+        }
+
+        public void success() {
+            complete(false);
+        }
+
+        public void failure() {
+            complete(true);
+        }
+
+        private synchronized boolean markDone() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+
+        private void complete(boolean failed) {
+            if (enabled && markDone()) {
+                record(probe, failed);
+            }
+        }
+
+        /**
+         * Ends a call without an outcome, e.g. when it was interrupted; a probe slot is
+         * handed back.
+         */
+        @Override
+        public void close() {
+            if (enabled && markDone() && probe) {
+                releaseProbe();
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.erdem.document_converter_service.conversion.ConversionTicket.Engine;
+import com.erdem.document_converter_service.conversion.ConversionTicket.Priority;
+import com.erdem.document_converter_service.conversion.ConversionTicket.SizeClass;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs synchronous conversions in place of the single FIFO queue in front of the conversion
+ * pool, so a large workbook no longer holds up the small documents behind it.
+ * <p>
+ * Every conversion goes into a lane per engine and size class (office-small, office-large,
+ * browser-small, browser-large). Each engine has its own number of running slots, so a
+ * LibreOffice backlog never occupies the threads HTML conversions need. Lanes are served by
+ * smooth weighted round robin, with small lanes weighted above large ones. Within a lane,
+ * conversions run by {@code X-Priority} and then arrival order. A tenant ({@code X-Tenant-Id})
+ * at its concurrency cap is skipped and waits without blocking other tenants.
+ */
+@Component
+public class ConversionScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionScheduler.class);
+
+    public static final String PRIORITY_HEADER = "X-Priority";
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    // 0 = twice the engine's admission permits, so the next conversion is already waiting for a permit
+    @Value("${app.scheduler.office.slots:0}")
+    private int officeSlots;
+
+    @Value("${app.scheduler.browser.slots:0}")
+    private int browserSlots;
+
+    @Value("${app.scheduler.lane-capacity:100}")
+    private int laneCapacity;
+
+    @Value("${app.scheduler.weight.small:4}")
+    private int smallWeight;
+
+    @Value("${app.scheduler.weight.large:1}")
+    private int largeWeight;
+
+    @Value("${app.scheduler.large.office-bytes:2097152}")
+    private long largeOfficeBytes;
+
+    @Value("${app.scheduler.large.browser-bytes:1048576}")
+    private long largeBrowserBytes;
+
+    // 0 = no per-tenant cap
+    @Value("${app.scheduler.tenant.max-concurrent:0}")
+    private int tenantMaxConcurrent;
+
+    // The same switch that moves Tomcat onto virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record Task(ConversionTicket ticket, long seq, long enqueuedAt, Runnable body) {
+    }
+
+    private static final Comparator<Task> TASK_ORDER = Comparator
+            .comparing((Task t) -> t.ticket().priority())
+            .thenComparingLong(Task::seq);
+
+    private final class Lane {
+        final Engine engine;
+        final String name;
+        final int weight;
+        final NavigableSet<Task> tasks = new TreeSet<>(TASK_ORDER);
+        final Timer waitTimer;
+        int current;
+
+        Lane(Engine engine, SizeClass sizeClass, int weight) {
+            this.engine = engine;
+            this.name = ConversionTicket.lane(engine, sizeClass);
+            this.weight = weight;
+            this.waitTimer = Timer.builder("converter.scheduler.wait")
+                    .description("Time a conversion waited in its scheduler lane")
+                    .tag("lane", name)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(meterRegistry);
+            Gauge.builder("converter.scheduler.queued", this, l -> l.size()).tag("lane", name).register(meterRegistry);
+        }
+
+        int size() {
+            synchronized (lock) {
+                return tasks.size();
+            }
+        }
+    }
+
+    private final Object lock = new Object();
+    private final List<Lane> lanes = new ArrayList<>();
+    private final Map<Engine, Integer> running = new EnumMap<>(Engine.class);
+    private final Map<String, Integer> runningByTenant = new HashMap<>();
+    private long sequence;
+
+    private ExecutorService executorService;
+
+    @PostConstruct
+    public void init() {
+        for (Engine engine : Engine.values()) {
+            lanes.add(new Lane(engine, SizeClass.SMALL, smallWeight));
+            lanes.add(new Lane(engine, SizeClass.LARGE, largeWeight));
+            running.put(engine, 0);
+            Gauge.builder("converter.scheduler.running", this, s -> s.running(engine)).tag("engine", engine.name().toLowerCase(Locale.ROOT)).register(meterRegistry);
+        }
+        executorService = virtualThreads ? initVirtualThreadExecutor() : initThreadPool();
+    }
+
+    /**
+     * One virtual thread per conversion; the lanes and engine slots bound how many exist.
+     */
+    private ExecutorService initVirtualThreadExecutor() {
+        LOGGER.info("Conversion scheduler initialized: virtual thread per task");
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("convert-vt-", 1).factory());
+    }
+
+    /**
+     * Threads are handed conversions only when their engine has a free slot, so the pool needs
+     * no queue of its own: it grows to the slots in use and shrinks again when idle.
+     */
+    private ExecutorService initThreadPool() {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "convert-pool-" + threadNumber.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory);
+        // executor.active, executor.pool.size, executor.completed, ... tagged name=convert
+        new ExecutorServiceMetrics(threadPool, "convert", Tags.empty()).bindTo(meterRegistry);
+        LOGGER.info("Conversion scheduler initialized: laneCapacity={} weights small={} large={} tenantMaxConcurrent={}",
+                laneCapacity, smallWeight, largeWeight, tenantMaxConcurrent);
+        return threadPool;
+    }
+
+    /**
+     * Classifies an upload for the given engine from the request's priority and tenant headers
+     * and its size. Nothing is read from the upload: this runs on the request thread before any
+     * admission.
+     */
+    public ConversionTicket ticket(Engine engine, MultipartFile file, String priorityHeader, String tenantHeader) {
+        String tenant = tenantHeader == null || tenantHeader.isBlank() ? ConversionTicket.DEFAULT_TENANT : tenantHeader.trim();
+        return new ConversionTicket(engine, sizeClass(engine, file), Priority.parse(priorityHeader), tenant);
+    }
+
+    private SizeClass sizeClass(Engine engine, MultipartFile file) {
+        if (file == null) {
+            return SizeClass.SMALL;
+        }
+        return file.getSize() > (engine == Engine.OFFICE ? largeOfficeBytes : largeBrowserBytes) ? SizeClass.LARGE : SizeClass.SMALL;
+    }
+
+    /**
+     * Queues a conversion in its lane. The future fails with {@link AdmissionRejectedException}
+     * when the lane is full.
+     */
+    public <T> CompletableFuture<T> submit(ConversionTicket ticket, Callable<T> conversion) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Lane lane = lane(ticket);
+        synchronized (lock) {
+            if (lane.tasks.size() >= laneCapacity) {
+                meterRegistry.counter("converter.scheduler.rejected", "lane", lane.name).increment();
+                LOGGER.warn("Rejecting conversion: lane {} is full ({} queued)", lane.name, lane.tasks.size());
+                result.completeExceptionally(new AdmissionRejectedException(lane.name, "Conversion queue is full. Try again later.",
+                        HttpStatus.TOO_MANY_REQUESTS, Math.max(1, lane.tasks.size() / Math.max(1, slots(lane.engine)))));
+                return result;
+            }
+            lane.tasks.add(new Task(ticket, sequence++, System.nanoTime(), () -> {
+                try {
+                    result.complete(conversion.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+        }
+        dispatch();
+        return result;
+    }
+
+    /**
+     * Starts as many queued conversions as the engine slots and tenant caps allow.
+     */
+    private void dispatch() {
+        List<Task> ready = new ArrayList<>();
+        synchronized (lock) {
+            for (Task task = next(); task != null; task = next()) {
+                ready.add(task);
+            }
+        }
+        for (Task task : ready) {
+            try {
+                executorService.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                finished(task.ticket());
+                task.body().run();
+            }
+        }
+    }
+
+    private void run(Task task) {
+        lane(task.ticket()).waitTimer.record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+        try {
+            task.body().run();
+        } finally {
+            finished(task.ticket());
+            dispatch();
+        }
+    }
+
+    /**
+     * Picks the next conversion by smooth weighted round robin over the lanes that have one
+     * that may start now, and marks it running. Must hold the lock.
+     */
+    private Task next() {
+        Lane best = null;
+        Task bestTask = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            if (lane.tasks.isEmpty() || running(lane.engine) >= slots(lane.engine)) {
+                continue;
+            }
+            Task candidate = firstStartable(lane);
+            if (candidate == null) {
+                continue;
+            }
+            lane.current += lane.weight;
+            totalWeight += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+                bestTask = candidate;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        best.current -= totalWeight;
+        best.tasks.remove(bestTask);
+        running.merge(best.engine, 1, Integer::sum);
+        runningByTenant.merge(bestTask.ticket().tenant(), 1, Integer::sum);
+        return bestTask;
+    }
+
+    private Task firstStartable(Lane lane) {
+        if (tenantMaxConcurrent <= 0) {
+            return lane.tasks.first();
+        }
+        for (Task task : lane.tasks) {
+            if (runningByTenant.getOrDefault(task.ticket().tenant(), 0) < tenantMaxConcurrent) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void finished(ConversionTicket ticket) {
+        synchronized (lock) {
+            running.merge(ticket.engine(), -1, Integer::sum);
+            runningByTenant.computeIfPresent(ticket.tenant(), (tenant, n) -> n > 1 ? n - 1 : null);
+        }
+    }
+
+    private int running(Engine engine) {
+        synchronized (lock) {
+            return running.get(engine);
+        }
+    }
+
+    private int slots(Engine engine) {
+        int configured = engine == Engine.OFFICE ? officeSlots : browserSlots;
+        if (configured > 0) {
+            return configured;
+        }
+        return 2 * (engine == Engine.OFFICE ? conversionService.officeCapacity() : conversionService.browserCapacity());
+    }
+
+    private Lane lane(ConversionTicket ticket) {
+        return lanes.get(ticket.engine().ordinal() * 2 + ticket.sizeClass().ordinal());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executorService != null && !executorService.isShutdown()) {
+            LOGGER.info("Shutting down conversion scheduler...");
+            executorService.shutdown();
+            try {
+                if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
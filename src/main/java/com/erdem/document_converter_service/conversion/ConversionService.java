@@ -0,0 +1,913 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jodconverter.core.DocumentConverter;
+import org.jodconverter.core.document.DefaultDocumentFormatRegistry;
+import org.jodconverter.core.document.DocumentFormat;
+import org.jodconverter.core.office.OfficeException;
+import org.jodconverter.local.office.LocalOfficeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.erdem.document_converter_service.cache.CacheKey;
+import com.erdem.document_converter_service.cache.CachedPdf;
+import com.erdem.document_converter_service.cache.PdfResultCache;
+import com.erdem.document_converter_service.html.HtmlChunker;
+import com.erdem.document_converter_service.html.HtmlClassifier;
+import com.erdem.document_converter_service.html.HtmlEngine;
+import com.erdem.document_converter_service.html.NativeHtmlRenderer;
+import com.erdem.document_converter_service.html.PlaywrightEngine;
+import com.erdem.document_converter_service.html.PrintCssInjector;
+import com.erdem.document_converter_service.html.PrintOptions;
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Excel and HTML to PDF conversion shared by the synchronous endpoints and the job API.
+ * Sources are either multipart uploads or files already on disk; results go through the
+ * {@link PdfResultCache}.
+ */
+@Service
+public class ConversionService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionService.class);
+
+    // Documents whose <body> starts later than this are rendered in one piece
+    private static final int CHUNK_MAX_PROLOGUE_BYTES = 1024 * 1024;
+
+    @Autowired(required = false)
+    private DocumentConverter documentConverter;
+
+    @Autowired(required = false)
+    private LocalOfficeManager officeManager;
+
+    @Autowired
+    private PdfResultCache resultCache;
+
+    @Autowired
+    private PlaywrightEngine playwrightEngine;
+
+    @Autowired
+    private NativeHtmlRenderer nativeRenderer;
+
+    @Autowired
+    private NativeExcelRenderer nativeExcel;
+
+    @Autowired
+    private PdfOptimizer pdfOptimizer;
+
+    @Autowired
+    private TempFileManager tempFiles;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private ElasticOfficePool officePool;
+
+    @Value("${jodconverter.local.port-numbers:2002}")
+    private String officePortNumbers;
+
+    // 0 = one permit per LibreOffice port
+    @Value("${app.admission.office.max-concurrent:0}")
+    private int officeMaxConcurrent;
+
+    @Value("${app.admission.office.max-waiting:16}")
+    private int officeMaxWaiting;
+
+    // 0 = one permit per pooled page / browser shard
+    @Value("${app.admission.browser.max-concurrent:0}")
+    private int browserMaxConcurrent;
+
+    @Value("${app.admission.browser.max-waiting:32}")
+    private int browserMaxWaiting;
+
+    @Value("${app.admission.wait-timeout-ms:10000}")
+    private long admissionWaitTimeoutMs;
+
+    // Excel uploads up to max-input-bytes are converted from the stream instead of a working copy
+    @Value("${app.office.streaming.enabled:false}")
+    private boolean streamConversion;
+
+    @Value("${app.office.streaming.max-input-bytes:16777216}")
+    private long streamMaxInputBytes;
+
+    @Value("${app.office.streaming.max-memory-bytes:8388608}")
+    private int streamMaxMemoryBytes;
+
+    // Large HTML documents are split into chunks that are printed in parallel and stitched together
+    @Value("${app.html.chunking.enabled:false}")
+    private boolean htmlChunking;
+
+    @Value("${app.html.chunking.min-bytes:4194304}")
+    private long chunkingMinBytes;
+
+    @Value("${app.html.chunking.target-bytes:1048576}")
+    private long chunkingTargetBytes;
+
+    // Marker comment text to cut at (e.g. page-break for <!-- page-break -->); empty = cut after split-after elements
+    @Value("${app.html.chunking.marker:}")
+    private String chunkingMarker;
+
+    @Value("${app.html.chunking.split-after:tr,li,section,article}")
+    private String chunkingSplitAfter;
+
+    // 0 = as many chunks at once as the browser admission permits
+    @Value("${app.html.chunking.max-parallel:0}")
+    private int chunkingMaxParallel;
+
+    // Large multi-sheet workbooks are exported as sheet ranges in parallel and stitched together
+    @Value("${app.office.sheet-split.enabled:false}")
+    private boolean sheetSplitting;
+
+    @Value("${app.office.sheet-split.min-bytes:1048576}")
+    private long sheetSplitMinBytes;
+
+    // 0 = spread the sheets evenly over the office admission permits
+    @Value("${app.office.sheet-split.sheets-per-part:0}")
+    private int sheetsPerPart;
+
+    // Per-engine circuit breakers: open on the failure rate of the last window-size engine calls
+    @Value("${app.breaker.enabled:true}")
+    private boolean breakerEnabled;
+
+    @Value("${app.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${app.breaker.min-calls:10}")
+    private int breakerMinCalls;
+
+    @Value("${app.breaker.failure-rate-threshold:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${app.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${app.breaker.half-open-calls:2}")
+    private int breakerHalfOpenCalls;
+
+    // Hedged retries: a second attempt for conversions running past the engine's recent percentile latency
+    @Value("${app.hedge.enabled:false}")
+    private boolean hedging;
+
+    @Value("${app.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${app.hedge.min-delay-ms:2000}")
+    private long hedgeMinDelayMs;
+
+    @Value("${app.hedge.min-samples:20}")
+    private int hedgeMinSamples;
+
+    // Output profile of conversions that do not ask for one
+    @Value("${app.pdf.default-profile:default}")
+    private String defaultProfileName;
+
+    private PdfProfile defaultProfile;
+    private PdfProfile defaultHtmlProfile;
+    private OfficeConverters officeConverters;
+    private AdmissionController officeAdmission;
+    private AdmissionController browserAdmission;
+    private EngineGuard officeGuard;
+    private EngineGuard browserGuard;
+    private ExecutorService attemptExecutor;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private HtmlChunker.Settings chunkSettings;
+    private ExecutorService partExecutor;
+
+    @PostConstruct
+    public void init() {
+        defaultProfile = Objects.requireNonNullElse(PdfProfile.parse(defaultProfileName), PdfProfile.DEFAULT);
+        // No HTML engine produces PDF/A
+        defaultHtmlProfile = defaultProfile.pdfA() ? PdfProfile.DEFAULT : defaultProfile;
+        if (documentConverter != null) {
+            officeConverters = new OfficeConverters(officeManager, documentConverter, stageMetrics);
+        }
+        int officePermits = officeMaxConcurrent > 0 ? officeMaxConcurrent : officePortNumbers.split(",").length;
+        int browserPermits = browserMaxConcurrent > 0 ? browserMaxConcurrent : Math.max(1, playwrightEngine.capacity());
+        officeAdmission = new AdmissionController("office", officePermits, officeMaxWaiting, admissionWaitTimeoutMs, meterRegistry);
+        browserAdmission = new AdmissionController("browser", browserPermits, browserMaxWaiting, admissionWaitTimeoutMs, meterRegistry);
+        if (officePool.isEnabled()) {
+            // Office permits follow the number of active pool instances
+            officePool.attach(officeAdmission);
+        }
+        // Attempts with a deadline or hedge wait on the engine like the caller would
+        attemptExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("engine-attempt-", 1).factory());
+        officeGuard = engineGuard(officeAdmission, EngineFaults::office);
+        browserGuard = engineGuard(browserAdmission, EngineFaults::browser);
+        if (htmlChunking) {
+            Set<String> splitAfter = Stream.of(chunkingSplitAfter.split(","))
+                    .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                    .filter(name -> !name.isEmpty())
+                    .collect(Collectors.toSet());
+            chunkSettings = new HtmlChunker.Settings(chunkingTargetBytes,
+                    chunkingMarker.isBlank() ? null : chunkingMarker.trim(), splitAfter, CHUNK_MAX_PROLOGUE_BYTES);
+        }
+        if (htmlChunking || sheetSplitting) {
+            // Parts mostly wait for admission, the browser or LibreOffice
+            partExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("conversion-part-", 1).factory());
+        }
+    }
+
+    private EngineGuard engineGuard(AdmissionController admission, Predicate<Throwable> engineFault) {
+        CircuitBreaker breaker = new CircuitBreaker(admission.engine(), breakerEnabled, breakerWindowSize, breakerMinCalls,
+                breakerFailureRate, breakerOpenMs, breakerHalfOpenCalls, meterRegistry);
+        return new EngineGuard(admission.engine(), admission, breaker, engineFault, tempFiles, attemptExecutor, meterRegistry,
+                hedging, hedgePercentile, hedgeMinDelayMs, hedgeMinSamples);
+    }
+
+    /**
+     * The circuit breakers of LibreOffice and the browser.
+     */
+    public List<CircuitBreaker> breakers() {
+        return List.of(officeGuard.breaker(), browserGuard.breaker());
+    }
+
+    public boolean isExcelAvailable() {
+        return officeConverters != null || officePool.isEnabled();
+    }
+
+    /**
+     * Conversions LibreOffice can run at once right now.
+     */
+    int officeCapacity() {
+        return officeAdmission.permits();
+    }
+
+    /**
+     * Conversions the browser engine can run at once.
+     */
+    int browserCapacity() {
+        return browserAdmission.permits();
+    }
+
+    private OfficeLease officeLease() {
+        return officePool.isEnabled() ? officePool.lease() : new OfficeLease(officeConverters, null);
+    }
+
+    public boolean isHtmlAvailable() {
+        return playwrightEngine.isAvailable();
+    }
+
+    public static boolean isExcelFilename(String filename) {
+        return hasExtension(filename, ".xlsx", ".xls");
+    }
+
+    public static boolean isHtmlFilename(String filename) {
+        return hasExtension(filename, ".html", ".htm");
+    }
+
+    private static boolean hasExtension(String filename, String... extensions) {
+        if (filename == null) {
+            return false;
+        }
+        String lower = filename.toLowerCase(Locale.ROOT);
+        for (String ext : extensions) {
+            if (lower.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts an Excel workbook. The caller must {@link CachedPdf#release() release} the result
+     * once it has been consumed.
+     */
+    public CachedPdf convertExcel(InputStreamSource source, String originalFilename, boolean landscape, boolean fitToPage) throws Exception {
+        return convertExcel(source, originalFilename, landscape, fitToPage, null);
+    }
+
+    /**
+     * Converts an Excel workbook with an output profile, null for {@code app.pdf.default-profile}.
+     */
+    public CachedPdf convertExcel(InputStreamSource source, String originalFilename, boolean landscape, boolean fitToPage,
+            PdfProfile profile) throws Exception {
+        return convertExcel(source, originalFilename, landscape, fitToPage, profile, Deadline.none());
+    }
+
+    /**
+     * Converts an Excel workbook within the deadline.
+     *
+     * @throws DeadlineExceededException when it is not done in time
+     */
+    public CachedPdf convertExcel(InputStreamSource source, String originalFilename, boolean landscape, boolean fitToPage,
+            PdfProfile profile, Deadline deadline) throws Exception {
+        PdfProfile outputProfile = profile != null ? profile : defaultProfile;
+        Map<String, Object> options = new HashMap<>(Map.of("landscape", landscape, "fitToPage", fitToPage));
+        if (nativeExcel.isEnabled() && !outputProfile.pdfA()) {
+            // The native renderer lays pages out differently from LibreOffice
+            options.put("engine", "auto");
+        }
+        if (outputProfile != PdfProfile.DEFAULT) {
+            options.put("profile", outputProfile.tag());
+        }
+        CacheKey cacheKey = CacheKey.of("excel", source, options);
+        return render(cacheKey, deadline, () -> renderExcelToPdf(source, originalFilename, landscape, fitToPage, outputProfile, deadline));
+    }
+
+    /**
+     * Converts an HTML document. The caller must {@link CachedPdf#release() release} the result
+     * once it has been consumed.
+     */
+    public CachedPdf convertHtml(InputStreamSource source, String originalFilename) throws Exception {
+        return convertHtml(source, originalFilename, HtmlEngine.AUTO, null);
+    }
+
+    /**
+     * Converts an HTML document with the requested engine, see {@link HtmlEngine}, and output
+     * profile, null for {@code app.pdf.default-profile}.
+     */
+    public CachedPdf convertHtml(InputStreamSource source, String originalFilename, HtmlEngine engine, PdfProfile profile) throws Exception {
+        return convertHtml(source, originalFilename, engine, profile, Deadline.none());
+    }
+
+    /**
+     * Converts an HTML document within the deadline.
+     *
+     * @throws DeadlineExceededException when it is not done in time
+     * @throws IllegalArgumentException for a PDF/A profile, see {@link PdfProfile#parseHtml}
+     */
+    public CachedPdf convertHtml(InputStreamSource source, String originalFilename, HtmlEngine engine, PdfProfile profile,
+            Deadline deadline) throws Exception {
+        HtmlEngine requested = nativeRenderer.isEnabled() ? engine : HtmlEngine.CHROMIUM;
+        PdfProfile outputProfile = profile != null ? profile : defaultHtmlProfile;
+        if (outputProfile.pdfA()) {
+            throw new IllegalArgumentException(PdfProfile.PARAM + " " + outputProfile.tag() + " is only available for Excel conversions");
+        }
+        Map<String, Object> options = new HashMap<>(outputProfile.printOptions().pageSettings());
+        options.put("engine", requested.tag());
+        if (outputProfile != PdfProfile.DEFAULT) {
+            options.put("profile", outputProfile.tag());
+        }
+        CacheKey cacheKey = CacheKey.of("html", source, options);
+        return render(cacheKey, deadline, () -> renderHtmlToPdf(source, originalFilename, requested, outputProfile, deadline));
+    }
+
+    private CachedPdf render(CacheKey cacheKey, Deadline deadline, PdfResultCache.PdfRenderer renderer) throws Exception {
+        AtomicReference<CachedPdf> rendered = new AtomicReference<>();
+        CachedPdf pdf = resultCache.getOrRender(cacheKey, deadline, () -> {
+            CachedPdf result = renderer.render();
+            rendered.set(result);
+            return result;
+        });
+
+        CachedPdf result = rendered.get();
+        if (result == null || result.inMemory()) {
+            // Served from the cache or by a coalesced render, or rendered in memory: nothing of ours to clean up
+            return pdf;
+        }
+        Path output = result.path();
+        if (output.equals(pdf.path())) {
+            // Uncached: the render output itself is served, drop it once the response is written
+            return pdf.withRelease(() -> tempFiles.releaseOutput(output));
+        }
+        // The cache holds its own copy
+        tempFiles.releaseOutput(output);
+        return pdf;
+    }
+
+    private CachedPdf renderExcelToPdf(InputStreamSource source, String originalFilename, boolean landscape, boolean fitToPage,
+            PdfProfile profile, Deadline deadline) throws Exception {
+        String options = StageMetrics.excelOptions(landscape, fitToPage);
+        String safeName = TempFileNames.safeName(originalFilename);
+        String baseName = TempFileNames.uniqueBaseName(safeName, sequence.incrementAndGet());
+
+        if (source instanceof FileSystemResource resource) {
+            // Already on disk (job inputs): let LibreOffice read it where it is
+            Path outputPath = tempFiles.allocate(baseName + ".pdf");
+            try {
+                convertExcelFile(resource.getFile().toPath(), outputPath, landscape, fitToPage, profile, options, deadline);
+                return finish(outputPath, profile, "excel", false, deadline);
+            } catch (Exception e) {
+                tempFiles.release(outputPath);
+                throw e;
+            }
+        }
+        long size = source instanceof MultipartFile file ? file.getSize() : -1;
+        // Workbooks that may be split by sheet need a file every part can load
+        boolean splittable = sheetSplitting && size >= sheetSplitMinBytes;
+        // and so does the native renderer, which falls back to LibreOffice
+        boolean nativeCandidate = nativeExcel.isEnabled() && !profile.pdfA() && isXlsx(safeName);
+        // Linearization rewrites a file
+        if (streamConversion && size >= 0 && size <= streamMaxInputBytes && !splittable && !nativeCandidate && !profile.linearize()) {
+            CachedPdf pdf = convertExcelStream(source, originalFilename, baseName, landscape, fitToPage, profile, options, deadline);
+            recordSize(pdf, "excel", profile);
+            return pdf;
+        }
+
+        Path inputPath = tempFiles.allocate(baseName + TempFileNames.extension(safeName, ".xlsx"));
+        Path outputPath = tempFiles.allocate(baseName + ".pdf");
+        try {
+            long start = System.nanoTime();
+            copyToFile(source, inputPath);
+            stageMetrics.timer(StageMetrics.UPLOAD, "excel", options).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            convertExcelFile(inputPath, outputPath, landscape, fitToPage, profile, options, deadline);
+            return finish(outputPath, profile, "excel", false, deadline);
+        } catch (Exception e) {
+            tempFiles.release(outputPath);
+            throw e;
+        } finally {
+            tempFiles.release(inputPath);
+        }
+    }
+
+    private void convertExcelFile(Path inputPath, Path outputPath, boolean landscape, boolean fitToPage, PdfProfile profile,
+            String options, Deadline deadline) throws Exception {
+        // PDF/A needs LibreOffice, and a single export: stitched parts would lose its metadata
+        if (!profile.pdfA() && nativeExcel.isEnabled() && routeExcel(inputPath)
+                && renderNativeExcel(inputPath, outputPath, landscape, fitToPage)) {
+            return;
+        }
+        int sheets = !profile.pdfA() && sheetSplitting && Files.size(inputPath) >= sheetSplitMinBytes ? visibleSheets(inputPath) : 0;
+        int perPart = sheetsPerPart > 0 ? sheetsPerPart : Math.ceilDiv(sheets, Math.max(1, officeAdmission.permits()));
+        if (sheets > 1 && sheets > perPart) {
+            long start = System.nanoTime();
+            convertExcelSheets(inputPath, outputPath, landscape, fitToPage, profile, sheets, perPart, options, deadline);
+            stageMetrics.timer(StageMetrics.OFFICE, "excel", options).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        // Filters for the options are part of the pre-built converter
+        officeGuard.run(deadline, outputPath, true, stageMetrics.timer(StageMetrics.ADMISSION, "excel", options),
+                stageMetrics.timer(StageMetrics.OFFICE, "excel", options),
+                path -> convertWithOffice(inputPath, path, converters -> converters.get(landscape, fitToPage, profile)));
+        LOGGER.info("Excel converted: landscape={}, fitToPage={}", landscape, fitToPage);
+    }
+
+    private static boolean isXlsx(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".xlsx");
+    }
+
+    /**
+     * Whether the native renderer should try the workbook; only .xlsx is read natively.
+     */
+    private boolean routeExcel(Path inputPath) {
+        if (isXlsx(inputPath.getFileName().toString())) {
+            return true;
+        }
+        countExcelRoute("libreoffice", "format");
+        return false;
+    }
+
+    /**
+     * Renders the workbook without LibreOffice. False when it uses something the native
+     * renderer does not support, or when rendering failed, so that LibreOffice converts it.
+     */
+    private boolean renderNativeExcel(Path inputPath, Path outputPath, boolean landscape, boolean fitToPage) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            nativeExcel.renderPdf(inputPath, outputPath, landscape, fitToPage);
+            stageMetrics.timer(StageMetrics.RENDER, "excel", "native").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            countExcelRoute("native", "simple");
+            LOGGER.info("Excel converted natively: landscape={}, fitToPage={}", landscape, fitToPage);
+            return true;
+        } catch (UnsupportedWorkbookException e) {
+            countExcelRoute("libreoffice", e.reason());
+            return false;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.warn("Native Excel render failed, falling back to LibreOffice: {}", e.toString());
+            countExcelRoute("libreoffice", "native-failed");
+            return false;
+        }
+    }
+
+    private void countExcelRoute(String engine, String reason) {
+        meterRegistry.counter("converter.excel.route", "engine", engine, "reason", reason).increment();
+    }
+
+    /**
+     * Visible sheets of an .xlsx workbook, 0 for other formats or when it cannot be read.
+     */
+    private static int visibleSheets(Path inputPath) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(inputPath), 64 * 1024)) {
+            return SpreadsheetFormats.visibleSheetCount(in);
+        } catch (IOException e) {
+            LOGGER.debug("Could not count the sheets of {}: {}", inputPath, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Exports the workbook as ranges of {@code perPart} visible sheets, on up to as many
+     * LibreOffice processes at once as the office admission permits, and appends the parts to
+     * one PDF in sheet order. Every part loads the whole workbook, so formulas across sheets
+     * still resolve, and goes through office admission like a document of its own.
+     */
+    private void convertExcelSheets(Path inputPath, Path outputPath, boolean landscape, boolean fitToPage, PdfProfile profile,
+            int sheets, int perPart, String options, Deadline deadline) throws Exception {
+        int parallel = Math.max(1, officeAdmission.permits());
+        Semaphore slots = new Semaphore(parallel, true);
+        String baseName = outputPath.getFileName().toString().replaceFirst("\\.pdf$", "");
+        List<Future<CachedPdf>> parts = new ArrayList<>();
+        for (int from = 0; from < sheets; from += perPart) {
+            int first = from;
+            int last = Math.min(sheets, from + perPart);
+            Path partPdf = tempFiles.allocate(baseName + "-sheets" + first + ".pdf");
+            parts.add(submitPart(() -> convertSheetRange(inputPath, partPdf, landscape, fitToPage, profile, first, last, slots, deadline),
+                    () -> tempFiles.release(partPdf)));
+        }
+        LOGGER.info("Converting {} sheets in {} parts, {} at a time", sheets, parts.size(), parallel);
+
+        stitch(parts, outputPath, stageMetrics.timer(StageMetrics.STITCH, "excel", options), deadline);
+        LOGGER.info("Excel converted from {} sheet ranges: landscape={}, fitToPage={}", parts.size(), landscape, fitToPage);
+    }
+
+    private CachedPdf convertSheetRange(Path inputPath, Path partPdf, boolean landscape, boolean fitToPage, PdfProfile profile,
+            int from, int to, Semaphore slots, Deadline deadline) throws Exception {
+        try {
+            acquire(slots, deadline);
+            try {
+                officeGuard.run(deadline, partPdf, false, null, null,
+                        path -> convertWithOffice(inputPath, path, converters -> converters.forSheets(landscape, fitToPage, profile, from, to)));
+            } finally {
+                slots.release();
+            }
+            return CachedPdf.ofFile(partPdf).withRelease(() -> tempFiles.release(partPdf));
+        } catch (Exception e) {
+            tempFiles.release(partPdf);
+            throw e;
+        }
+    }
+
+    /**
+     * Feeds the upload to LibreOffice as a stream and collects the PDF in memory, without our
+     * own copy of the input or an output file to reopen. Outputs larger than
+     * {@code app.office.streaming.max-memory-bytes} spill to a temp file.
+     */
+    private CachedPdf convertExcelStream(InputStreamSource source, String originalFilename, String baseName,
+            boolean landscape, boolean fitToPage, PdfProfile profile, String options, Deadline deadline) throws Exception {
+        SpillableOutputStream output = new SpillableOutputStream(tempFiles, baseName + ".pdf", streamMaxMemoryBytes);
+        try {
+            AdmissionController.Permit permit = officeGuard.admit(deadline, stageMetrics.timer(StageMetrics.ADMISSION, "excel", options));
+            long start = System.nanoTime();
+            // The PDF goes to the stream, so the call cannot be hedged; the call releases the permit when it returns
+            officeGuard.runInline(deadline, permit, ignored -> {
+                try (InputStream in = new BufferedInputStream(source.getInputStream(), 64 * 1024); output;
+                        OfficeLease lease = officeLease()) {
+                    DocumentFormat format = SpreadsheetFormats.detect(in, originalFilename);
+                    try {
+                        lease.converters().get(landscape, fitToPage, profile)
+                                .convert(in, false)
+                                .as(format)
+                                .to(output, false)
+                                .as(DefaultDocumentFormatRegistry.PDF)
+                                .execute();
+                    } catch (OfficeException e) {
+                        lease.markFailed();
+                        throw e;
+                    }
+                }
+            }, output::discard);
+            stageMetrics.timer(StageMetrics.OFFICE, "excel", options).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            LOGGER.info("Excel converted from stream: landscape={}, fitToPage={}", landscape, fitToPage);
+            return output.toPdf();
+        } catch (OfficeException e) {
+            output.discard();
+            LOGGER.error("JODConverter failed: {}", e.getMessage(), e);
+            throw new RuntimeException("Document conversion failed", e);
+        } catch (DeadlineExceededException | InterruptedException e) {
+            // An abandoned call discards the output itself once it returns; before admission nothing was written
+            throw e;
+        } catch (Exception e) {
+            output.discard();
+            throw e;
+        }
+    }
+
+    private void convertWithOffice(Path inputPath, Path outputPath, Function<OfficeConverters, DocumentConverter> converter) {
+        try (OfficeLease lease = officeLease()) {
+            try {
+                converter.apply(lease.converters())
+                        .convert(inputPath.toFile())
+                        .to(outputPath.toFile())
+                        .execute();
+            } catch (OfficeException e) {
+                lease.markFailed();
+                throw e;
+            }
+        } catch (OfficeException e) {
+            LOGGER.error("JODConverter failed: {}", e.getMessage(), e);
+            throw new RuntimeException("Document conversion failed", e);
+        }
+
+        if (!Files.exists(outputPath)) {
+            LOGGER.error("JODConverter output missing: {}", outputPath);
+            throw new RuntimeException("Output PDF not created");
+        }
+    }
+
+    /**
+     * Applies the output profile to a rendered PDF and records its size.
+     *
+     * @param recompress whether images still have to be recompressed for the profile, false
+     *                   when LibreOffice already exported them with it
+     */
+    private CachedPdf finish(Path outputPath, PdfProfile profile, String type, boolean recompress, Deadline deadline)
+            throws IOException, InterruptedException {
+        if (profile != PdfProfile.DEFAULT) {
+            deadline.check(StageMetrics.OPTIMIZE);
+            long start = System.nanoTime();
+            pdfOptimizer.apply(outputPath, profile, recompress);
+            stageMetrics.timer(StageMetrics.OPTIMIZE, type, profile.tag()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        CachedPdf pdf = CachedPdf.ofFile(outputPath);
+        recordSize(pdf, type, profile);
+        return pdf;
+    }
+
+    private void recordSize(CachedPdf pdf, String type, PdfProfile profile) {
+        meterRegistry.summary("converter.pdf.bytes", "type", type, "profile", profile.tag()).record(pdf.length());
+    }
+
+    private CachedPdf renderHtmlToPdf(InputStreamSource source, String originalFilename, HtmlEngine requested,
+            PdfProfile profile, Deadline deadline) throws Exception {
+        String safeName = TempFileNames.safeName(originalFilename);
+        String ext = TempFileNames.extension(safeName, ".html");
+        String baseName = TempFileNames.uniqueBaseName(safeName, sequence.incrementAndGet());
+        Path inputPath = tempFiles.allocate(baseName + ext);
+        Path outputPath = tempFiles.allocate(baseName + ".pdf");
+
+        try {
+            // Stream the upload to disk with the print CSS injected on the way, never as a whole String
+            long start = System.nanoTime();
+            try (InputStream in = source.getInputStream(); OutputStream out = Files.newOutputStream(inputPath)) {
+                PrintCssInjector.inject(in, out);
+            }
+            stageMetrics.timer(StageMetrics.UPLOAD, "html").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (routeHtml(inputPath, requested, profile) == HtmlEngine.NATIVE && renderNative(inputPath, outputPath)) {
+                return finish(outputPath, profile, "html", true, deadline);
+            }
+
+            // Scripts in a chunk's prologue would run once per chunk, so scripted documents print whole
+            if (htmlChunking && Files.size(inputPath) >= chunkingMinBytes && !HtmlClassifier.isScripted(inputPath)) {
+                List<Path> chunks = HtmlChunker.split(inputPath, i -> tempFiles.allocate(baseName + "-part" + i + ext), chunkSettings);
+                if (chunks.size() > 1) {
+                    renderHtmlChunks(chunks, baseName, outputPath, profile.printOptions(), deadline);
+                    return finish(outputPath, profile, "html", true, deadline);
+                }
+                chunks.forEach(tempFiles::release);
+            }
+
+            try {
+                // Page wait, navigation and printing are timed by the engine
+                browserGuard.run(deadline, outputPath, true, stageMetrics.timer(StageMetrics.ADMISSION, "html"),
+                        stageMetrics.timer(StageMetrics.RENDER, "html", HtmlEngine.CHROMIUM.tag()),
+                        path -> playwrightEngine.renderPdf(inputPath, path, profile.printOptions(), deadline.remainingMs()));
+                LOGGER.info("HTML to PDF completed. Output: {}", outputPath);
+            } catch (AdmissionRejectedException | DeadlineExceededException e) {
+                throw e;
+            } catch (Exception e) {
+                LOGGER.error("Playwright conversion failed: {}", e.getMessage(), e);
+                throw e;
+            }
+
+            if (!Files.exists(outputPath)) {
+                LOGGER.error("Playwright output missing: {}", outputPath);
+                throw new RuntimeException("Output PDF not created");
+            }
+            return finish(outputPath, profile, "html", true, deadline);
+        } catch (Exception e) {
+            tempFiles.release(outputPath);
+            throw e;
+        } finally {
+            tempFiles.release(inputPath);
+        }
+    }
+
+    /**
+     * Picks the engine for a document: the requested one, or for {@code AUTO} the native
+     * renderer if the profile prints with the default options and the classifier accepts the
+     * document. Every decision is counted with its reason.
+     */
+    private HtmlEngine routeHtml(Path inputPath, HtmlEngine requested, PdfProfile profile) throws IOException {
+        HtmlEngine engine;
+        String reason;
+        if (!nativeRenderer.isEnabled()) {
+            engine = HtmlEngine.CHROMIUM;
+            reason = "disabled";
+        } else if (requested != HtmlEngine.AUTO) {
+            engine = requested;
+            reason = "override";
+        } else if (!profile.printOptions().equals(PrintOptions.DEFAULT)) {
+            // The native renderer has no print options
+            engine = HtmlEngine.CHROMIUM;
+            reason = "profile";
+        } else {
+            reason = nativeRenderer.rejectReason(inputPath);
+            engine = reason == null ? HtmlEngine.NATIVE : HtmlEngine.CHROMIUM;
+            reason = reason == null ? "simple" : reason;
+        }
+        countRoute(engine, reason);
+        return engine;
+    }
+
+    /**
+     * Renders with the native renderer; false if it failed and the document has to go to
+     * Chromium after all.
+     */
+    private boolean renderNative(Path inputPath, Path outputPath) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            nativeRenderer.renderPdf(inputPath, outputPath);
+            stageMetrics.timer(StageMetrics.RENDER, "html", HtmlEngine.NATIVE.tag()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            LOGGER.info("HTML to PDF completed natively. Output: {}", outputPath);
+            return true;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.warn("Native HTML render failed, falling back to Chromium: {}", e.getMessage());
+            countRoute(HtmlEngine.CHROMIUM, "native-failed");
+            return false;
+        }
+    }
+
+    private void countRoute(HtmlEngine engine, String reason) {
+        meterRegistry.counter("converter.html.route", "engine", engine.tag(), "reason", reason).increment();
+    }
+
+    /**
+     * Prints the chunks of a large document on up to {@code app.html.chunking.max-parallel}
+     * browser pages at once and appends them to one PDF in document order, each as soon as it
+     * and the chunks before it are done. Every chunk goes through browser admission like a
+     * document of its own.
+     */
+    private void renderHtmlChunks(List<Path> chunks, String baseName, Path outputPath, PrintOptions printOptions, Deadline deadline)
+            throws Exception {
+        int parallel = chunkingMaxParallel > 0 ? chunkingMaxParallel : browserAdmission.permits();
+        Semaphore slots = new Semaphore(Math.max(1, parallel), true);
+        List<Future<CachedPdf>> parts = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            Path chunk = chunks.get(i);
+            Path chunkPdf = tempFiles.allocate(baseName + "-part" + i + ".pdf");
+            parts.add(submitPart(() -> renderHtmlChunk(chunk, chunkPdf, printOptions, slots, deadline), () -> {
+                tempFiles.release(chunk);
+                tempFiles.release(chunkPdf);
+            }));
+        }
+        LOGGER.info("Rendering HTML in {} chunks, {} at a time", chunks.size(), parallel);
+
+        stitch(parts, outputPath, stageMetrics.timer(StageMetrics.STITCH, "html"), deadline);
+        LOGGER.info("HTML to PDF completed from {} chunks. Output: {}", chunks.size(), outputPath);
+    }
+
+    /**
+     * Runs a part of a split conversion on the part executor. A part cancelled before it starts
+     * never runs to release its files, so notStarted does that instead; exactly one of the two
+     * happens.
+     */
+    private Future<CachedPdf> submitPart(Callable<CachedPdf> part, Runnable notStarted) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<CachedPdf> task = new FutureTask<>(() -> claimed.compareAndSet(false, true) ? part.call() : null) {
+            @Override
+            protected void done() {
+                if (isCancelled() && claimed.compareAndSet(false, true)) {
+                    notStarted.run();
+                }
+            }
+        };
+        partExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Appends the parts to one PDF in order, each as soon as it and the parts before it are
+     * done, and releases or cancels whatever is left when one of them fails.
+     */
+    private void stitch(List<Future<CachedPdf>> parts, Path outputPath, Timer stitchTimer, Deadline deadline) throws Exception {
+        int appended = 0;
+        try (PdfMerger merger = new PdfMerger()) {
+            for (Future<CachedPdf> part : parts) {
+                CachedPdf pdf = join(part, deadline);
+                try {
+                    merger.append(pdf);
+                } finally {
+                    // The merger releases the part on close, even when appending it failed
+                    appended++;
+                }
+            }
+            long start = System.nanoTime();
+            try (OutputStream out = Files.newOutputStream(outputPath)) {
+                merger.writeTo(out);
+            }
+            stitchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            // Parts after a failure are not needed any more
+            for (Future<CachedPdf> part : parts.subList(appended, parts.size())) {
+                if (!part.cancel(true) && part.state() == Future.State.SUCCESS) {
+                    part.resultNow().release();
+                }
+            }
+        }
+    }
+
+    private CachedPdf renderHtmlChunk(Path chunk, Path chunkPdf, PrintOptions printOptions, Semaphore slots, Deadline deadline)
+            throws Exception {
+        try {
+            acquire(slots, deadline);
+            try {
+                browserGuard.run(deadline, chunkPdf, false, null, null,
+                        path -> playwrightEngine.renderPdf(chunk, path, printOptions, deadline.remainingMs()));
+            } finally {
+                slots.release();
+            }
+            return CachedPdf.ofFile(chunkPdf).withRelease(() -> tempFiles.release(chunkPdf));
+        } catch (Exception e) {
+            tempFiles.release(chunkPdf);
+            throw e;
+        } finally {
+            tempFiles.release(chunk);
+        }
+    }
+
+    /**
+     * Waits for a parallel-part slot within the deadline.
+     */
+    private static void acquire(Semaphore slots, Deadline deadline) throws InterruptedException {
+        if (!slots.tryAcquire(deadline.remainingMs(), TimeUnit.MILLISECONDS)) {
+            throw deadline.exceeded("part-wait");
+        }
+    }
+
+    private static CachedPdf join(Future<CachedPdf> part, Deadline deadline) throws Exception {
+        try {
+            return deadline.isBounded() ? part.get(deadline.remainingMs(), TimeUnit.MILLISECONDS) : part.get();
+        } catch (TimeoutException e) {
+            throw deadline.exceeded(StageMetrics.STITCH);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (partExecutor != null) {
+            partExecutor.shutdownNow();
+        }
+        if (attemptExecutor != null) {
+            attemptExecutor.shutdownNow();
+        }
+    }
+
+    private static void copyToFile(InputStreamSource source, Path target) throws IOException {
+        if (source instanceof MultipartFile multipartFile) {
+            // Lets the container move its spooled part file instead of copying it
+            multipartFile.transferTo(target);
+            return;
+        }
+        try (InputStream in = source.getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.Locale;
+
+/**
+ * What the {@link ConversionScheduler} needs to know about a conversion before it runs: the
+ * engine and size class pick its lane, priority orders it within the lane and the tenant is
+ * checked against the per-tenant concurrency cap.
+ */
+public record ConversionTicket(Engine engine, SizeClass sizeClass, Priority priority, String tenant) {
+
+    public static final String DEFAULT_TENANT = "anonymous";
+
+    public enum Engine {
+        OFFICE, BROWSER
+    }
+
+    public enum SizeClass {
+        SMALL, LARGE
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW;
+
+        /**
+         * Parses the {@code X-Priority} header; missing or unknown values are normal priority.
+         */
+        public static Priority parse(String header) {
+            if (header == null || header.isBlank()) {
+                return NORMAL;
+            }
+            try {
+                return valueOf(header.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return NORMAL;
+            }
+        }
+    }
+
+    /**
+     * Lane name used in metric tags, e.g. {@code office-large}.
+     */
+    public String lane() {
+        return lane(engine, sizeClass);
+    }
+
+    static String lane(Engine engine, SizeClass sizeClass) {
+        return engine.name().toLowerCase(Locale.ROOT) + '-' + sizeClass.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,97 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which a conversion must be done, set when the request arrives and
+ * passed down to every stage that can wait: the scheduler queue, engine admission, the engine
+ * itself and the stitching of parts. Stages wait for at most what is left of it.
+ */
+public final class Deadline {
+
+    /**
+     * Optional request header with the client's own budget in milliseconds; it can only
+     * shorten {@code app.deadline.default-ms}.
+     */
+    public static final String HEADER = "X-Deadline-Ms";
+
+    private static final Deadline NONE = new Deadline(0, 0);
+
+    private final long budgetMs;
+    private final long expiresAt;
+
+    private Deadline(long budgetMs, long expiresAt) {
+        this.budgetMs = budgetMs;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * No deadline: every stage waits as long as its own timeout allows.
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * A deadline budgetMs from now, none when budgetMs is not positive.
+     */
+    public static Deadline after(long budgetMs) {
+        return budgetMs > 0 ? new Deadline(budgetMs, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs)) : NONE;
+    }
+
+    /**
+     * The deadline of a request: the configured default, shortened by a valid {@link #HEADER}.
+     */
+    public static Deadline forRequest(long defaultMs, String header) {
+        long budgetMs = defaultMs;
+        if (header != null && !header.isBlank()) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0 && (budgetMs <= 0 || requested < budgetMs)) {
+                    budgetMs = requested;
+                }
+            } catch (NumberFormatException e) {
+                // Ignored like an unknown X-Priority
+            }
+        }
+        return after(budgetMs);
+    }
+
+    public boolean isBounded() {
+        return this != NONE;
+    }
+
+    /**
+     * Milliseconds left, 0 once expired, {@link Long#MAX_VALUE} without a deadline.
+     */
+    public long remainingMs() {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    public boolean expired() {
+        return isBounded() && expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * The shorter of timeoutMs and the time left.
+     */
+    public long bound(long timeoutMs) {
+        return Math.min(timeoutMs, remainingMs());
+    }
+
+    /**
+     * Fails the conversion when the deadline passed before the given stage.
+     */
+    public void check(String stage) {
+        if (expired()) {
+            throw exceeded(stage);
+        }
+    }
+
+    public DeadlineExceededException exceeded(String stage) {
+        return new DeadlineExceededException(stage, budgetMs);
+    }
+}
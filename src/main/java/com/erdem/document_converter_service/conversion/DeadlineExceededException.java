@@ -0,0 +1,19 @@
+package com.erdem.document_converter_service.conversion;
+
+/**
+ * Thrown when a conversion runs out of its {@link Deadline}. Answered with 504; the engine may
+ * still finish the abandoned work, its result is discarded.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage, long budgetMs) {
+        super("Conversion did not finish within " + budgetMs + "ms (" + stage + ")");
+        this.stage = stage;
+    }
+
+    public String stage() {
+        return stage;
+    }
+}
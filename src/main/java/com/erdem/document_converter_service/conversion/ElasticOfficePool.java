@@ -0,0 +1,313 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jodconverter.local.office.LocalOfficeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * A LibreOffice pool that grows and shrinks between {@code app.office.pool.min-instances} and
+ * {@code max-instances}, replacing the fixed port list of the JODConverter starter.
+ * <p>
+ * Each instance is its own single-port office manager. A scaler thread adds an instance while
+ * conversions queue at admission or the average latency is above the scale-up threshold, and
+ * stops instances that have been idle for {@code idle-timeout-ms}. New instances are warmed
+ * with a throw-away conversion before they take traffic. Instead of restarting after a fixed
+ * number of tasks, an instance is recycled (replacement first, then drain) when its soffice
+ * process grows past {@code max-rss-bytes} or its latency degrades.
+ * <p>
+ * Disabled by default; when enabled, set {@code jodconverter.local.enabled=false} so the
+ * starter's own fixed pool is not started as well.
+ */
+@Component
+public class ElasticOfficePool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticOfficePool.class);
+
+    @Value("${app.office.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.office.pool.min-instances:1}")
+    private int minInstances;
+
+    @Value("${app.office.pool.max-instances:4}")
+    private int maxInstances;
+
+    @Value("${app.office.pool.base-port:2002}")
+    private int basePort;
+
+    @Value("${app.office.pool.scale-interval-ms:2000}")
+    private long scaleIntervalMs;
+
+    // Average conversion latency above which another instance is added even without queueing
+    @Value("${app.office.pool.scale-up-latency-ms:15000}")
+    private long scaleUpLatencyMs;
+
+    @Value("${app.office.pool.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    // 0 = no memory based restarts
+    @Value("${app.office.pool.max-rss-bytes:1073741824}")
+    private long maxRssBytes;
+
+    // An instance this many times slower than the pool average is recycled
+    @Value("${app.office.pool.restart-latency-factor:3.0}")
+    private double restartLatencyFactor;
+
+    @Value("${jodconverter.local.office-home:}")
+    private String officeHome;
+
+    @Value("${jodconverter.local.task-execution-timeout:60000}")
+    private long taskExecutionTimeoutMs;
+
+    @Value("${jodconverter.local.task-queue-timeout:30000}")
+    private long taskQueueTimeoutMs;
+
+    @Value("${jodconverter.local.process-timeout:120000}")
+    private long processTimeoutMs;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<OfficeInstance> instances = new CopyOnWriteArrayList<>();
+    private volatile AdmissionController admission;
+    private ScheduledExecutorService scaler;
+    private Path workDir;
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        if (minInstances < 1 || maxInstances < minInstances) {
+            throw new IllegalStateException("app.office.pool requires 1 <= min-instances <= max-instances");
+        }
+        workDir = Files.createTempDirectory("office-pool-");
+        for (OfficeInstance.State state : OfficeInstance.State.values()) {
+            Gauge.builder("converter.office.instances", this, p -> p.count(state)).tag("state", state.name().toLowerCase(Locale.ROOT)).register(meterRegistry);
+        }
+
+        for (int i = 0; i < minInstances; i++) {
+            startInstance("min");
+        }
+        scaler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "office-pool-scaler");
+            t.setDaemon(true);
+            return t;
+        });
+        scaler.scheduleWithFixedDelay(this::scale, scaleIntervalMs, scaleIntervalMs, TimeUnit.MILLISECONDS);
+        LOGGER.info("Elastic office pool started: min={} max={} active={}", minInstances, maxInstances, count(OfficeInstance.State.ACTIVE));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Number of instances taking conversions right now.
+     */
+    public int activeInstances() {
+        return count(OfficeInstance.State.ACTIVE);
+    }
+
+    /**
+     * Links the pool to the office admission controller: the pool reads its queue depth and
+     * keeps its permits equal to the number of active instances.
+     */
+    void attach(AdmissionController admission) {
+        this.admission = admission;
+        admission.resize(Math.max(1, activeInstances()));
+    }
+
+    /**
+     * Leases the least busy active instance. Callers hold an admission permit, so there is
+     * at most about one conversion per instance.
+     *
+     * @throws AdmissionRejectedException (503) when no instance is active, e.g. none started
+     */
+    OfficeLease lease() {
+        while (true) {
+            OfficeInstance instance = instances.stream()
+                    .filter(i -> i.state() == OfficeInstance.State.ACTIVE)
+                    .min(Comparator.comparingInt(OfficeInstance::inFlight))
+                    .orElse(null);
+            if (instance == null) {
+                meterRegistry.counter("converter.admission.rejected", "engine", "office", "reason", "no-instance").increment();
+                throw new AdmissionRejectedException("office", "No LibreOffice instance available. Try again later.",
+                        HttpStatus.SERVICE_UNAVAILABLE, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(scaleIntervalMs)));
+            }
+            OfficeLease lease = instance.tryLease();
+            if (lease != null) {
+                return lease;
+            }
+            // Drained since it was picked, try the next one
+        }
+    }
+
+    private void scale() {
+        try {
+            stopDrained();
+            recycleUnhealthy();
+
+            int active = activeInstances();
+            int waiting = admission != null ? admission.waiting() : 0;
+            double avgLatency = averageLatencyMs();
+            if (active < maxInstances && (waiting > 0 || avgLatency > scaleUpLatencyMs)) {
+                LOGGER.info("Scaling office pool up: active={} waiting={} avgLatency={}ms", active, waiting, Math.round(avgLatency));
+                startInstance("up");
+            } else if (active > minInstances && waiting == 0) {
+                instances.stream()
+                        .filter(i -> i.state() == OfficeInstance.State.ACTIVE && i.idleSinceMs() > idleTimeoutMs)
+                        .max(Comparator.comparingLong(OfficeInstance::idleSinceMs))
+                        .ifPresent(idle -> {
+                            LOGGER.info("Scaling office pool down: stopping idle instance on port {}", idle.port());
+                            meterRegistry.counter("converter.office.scale", "direction", "down").increment();
+                            idle.drain();
+                            syncAdmission();
+                        });
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Office pool scaling failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces instances whose soffice grew too large or that got much slower than the rest.
+     * The replacement is warmed first, so capacity never drops below what it was.
+     */
+    private void recycleUnhealthy() {
+        double poolLatency = averageLatencyMs();
+        for (OfficeInstance instance : instances) {
+            if (instance.state() != OfficeInstance.State.ACTIVE) {
+                continue;
+            }
+            String reason = null;
+            if (maxRssBytes > 0 && instance.residentBytes().map(rss -> rss > maxRssBytes).orElse(false)) {
+                reason = "memory";
+            } else if (instance.completed() >= 10 && activeInstances() > 1 && poolLatency > 0
+                    && instance.avgLatencyMs() > poolLatency * restartLatencyFactor) {
+                reason = "latency";
+            }
+            if (reason != null) {
+                LOGGER.info("Recycling office instance on port {} ({})", instance.port(), reason);
+                meterRegistry.counter("converter.office.restarts", "reason", reason).increment();
+                if (startInstance("replace")) {
+                    instance.drain();
+                    syncAdmission();
+                }
+            }
+        }
+    }
+
+    private void stopDrained() {
+        for (OfficeInstance instance : instances) {
+            if (instance.state() == OfficeInstance.State.DRAINING && instance.inFlight() == 0) {
+                instance.stop();
+                instances.remove(instance);
+                LOGGER.info("Office instance on port {} stopped after {} conversions", instance.port(), instance.completed());
+            }
+        }
+    }
+
+    private boolean startInstance(String reason) {
+        int port = freePort();
+        LocalOfficeManager.Builder builder = LocalOfficeManager.builder()
+                .portNumbers(port)
+                .disableOpengl(true)
+                // Restarts are driven by memory and latency, not by a task count
+                .maxTasksPerProcess(Integer.MAX_VALUE)
+                .taskExecutionTimeout(taskExecutionTimeoutMs)
+                .taskQueueTimeout(taskQueueTimeoutMs)
+                .processTimeout(processTimeoutMs);
+        if (!officeHome.isBlank()) {
+            builder.officeHome(officeHome);
+        }
+        OfficeInstance instance = new OfficeInstance(port, builder.build(), stageMetrics);
+        instances.add(instance);
+        try {
+            long start = System.nanoTime();
+            instance.startAndWarm(workDir);
+            LOGGER.info("Office instance on port {} ready in {}ms", port, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            meterRegistry.counter("converter.office.scale", "direction", reason.equals("replace") ? "replace" : "up").increment();
+            syncAdmission();
+            return true;
+        } catch (Exception e) {
+            LOGGER.error("Failed to start office instance on port {}: {}", port, e.getMessage(), e);
+            instance.stop();
+            instances.remove(instance);
+            return false;
+        }
+    }
+
+    private int freePort() {
+        List<Integer> used = new ArrayList<>();
+        instances.forEach(i -> used.add(i.port()));
+        int port = basePort;
+        while (used.contains(port)) {
+            port++;
+        }
+        return port;
+    }
+
+    private void syncAdmission() {
+        AdmissionController current = admission;
+        if (current != null) {
+            current.resize(Math.max(1, activeInstances()));
+        }
+    }
+
+    private double averageLatencyMs() {
+        return instances.stream()
+                .filter(i -> i.state() == OfficeInstance.State.ACTIVE && i.completed() > 0)
+                .mapToDouble(OfficeInstance::avgLatencyMs)
+                .average()
+                .orElse(0);
+    }
+
+    private int count(OfficeInstance.State state) {
+        return (int) instances.stream().filter(i -> i.state() == state).count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scaler != null) {
+            scaler.shutdownNow();
+        }
+        for (OfficeInstance instance : instances) {
+            instance.stop();
+        }
+        instances.clear();
+        if (workDir != null) {
+            try {
+                FileSystemUtils.deleteRecursively(workDir);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete office pool directory {}: {}", workDir, e.getMessage());
+            }
+        }
+    }
+}
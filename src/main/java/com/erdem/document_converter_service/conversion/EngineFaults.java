@@ -0,0 +1,44 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.concurrent.TimeoutException;
+
+import com.microsoft.playwright.PlaywrightException;
+import com.sun.star.lang.DisposedException;
+
+/**
+ * Tells the failures that say something about an engine's health from those caused by the
+ * input or by the caller giving up. Only the former count towards the circuit breaker: a
+ * corrupt workbook or a request with a short deadline must not open it for everyone else.
+ */
+final class EngineFaults {
+
+    private EngineFaults() {
+    }
+
+    /**
+     * A task that hit JODConverter's task execution timeout, or a LibreOffice process that
+     * died or dropped its connection during the call.
+     */
+    static boolean office(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof DisposedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A Playwright timeout or a crashed, closed or disconnected browser. A busy page pool is
+     * load, not a fault, and admission already bounds it.
+     */
+    static boolean browser(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PlaywrightException || cause instanceof TimeoutException
+                    || cause instanceof IllegalStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,411 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs calls on one conversion engine under its admission controller and circuit breaker,
+ * within the request's {@link Deadline}.
+ * <p>
+ * Without a deadline or hedging a call runs on the caller's thread, as before. Otherwise it
+ * runs as an attempt on its own virtual thread, writing to its own file, and the caller waits
+ * for at most the time left: an attempt still running at the deadline is abandoned. The caller
+ * fails right away, but the attempt keeps its permit until the engine returns, at the latest at
+ * the engine's own timeout, so admission keeps counting a busy engine; its result is deleted
+ * when it finishes. Only failures {@code engineFault} accepts count towards the breaker;
+ * abandoned or interrupted calls and bad input end their breaker call neutrally. With hedging,
+ * an attempt that outlives the engine's recent {@code percentile} latency gets a second one if
+ * a permit is free right away; the pool hands it to another LibreOffice process or the
+ * least-loaded browser shard, and whichever finishes first wins.
+ */
+final class EngineGuard {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngineGuard.class);
+
+    // Recent successful call latencies the hedge delay is computed from
+    private static final int LATENCY_SAMPLES = 256;
+
+    @FunctionalInterface
+    interface Attempt {
+        void run(Path outputPath) throws Exception;
+    }
+
+    private final String engine;
+    private final AdmissionController admission;
+    private final CircuitBreaker breaker;
+    private final Predicate<Throwable> engineFault;
+    private final TempFileManager tempFiles;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean hedging;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayMs;
+    private final int hedgeMinSamples;
+
+    private final long[] latenciesMs = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyNext;
+
+    EngineGuard(String engine, AdmissionController admission, CircuitBreaker breaker, Predicate<Throwable> engineFault,
+            TempFileManager tempFiles, ExecutorService executor, MeterRegistry meterRegistry, boolean hedging, double hedgePercentile,
+            long hedgeMinDelayMs, int hedgeMinSamples) {
+        this.engine = engine;
+        this.admission = admission;
+        this.breaker = breaker;
+        this.engineFault = engineFault;
+        this.tempFiles = tempFiles;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.hedging = hedging;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeMinSamples = hedgeMinSamples;
+    }
+
+    AdmissionController admission() {
+        return admission;
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    /**
+     * Waits for an engine permit within the deadline, after failing fast on an open breaker.
+     */
+    AdmissionController.Permit admit(Deadline deadline, Timer admissionTimer) throws InterruptedException {
+        breaker.checkAvailable();
+        long start = System.nanoTime();
+        AdmissionController.Permit permit = admission.acquire(deadline);
+        if (admissionTimer != null) {
+            admissionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return permit;
+    }
+
+    /**
+     * Runs a call that cannot be redirected to a file of its own, e.g. one writing to a stream,
+     * and closes the permit once the call has returned. Without a deadline the call runs on the
+     * caller's thread. Otherwise it runs on an attempt thread and the caller waits for at most the
+     * time left; a call still running then is abandoned but keeps the permit.
+     *
+     * @param abandoned drops what an abandoned call wrote, once it has returned. It runs only
+     *                  when this throws {@link DeadlineExceededException} or
+     *                  {@link InterruptedException}, and then the caller must not clean up itself.
+     */
+    void runInline(Deadline deadline, AdmissionController.Permit permit, Attempt call, Runnable abandoned) throws Exception {
+        CircuitBreaker.Call breakerCall;
+        try {
+            breakerCall = breaker.begin();
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        if (!deadline.isBounded()) {
+            try (permit) {
+                runCall(call, breakerCall);
+            } catch (Exception e) {
+                throw handOver(e, abandoned);
+            } finally {
+                breakerCall.close();
+            }
+            return;
+        }
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                Exception failure = null;
+                try (permit) {
+                    if (!done.isDone()) {
+                        runCall(call, breakerCall);
+                    }
+                } catch (Exception e) {
+                    failure = e;
+                } finally {
+                    breakerCall.close();
+                }
+                if (!(failure == null ? done.complete(null) : done.completeExceptionally(failure))) {
+                    abandoned.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            breakerCall.close();
+            permit.close();
+            throw e;
+        }
+
+        Exception stop;
+        try {
+            done.get(deadline.remainingMs(), TimeUnit.MILLISECONDS);
+            return;
+        } catch (ExecutionException e) {
+            throw handOver(unwrap(e), abandoned);
+        } catch (TimeoutException e) {
+            stop = deadline.exceeded(engine);
+        } catch (InterruptedException e) {
+            stop = e;
+        }
+        if (!done.completeExceptionally(stop)) {
+            // Finished between the timeout and now
+            if (stop instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (done.state() == Future.State.FAILED && done.exceptionNow() instanceof Exception failure) {
+                throw handOver(failure, abandoned);
+            }
+            return;
+        }
+        LOGGER.warn("Abandoned inline {} conversion at its deadline", engine);
+        throw stop;
+    }
+
+    private void runCall(Attempt call, CircuitBreaker.Call breakerCall) throws Exception {
+        long start = System.nanoTime();
+        try {
+            call.run(null);
+        } catch (Exception e) {
+            countFault(breakerCall, e);
+            throw e;
+        }
+        breakerCall.success();
+        recordLatency(System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the failure towards the breaker if it is the engine's fault; otherwise the call
+     * ends neutrally when it is closed.
+     */
+    private void countFault(CircuitBreaker.Call breakerCall, Exception failure) {
+        if (engineFault.test(failure)) {
+            breakerCall.failure();
+        }
+    }
+
+    /**
+     * Keeps the contract of {@link #runInline} for a call that finished with one of the
+     * exceptions the caller does not clean up after.
+     */
+    private static Exception handOver(Exception failure, Runnable abandoned) {
+        if (failure instanceof DeadlineExceededException || failure instanceof InterruptedException) {
+            abandoned.run();
+        }
+        return failure;
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        return e.getCause() instanceof Exception cause ? cause : e;
+    }
+
+    /**
+     * Admits and runs the call, writing outputPath.
+     *
+     * @param hedgeable   whether the call may be hedged; parts of a split document are not, their
+     *                    siblings already keep the engine busy
+     * @param engineTimer records the time from admission until the call is done, may be null
+     */
+    void run(Deadline deadline, Path outputPath, boolean hedgeable, Timer admissionTimer, Timer engineTimer, Attempt call)
+            throws Exception {
+        AdmissionController.Permit permit = admit(deadline, admissionTimer);
+        long start = System.nanoTime();
+        CircuitBreaker.Call breakerCall;
+        try {
+            breakerCall = breaker.begin();
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        long hedgeDelayMs = hedging && hedgeable ? hedgeDelayMs() : -1;
+        if (!deadline.isBounded() && hedgeDelayMs < 0) {
+            try (permit) {
+                call.run(outputPath);
+                breakerCall.success();
+                recordLatency(System.nanoTime() - start);
+            } catch (Exception e) {
+                countFault(breakerCall, e);
+                throw e;
+            } finally {
+                breakerCall.close();
+            }
+            record(engineTimer, start);
+            return;
+        }
+
+        Race race = new Race(outputPath);
+        race.launch(permit, breakerCall, call);
+        Path winner;
+        try {
+            winner = race.await(hedgeDelayMs >= 0 ? deadline.bound(hedgeDelayMs) : deadline.remainingMs());
+            if (winner == null && hedgeDelayMs >= 0 && !deadline.expired()) {
+                race.hedge(call);
+                winner = race.await(deadline.remainingMs());
+            }
+        } catch (InterruptedException e) {
+            // E.g. a sibling part failed; nobody is waiting for the result any more
+            race.abandon();
+            throw e;
+        }
+        if (winner == null) {
+            race.abandon();
+            LOGGER.warn("Abandoned {} conversion at its deadline after {} attempt(s)", engine, race.calls.size());
+            throw deadline.exceeded(engine);
+        }
+        Files.move(winner, outputPath, StandardCopyOption.REPLACE_EXISTING);
+        tempFiles.release(winner);
+        record(engineTimer, start);
+    }
+
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * How long an attempt may run before it is hedged, -1 while there are too few samples.
+     */
+    private synchronized long hedgeDelayMs() {
+        if (latencyCount < hedgeMinSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latenciesMs, latencyCount);
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(hedgePercentile * sorted.length) - 1);
+        return Math.max(hedgeMinDelayMs, sorted[Math.max(0, index)]);
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latenciesMs[latencyNext] = TimeUnit.NANOSECONDS.toMillis(nanos);
+        latencyNext = (latencyNext + 1) % latenciesMs.length;
+        latencyCount = Math.min(latencyCount + 1, latenciesMs.length);
+    }
+
+    /**
+     * The attempts of one call; the first to succeed wins, later ones are deleted when they finish.
+     */
+    private final class Race {
+        private final String baseName;
+        private final CompletableFuture<Path> winner = new CompletableFuture<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final List<CircuitBreaker.Call> calls = new CopyOnWriteArrayList<>();
+        private volatile boolean abandoned;
+
+        Race(Path outputPath) {
+            this.baseName = outputPath.getFileName().toString().replaceFirst("\\.pdf$", "");
+        }
+
+        void launch(AdmissionController.Permit permit, CircuitBreaker.Call breakerCall, Attempt call) {
+            int number = calls.size();
+            Path attemptPath = tempFiles.allocate(baseName + "-try" + number + ".pdf");
+            calls.add(breakerCall);
+            running.incrementAndGet();
+            try {
+                executor.execute(() -> attempt(number, attemptPath, permit, breakerCall, call));
+            } catch (RuntimeException e) {
+                running.decrementAndGet();
+                breakerCall.close();
+                permit.close();
+                tempFiles.release(attemptPath);
+                throw e;
+            }
+        }
+
+        /**
+         * Starts a second attempt if the breaker is closed and a permit is free right now;
+         * hedges never queue, so they cannot add to an overload.
+         */
+        void hedge(Attempt call) {
+            if (winner.isDone() || breaker.state() != CircuitBreaker.State.CLOSED) {
+                return;
+            }
+            AdmissionController.Permit permit = admission.tryAcquire();
+            if (permit == null) {
+                meterRegistry.counter("converter.hedge", "engine", engine, "result", "no-permit").increment();
+                return;
+            }
+            CircuitBreaker.Call breakerCall;
+            try {
+                breakerCall = breaker.begin();
+            } catch (RuntimeException e) {
+                permit.close();
+                return;
+            }
+            meterRegistry.counter("converter.hedge", "engine", engine, "result", "started").increment();
+            launch(permit, breakerCall, call);
+        }
+
+        private void attempt(int number, Path attemptPath, AdmissionController.Permit permit, CircuitBreaker.Call breakerCall,
+                Attempt call) {
+            Exception failure = null;
+            try (permit) {
+                if (abandoned) {
+                    throw new InterruptedException("abandoned before it started");
+                }
+                long start = System.nanoTime();
+                call.run(attemptPath);
+                breakerCall.success();
+                recordLatency(System.nanoTime() - start);
+            } catch (Exception e) {
+                countFault(breakerCall, e);
+                failure = e;
+            } finally {
+                breakerCall.close();
+            }
+            if (failure == null && winner.complete(attemptPath)) {
+                if (number > 0) {
+                    meterRegistry.counter("converter.hedge", "engine", engine, "result", "won").increment();
+                }
+                running.decrementAndGet();
+                return;
+            }
+            tempFiles.release(attemptPath);
+            if (running.decrementAndGet() == 0 && failure != null) {
+                // Every attempt failed; a no-op when one already won or the call was abandoned
+                winner.completeExceptionally(failure);
+            }
+        }
+
+        /**
+         * The winning attempt's file, or null when none succeeded within timeoutMs.
+         */
+        Path await(long timeoutMs) throws Exception {
+            try {
+                return timeoutMs == Long.MAX_VALUE ? winner.get() : winner.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        /**
+         * Gives up on the attempts. Those not started yet do not run; running ones keep their
+         * permits and breaker calls until the engine returns, and their results are deleted then.
+         */
+        void abandon() {
+            abandoned = true;
+            if (!winner.completeExceptionally(new IllegalStateException("abandoned")) && winner.state() == Future.State.SUCCESS) {
+                // Won between the timeout and now, too late for the caller
+                tempFiles.release(winner.resultNow());
+            }
+        }
+    }
+}
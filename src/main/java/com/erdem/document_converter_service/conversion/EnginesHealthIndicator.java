@@ -0,0 +1,27 @@
+package com.erdem.document_converter_service.conversion;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker state per engine under {@code engines} in {@code /actuator/health}. The
+ * status stays UP while a breaker is open: the other engine still converts, and restarting
+ * or draining the replica would not close the breaker any sooner.
+ */
+@Component
+public class EnginesHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Override
+    public Health health() {
+        Health.Builder health = Health.up();
+        for (CircuitBreaker breaker : conversionService.breakers()) {
+            health.withDetail(breaker.engine(), breaker.details());
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.erdem.document_converter_service.conversion;
+
+import org.jodconverter.core.office.OfficeContext;
+import org.jodconverter.local.filter.Filter;
+import org.jodconverter.local.filter.FilterChain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.star.beans.XPropertySet;
+import com.sun.star.lang.XComponent;
+import com.sun.star.sheet.XSpreadsheetDocument;
+import com.sun.star.uno.UnoRuntime;
+import com.sun.star.view.PaperOrientation;
+
+/**
+ * Asks for landscape printer orientation on the document, for LibreOffice versions that read
+ * it during PDF export. Stateless and shared.
+ */
+final class LandscapeExportFilter implements Filter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LandscapeExportFilter.class);
+
+    static final LandscapeExportFilter INSTANCE = new LandscapeExportFilter();
+
+    private LandscapeExportFilter() {
+    }
+
+    @Override
+    public void doFilter(OfficeContext context, XComponent document, FilterChain chain) throws Exception {
+        try {
+            XSpreadsheetDocument spreadsheet = UnoRuntime.queryInterface(XSpreadsheetDocument.class, document);
+            XPropertySet documentProperties = spreadsheet != null ? UnoRuntime.queryInterface(XPropertySet.class, spreadsheet) : null;
+            if (documentProperties != null) {
+                // Some LibreOffice versions support this property
+                documentProperties.setPropertyValue("PrinterOrientation", PaperOrientation.LANDSCAPE);
+            }
+        } catch (com.sun.star.uno.Exception e) {
+            LOGGER.debug("PrinterOrientation not available: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not apply PDF export orientation: {}", e.getMessage());
+        }
+
+        chain.doFilter(context, document);
+    }
+}
@@ -0,0 +1,196 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Renders simple .xlsx workbooks to PDF inside the JVM, without LibreOffice: cell values as
+ * Excel caches them, number formats, fonts, fills, borders, column widths, row heights,
+ * single-row merges and the page setup (paper, orientation, margins, scale, fit to page,
+ * gridlines, horizontal centering).
+ * <p>
+ * Each sheet is streamed twice with SAX, once by {@link SheetScan} for the layout and once by
+ * {@link SheetPrinter} to draw it, so memory stays flat however many rows there are.
+ * Anything else a workbook may contain (charts, images, pivot tables, macros, conditional
+ * formatting, print areas, page breaks, ...) raises an {@link UnsupportedWorkbookException}
+ * and the workbook goes to LibreOffice.
+ */
+@Component
+public class NativeExcelRenderer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NativeExcelRenderer.class);
+
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    // Package parts that LibreOffice renders and this renderer does not
+    private static final String[][] UNSUPPORTED_PARTS = {
+            {"/xl/charts/", "chart"},
+            {"/xl/chartsheets/", "chart"},
+            {"/xl/pivottables/", "pivot-table"},
+            {"/xl/pivotcache/", "pivot-table"},
+            {"/xl/externallinks/", "external-link"},
+            {"/xl/slicers/", "slicer"},
+            {"/xl/embeddings/", "embedded-object"},
+            {"/xl/dialogsheets/", "dialog-sheet"},
+            {"/xl/macrosheets/", "macro"},
+            {"/xl/vbaproject", "macro"}};
+
+    @Value("${app.office.native.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.office.native.max-bytes:16777216}")
+    private long maxBytes;
+
+    // Liberation TrueType fonts; empty = the standard PDF fonts only (Windows-1252 text)
+    @Value("${app.office.native.font-directory:/usr/share/fonts/truetype/liberation}")
+    private String fontDirectory;
+
+    @Value("${app.office.native.max-conditional-formats:0}")
+    private int maxConditionalFormats;
+
+    // 0 = one render per CPU; renders are CPU-bound
+    @Value("${app.office.native.max-concurrent:0}")
+    private int maxConcurrent;
+
+    private record Workbook(boolean date1904, List<String> sheets) {
+    }
+
+    private Path fonts;
+    private Semaphore slots;
+
+    @PostConstruct
+    public void init() {
+        slots = new Semaphore(maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors(), true);
+        if (!enabled) {
+            return;
+        }
+        fonts = !fontDirectory.isBlank() && Files.isDirectory(Paths.get(fontDirectory)) ? Paths.get(fontDirectory) : null;
+        LOGGER.info("Native Excel renderer enabled: maxBytes={} fonts={} maxConcurrent={}", maxBytes, fonts, slots.availablePermits());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Renders the workbook, or throws {@link UnsupportedWorkbookException} when LibreOffice has
+     * to do it. Nothing is written to {@code outputPath} in that case.
+     */
+    public void renderPdf(Path inputPath, Path outputPath, boolean landscape, boolean fitToPage) throws Exception {
+        if (Files.size(inputPath) > maxBytes) {
+            throw new UnsupportedWorkbookException("size");
+        }
+        slots.acquire();
+        try (OPCPackage pkg = OPCPackage.open(inputPath.toFile(), PackageAccess.READ);
+             PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+            checkParts(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            Workbook workbook = readWorkbook(reader);
+            StylesTable styles = reader.getStylesTable();
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            // Fixed locale so the output does not depend on the host
+            DataFormatter formatter = new DataFormatter(Locale.US);
+            PdfFonts pdfFonts = new PdfFonts(document, fonts);
+
+            for (String sheet : workbook.sheets()) {
+                SheetScan scan = new SheetScan(styles, maxConditionalFormats);
+                parse(reader.getSheet(sheet), scan);
+                if (scan.lastRow < 0) {
+                    continue;
+                }
+                parse(reader.getSheet(sheet), new SheetPrinter(document, scan, styles, strings, formatter,
+                        workbook.date1904(), pdfFonts, landscape, fitToPage));
+            }
+            if (document.getNumberOfPages() == 0) {
+                document.addPage(new PDPage(PDRectangle.A4));
+            }
+            document.save(outputPath.toFile());
+        } finally {
+            slots.release();
+        }
+    }
+
+    private static void checkParts(OPCPackage pkg) throws Exception {
+        for (PackagePart part : pkg.getParts()) {
+            String name = part.getPartName().getName().toLowerCase(Locale.ROOT);
+            for (String[] unsupported : UNSUPPORTED_PARTS) {
+                if (name.startsWith(unsupported[0])) {
+                    throw new UnsupportedWorkbookException(unsupported[1]);
+                }
+            }
+            // Legacy VML drawings only carry comments, which are not printed by default
+            if (name.startsWith("/xl/drawings/") && !name.endsWith(".vml") && !name.contains("/_rels/")) {
+                throw new UnsupportedWorkbookException("drawing");
+            }
+        }
+    }
+
+    /**
+     * Relationship ids of the visible sheets in workbook order, and the date system.
+     */
+    private static Workbook readWorkbook(XSSFReader reader) throws Exception {
+        boolean[] date1904 = new boolean[1];
+        List<String> sheets = new ArrayList<>();
+        parse(reader.getWorkbookData(), new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                switch (localName) {
+                    case "workbookPr" -> date1904[0] = SheetScan.flag(attributes, "date1904");
+                    case "sheet" -> {
+                        String state = attributes.getValue("state");
+                        if (state == null || "visible".equals(state)) {
+                            sheets.add(attributes.getValue(RELATIONSHIPS_NS, "id"));
+                        }
+                    }
+                    case "definedName" -> {
+                        String name = attributes.getValue("name");
+                        if ("_xlnm.Print_Area".equals(name) || "_xlnm.Print_Titles".equals(name)) {
+                            throw new UnsupportedWorkbookException("print-area");
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        });
+        return new Workbook(date1904[0], sheets);
+    }
+
+    private static void parse(InputStream data, ContentHandler handler) throws Exception {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(handler);
+        try (InputStream in = data) {
+            xmlReader.parse(new InputSource(in));
+        }
+    }
+}
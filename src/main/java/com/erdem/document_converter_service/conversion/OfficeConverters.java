@@ -0,0 +1,89 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.jodconverter.core.DocumentConverter;
+import org.jodconverter.local.LocalConverter;
+import org.jodconverter.local.filter.DefaultFilterChain;
+import org.jodconverter.local.filter.Filter;
+import org.jodconverter.local.office.LocalOfficeManager;
+
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+/**
+ * One pre-built converter per landscape/fitToPage/{@link PdfProfile} combination. Converters
+ * and filters are immutable and built once at start-up instead of per request; JODConverter
+ * copies the filter chain for every conversion, so a converter can be shared by concurrent
+ * requests.
+ */
+final class OfficeConverters {
+
+    private final LocalOfficeManager officeManager;
+    private final StageMetrics stageMetrics;
+    private final DocumentConverter[] converters = new DocumentConverter[4 * PdfProfile.values().length];
+
+    /**
+     * @param officeManager    null to use defaultConverter for every combination, without
+     *                         filters or export options
+     * @param defaultConverter used when no option is set, it needs no filters
+     */
+    OfficeConverters(LocalOfficeManager officeManager, DocumentConverter defaultConverter, StageMetrics stageMetrics) {
+        this.officeManager = officeManager;
+        this.stageMetrics = stageMetrics;
+        converters[index(false, false, PdfProfile.DEFAULT)] = defaultConverter;
+        for (PdfProfile profile : PdfProfile.values()) {
+            for (boolean landscape : new boolean[] {false, true}) {
+                for (boolean fitToPage : new boolean[] {false, true}) {
+                    if (landscape || fitToPage || profile != PdfProfile.DEFAULT) {
+                        converters[index(landscape, fitToPage, profile)] = build(landscape, fitToPage, profile, null);
+                    }
+                }
+            }
+        }
+    }
+
+    DocumentConverter get(boolean landscape, boolean fitToPage, PdfProfile profile) {
+        return converters[index(landscape, fitToPage, profile)];
+    }
+
+    /**
+     * A converter that exports only the visible sheets from (inclusive) to to (exclusive). Built
+     * per call, as the range differs between conversions; building one is cheap.
+     */
+    DocumentConverter forSheets(boolean landscape, boolean fitToPage, PdfProfile profile, int from, int to) {
+        return build(landscape, fitToPage, profile, new SheetRangeFilter(from, to));
+    }
+
+    private DocumentConverter build(boolean landscape, boolean fitToPage, PdfProfile profile, Filter sheetRange) {
+        if (officeManager == null) {
+            return converters[index(false, false, PdfProfile.DEFAULT)];
+        }
+        List<Filter> filters = new ArrayList<>(3);
+        if (sheetRange != null) {
+            filters.add(sheetRange);
+        }
+        if (landscape || fitToPage) {
+            filters.add(new PageStyleFilter(landscape, fitToPage,
+                    stageMetrics.timer(StageMetrics.OFFICE_FILTERS, "excel", StageMetrics.excelOptions(landscape, fitToPage))));
+        }
+        if (landscape) {
+            filters.add(LandscapeExportFilter.INSTANCE);
+        }
+        DefaultFilterChain filterChain = new DefaultFilterChain(filters.toArray(new Filter[0]));
+        LocalConverter.Builder builder = LocalConverter.builder()
+                .officeManager(officeManager)
+                .filterChain(filterChain);
+        Map<String, Object> filterData = profile.filterData();
+        if (!filterData.isEmpty()) {
+            // Merged into the store properties of the PDF format, next to its FilterName
+            builder.storeProperties(Map.of("FilterData", filterData));
+        }
+        return builder.build();
+    }
+
+    private static int index(boolean landscape, boolean fitToPage, PdfProfile profile) {
+        return profile.ordinal() * 4 + (landscape ? 2 : 0) + (fitToPage ? 1 : 0);
+    }
+}
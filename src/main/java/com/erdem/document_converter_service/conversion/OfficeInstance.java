@@ -0,0 +1,160 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.jodconverter.core.office.OfficeException;
+import org.jodconverter.local.LocalConverter;
+import org.jodconverter.local.office.LocalOfficeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.erdem.document_converter_service.metrics.StageMetrics;
+
+/**
+ * One soffice process of the {@link ElasticOfficePool}: its own single-port office manager,
+ * the pre-built converters on top of it and the load and latency figures the pool scales on.
+ */
+final class OfficeInstance {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OfficeInstance.class);
+
+    // Weight of the latest conversion in the moving average latency
+    private static final double LATENCY_ALPHA = 0.2;
+
+    enum State {
+        WARMING, ACTIVE, DRAINING, STOPPED
+    }
+
+    private final int port;
+    private final LocalOfficeManager officeManager;
+    private final OfficeConverters converters;
+    // The port in soffice's -accept=socket,host=127.0.0.1,port=N,tcpNoDelay=1;urp;... argument
+    private final Pattern acceptPort;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile State state = State.WARMING;
+    private volatile double avgLatencyMs;
+    private volatile long lastUsedAt = System.currentTimeMillis();
+    private volatile long completed;
+
+    OfficeInstance(int port, LocalOfficeManager officeManager, StageMetrics stageMetrics) {
+        this.port = port;
+        this.officeManager = officeManager;
+        this.converters = new OfficeConverters(officeManager, LocalConverter.make(officeManager), stageMetrics);
+        this.acceptPort = Pattern.compile("\\bport=" + port + "\\b");
+    }
+
+    int port() {
+        return port;
+    }
+
+    State state() {
+        return state;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    double avgLatencyMs() {
+        return avgLatencyMs;
+    }
+
+    long completed() {
+        return completed;
+    }
+
+    long idleSinceMs() {
+        return inFlight.get() > 0 ? 0 : System.currentTimeMillis() - lastUsedAt;
+    }
+
+    /**
+     * Starts soffice and runs one throw-away conversion, so the first real request does not pay
+     * for process start-up and the loading of the Calc and PDF export modules.
+     */
+    void startAndWarm(Path workDir) throws OfficeException, IOException {
+        officeManager.start();
+        Path input = workDir.resolve("warmup-" + port + ".csv");
+        Path output = workDir.resolve("warmup-" + port + ".pdf");
+        try {
+            Files.writeString(input, "warm,up\n1,2\n");
+            converters.get(false, false).convert(input.toFile()).to(output.toFile()).execute();
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+        state = State.ACTIVE;
+    }
+
+    /**
+     * Leases the instance, or returns null when it is no longer active. The conversion is
+     * counted before the state is checked, so the pool never stops a drained instance that a
+     * lease has just been handed out on.
+     */
+    OfficeLease tryLease() {
+        inFlight.incrementAndGet();
+        if (state != State.ACTIVE) {
+            inFlight.decrementAndGet();
+            return null;
+        }
+        return new OfficeLease(converters, this);
+    }
+
+    synchronized void completed(long durationNanos, boolean failed) {
+        double ms = durationNanos / 1_000_000.0;
+        avgLatencyMs = completed == 0 ? ms : avgLatencyMs + LATENCY_ALPHA * (ms - avgLatencyMs);
+        completed++;
+        lastUsedAt = System.currentTimeMillis();
+        inFlight.decrementAndGet();
+        if (failed) {
+            LOGGER.debug("Conversion on office instance {} failed after {}ms", port, Math.round(ms));
+        }
+    }
+
+    /**
+     * Stops taking new conversions; the pool stops the process once the running ones are done.
+     */
+    void drain() {
+        state = State.DRAINING;
+    }
+
+    void stop() {
+        state = State.STOPPED;
+        try {
+            officeManager.stop();
+        } catch (OfficeException e) {
+            LOGGER.warn("Failed to stop office instance on port {}: {}", port, e.getMessage());
+        }
+    }
+
+    /**
+     * Resident memory of the soffice process listening on this instance's port, from
+     * /proc on Linux; empty where that is not available.
+     */
+    Optional<Long> residentBytes() {
+        return ProcessHandle.allProcesses()
+                .filter(p -> p.info().commandLine().map(cmd -> cmd.contains("soffice") && acceptPort.matcher(cmd).find()).orElse(false))
+                .map(OfficeInstance::readRss)
+                .flatMap(Optional::stream)
+                .reduce(Long::sum);
+    }
+
+    private static Optional<Long> readRss(ProcessHandle process) {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    String kb = line.substring("VmRSS:".length()).trim().split("\\s+")[0];
+                    return Optional.of(Long.parseLong(kb) * 1024);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // process gone or no procfs
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.erdem.document_converter_service.conversion;
+
+/**
+ * The converters of one LibreOffice instance, held for the duration of a conversion.
+ */
+final class OfficeLease implements AutoCloseable {
+
+    private final OfficeConverters converters;
+    private final OfficeInstance instance;
+    private final long startedAt = System.nanoTime();
+    private boolean failed;
+
+    /**
+     * @param instance the pooled instance to report back to, or null for the fixed office manager
+     */
+    OfficeLease(OfficeConverters converters, OfficeInstance instance) {
+        this.converters = converters;
+        this.instance = instance;
+    }
+
+    OfficeConverters converters() {
+        return converters;
+    }
+
+    void markFailed() {
+        failed = true;
+    }
+
+    @Override
+    public void close() {
+        if (instance != null) {
+            instance.completed(System.nanoTime() - startedAt, failed);
+        }
+    }
+}
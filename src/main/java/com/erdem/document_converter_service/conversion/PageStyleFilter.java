@@ -0,0 +1,106 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jodconverter.core.office.OfficeContext;
+import org.jodconverter.local.filter.Filter;
+import org.jodconverter.local.filter.FilterChain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.star.beans.XMultiPropertySet;
+import com.sun.star.container.XNameAccess;
+import com.sun.star.lang.XComponent;
+import com.sun.star.sheet.XSpreadsheetDocument;
+import com.sun.star.style.XStyle;
+import com.sun.star.style.XStyleFamiliesSupplier;
+import com.sun.star.uno.UnoRuntime;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Applies landscape orientation and fit-to-page scaling to a workbook before PDF export.
+ * <p>
+ * Sheets do not carry these settings, their page styles do, and many sheets usually share a
+ * few styles. So instead of visiting every sheet, the filter walks the PageStyles family once
+ * and rewrites each style that is in use with a single {@link XMultiPropertySet} call. The
+ * number of UNO round-trips depends on the number of page styles, not on the number of sheets.
+ * Stateless, one instance is shared by all conversions with the same options.
+ */
+final class PageStyleFilter implements Filter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageStyleFilter.class);
+
+    // XMultiPropertySet wants property names in alphabetical order
+    private static final String[] SIZE_PROPERTIES = {"Height", "Width"};
+    private static final String[] LANDSCAPE_PROPERTIES = {"Height", "IsLandscape", "Width"};
+    private static final String[] FIT_PROPERTIES = {"ScaleToPages"};
+    private static final String[] LANDSCAPE_FIT_PROPERTIES = {"Height", "IsLandscape", "ScaleToPages", "Width"};
+
+    private final boolean landscape;
+    private final boolean fitToPage;
+    private final Timer timer;
+
+    PageStyleFilter(boolean landscape, boolean fitToPage, Timer timer) {
+        this.landscape = landscape;
+        this.fitToPage = fitToPage;
+        this.timer = timer;
+    }
+
+    @Override
+    public void doFilter(OfficeContext context, XComponent document, FilterChain chain) throws Exception {
+        long start = System.nanoTime();
+        try {
+            XSpreadsheetDocument spreadsheet = UnoRuntime.queryInterface(XSpreadsheetDocument.class, document);
+            if (spreadsheet != null) {
+                int updated = applyToPageStyles(spreadsheet);
+                LOGGER.debug("Applied page settings to {} page styles: landscape={}, fitToPage={}", updated, landscape, fitToPage);
+            } else {
+                LOGGER.warn("Document is not a spreadsheet, skipping page property modifications");
+            }
+        } catch (com.sun.star.uno.Exception | RuntimeException e) {
+            // Don't throw - let conversion continue even if properties fail
+            LOGGER.error("Failed to apply UNO page properties: {}", e.getMessage(), e);
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        chain.doFilter(context, document);
+    }
+
+    private int applyToPageStyles(XSpreadsheetDocument spreadsheet) throws com.sun.star.uno.Exception {
+        XStyleFamiliesSupplier families = UnoRuntime.queryInterface(XStyleFamiliesSupplier.class, spreadsheet);
+        XNameAccess pageStyles = UnoRuntime.queryInterface(XNameAccess.class, families.getStyleFamilies().getByName("PageStyles"));
+
+        int updated = 0;
+        for (String styleName : pageStyles.getElementNames()) {
+            Object style = pageStyles.getByName(styleName);
+            if (!UnoRuntime.queryInterface(XStyle.class, style).isInUse()) {
+                continue;
+            }
+            apply(UnoRuntime.queryInterface(XMultiPropertySet.class, style));
+            updated++;
+        }
+        return updated;
+    }
+
+    private void apply(XMultiPropertySet style) throws com.sun.star.uno.Exception {
+        if (!landscape) {
+            // ScaleToPages = 1 means fit all content to 1 page
+            style.setPropertyValues(FIT_PROPERTIES, new Object[] {(short) 1});
+            return;
+        }
+
+        // LibreOffice does not swap Width and Height when IsLandscape is set, the PDF export
+        // only comes out landscape when the dimensions are swapped as well
+        Object[] size = style.getPropertyValues(SIZE_PROPERTIES);
+        int height = (Integer) size[0];
+        int width = (Integer) size[1];
+        int newHeight = Math.min(width, height);
+        int newWidth = Math.max(width, height);
+
+        if (fitToPage) {
+            style.setPropertyValues(LANDSCAPE_FIT_PROPERTIES, new Object[] {newHeight, Boolean.TRUE, (short) 1, newWidth});
+        } else {
+            style.setPropertyValues(LANDSCAPE_PROPERTIES, new Object[] {newHeight, Boolean.TRUE, newWidth});
+        }
+    }
+}
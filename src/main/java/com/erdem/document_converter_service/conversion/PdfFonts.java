@@ -0,0 +1,79 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+
+/**
+ * PDF fonts for cell text, loaded once per document. Workbook fonts map to the Liberation
+ * sans, serif or mono family (subset-embedded from the font directory), or to the standard
+ * PDF fonts when the directory does not have them, which only cover Windows-1252 text.
+ */
+final class PdfFonts {
+
+    private static final String[] FAMILIES = {"Sans", "Serif", "Mono"};
+    private static final String[] VARIANTS = {"Regular", "Bold", "Italic", "BoldItalic"};
+    private static final Standard14Fonts.FontName[][] STANDARD = {
+            {Standard14Fonts.FontName.HELVETICA, Standard14Fonts.FontName.HELVETICA_BOLD,
+                    Standard14Fonts.FontName.HELVETICA_OBLIQUE, Standard14Fonts.FontName.HELVETICA_BOLD_OBLIQUE},
+            {Standard14Fonts.FontName.TIMES_ROMAN, Standard14Fonts.FontName.TIMES_BOLD,
+                    Standard14Fonts.FontName.TIMES_ITALIC, Standard14Fonts.FontName.TIMES_BOLD_ITALIC},
+            {Standard14Fonts.FontName.COURIER, Standard14Fonts.FontName.COURIER_BOLD,
+                    Standard14Fonts.FontName.COURIER_OBLIQUE, Standard14Fonts.FontName.COURIER_BOLD_OBLIQUE}};
+
+    private final PDDocument document;
+    private final Path directory;
+    private final Map<Integer, PDFont> loaded = new HashMap<>();
+
+    /**
+     * @param directory holds LiberationSans-Regular.ttf and friends, or null
+     */
+    PdfFonts(PDDocument document, Path directory) {
+        this.document = document;
+        this.directory = directory;
+    }
+
+    PDFont get(XSSFFont font) throws IOException {
+        int family = family(font.getFontName());
+        int variant = (font.getBold() ? 1 : 0) + (font.getItalic() ? 2 : 0);
+        int key = family * VARIANTS.length + variant;
+        PDFont pdfFont = loaded.get(key);
+        if (pdfFont == null) {
+            pdfFont = load(family, variant);
+            loaded.put(key, pdfFont);
+        }
+        return pdfFont;
+    }
+
+    private PDFont load(int family, int variant) throws IOException {
+        if (directory != null) {
+            Path file = directory.resolve("Liberation" + FAMILIES[family] + "-" + VARIANTS[variant] + ".ttf");
+            if (Files.isRegularFile(file)) {
+                return PDType0Font.load(document, file.toFile());
+            }
+        }
+        return new PDType1Font(STANDARD[family][variant]);
+    }
+
+    private static int family(String name) {
+        String lower = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        if (lower.contains("courier") || lower.contains("consolas") || lower.contains("mono") || lower.contains("console")) {
+            return 2;
+        }
+        if (lower.contains("times") || lower.contains("cambria") || lower.contains("georgia") || lower.contains("garamond")
+                || (lower.contains("serif") && !lower.contains("sans"))) {
+            return 1;
+        }
+        return 0;
+    }
+}
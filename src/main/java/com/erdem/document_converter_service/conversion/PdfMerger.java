@@ -0,0 +1,76 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+
+/**
+ * Appends PDFs to a single document as they become available. The destination keeps its
+ * scratch data in temp files, so merging many large parts does not grow the heap.
+ * Source documents stay open until the merged document has been written, so the output is
+ * buffered: PDFBox writes the cross-reference table last and cannot stream a document that is
+ * still growing. Appended PDFs are released by {@link #close()}, including one whose append
+ * failed.
+ */
+public final class PdfMerger implements Closeable {
+
+    private final PDFMergerUtility merger = new PDFMergerUtility();
+    private final PDDocument destination = new PDDocument(IOUtils.createTempFileOnlyStreamCache());
+    private final List<PDDocument> sources = new ArrayList<>();
+    private final List<CachedPdf> appended = new ArrayList<>();
+
+    public void append(CachedPdf pdf) throws IOException {
+        appended.add(pdf);
+        PDDocument source = pdf.inMemory()
+                ? Loader.loadPDF(pdf.bytes())
+                : Loader.loadPDF(new RandomAccessReadBufferedFile(pdf.path().toFile()));
+        sources.add(source);
+        merger.appendDocument(destination, source);
+    }
+
+    /**
+     * Whether the PDF was handed to {@link #append}, and so is released by {@link #close()}.
+     */
+    public boolean holds(CachedPdf pdf) {
+        return appended.contains(pdf);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        destination.save(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        try {
+            destination.close();
+        } catch (IOException e) {
+            failure = e;
+        }
+        for (PDDocument source : sources) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        appended.forEach(CachedPdf::release);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.color.PDICCBased;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Applies a {@link PdfProfile} to a rendered PDF in place.
+ * <p>
+ * Recompression, for engines that do not apply the profile themselves: images larger than
+ * the page at the profile's resolution are downsampled, and images are re-encoded as JPEG
+ * (or losslessly) when that makes them smaller. The document is loaded with a temp-file
+ * stream cache, so only the image being re-encoded is decoded in memory, and it is written
+ * with compressed object streams.
+ * <p>
+ * Linearization runs {@code app.pdf.linearize-command} (qpdf) on the result, as neither
+ * LibreOffice nor PDFBox writes linearized files. Both steps are best effort: on failure the
+ * PDF is served as it was rendered.
+ */
+@Component
+public class PdfOptimizer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PdfOptimizer.class);
+
+    // qpdf exits with 3 when it succeeded with warnings
+    private static final int QPDF_WARNINGS = 3;
+
+    // Empty = no linearization
+    @Value("${app.pdf.linearize-command:qpdf}")
+    private String linearizeCommand;
+
+    @Value("${app.pdf.linearize-timeout-ms:30000}")
+    private long linearizeTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile boolean linearizeAvailable = true;
+
+    /**
+     * @param recompress whether images are recompressed, false for output the engine already
+     *                   produced for the profile
+     */
+    void apply(Path pdf, PdfProfile profile, boolean recompress) throws InterruptedException {
+        if (profile == PdfProfile.DEFAULT) {
+            return;
+        }
+        if (recompress) {
+            Path optimized = pdf.resolveSibling(pdf.getFileName() + ".optimized");
+            try {
+                recompress(pdf, optimized, profile);
+                Files.move(optimized, pdf, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                failed("recompress", pdf, e);
+            } finally {
+                deleteQuietly(optimized);
+            }
+        }
+        if (profile.linearize() && linearizeAvailable && !linearizeCommand.isBlank()) {
+            linearize(pdf);
+        }
+    }
+
+    private static void recompress(Path input, Path output, PdfProfile profile) throws IOException {
+        try (PDDocument document = Loader.loadPDF(input.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            Map<COSBase, PDImageXObject> images = new HashMap<>();
+            Set<COSBase> forms = new HashSet<>();
+            for (PDPage page : document.getPages()) {
+                PDRectangle box = page.getMediaBox();
+                double maxPixels = profile.maxImageDpi() > 0
+                        ? Math.max(box.getWidth(), box.getHeight()) / 72.0 * profile.maxImageDpi()
+                        : Double.MAX_VALUE;
+                recompress(document, page.getResources(), profile, maxPixels, images, forms);
+            }
+            document.save(output.toFile(), CompressParameters.DEFAULT_COMPRESSION);
+        }
+    }
+
+    /**
+     * Replaces the images of the resources and, recursively, of their form XObjects. Images
+     * shared between pages are re-encoded once.
+     */
+    private static void recompress(PDDocument document, PDResources resources, PdfProfile profile, double maxPixels,
+            Map<COSBase, PDImageXObject> images, Set<COSBase> forms) throws IOException {
+        if (resources == null) {
+            return;
+        }
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDFormXObject form) {
+                if (forms.add(form.getCOSObject())) {
+                    recompress(document, form.getResources(), profile, maxPixels, images, forms);
+                }
+            } else if (xObject instanceof PDImageXObject image) {
+                PDImageXObject replacement = images.get(image.getCOSObject());
+                if (replacement == null) {
+                    replacement = recompress(document, image, profile, maxPixels);
+                    images.put(image.getCOSObject(), replacement);
+                }
+                if (replacement != image) {
+                    resources.put(name, replacement);
+                }
+            }
+        }
+    }
+
+    private static PDImageXObject recompress(PDDocument document, PDImageXObject image, PdfProfile profile, double maxPixels)
+            throws IOException {
+        // Masked, stencil and low bit depth images are left alone, they are rarely large
+        if (image.isStencil() || image.getSoftMask() != null || image.getCOSObject().containsKey(COSName.MASK)
+                || image.getBitsPerComponent() < 8) {
+            return image;
+        }
+        PDColorSpace colorSpace = image.getColorSpace();
+        int components = colorSpace.getNumberOfComponents();
+        if (!(colorSpace instanceof PDDeviceGray || colorSpace instanceof PDDeviceRGB || colorSpace instanceof PDICCBased)
+                || (components != 1 && components != 3)) {
+            return image;
+        }
+        double factor = Math.min(1, maxPixels / Math.max(image.getWidth(), image.getHeight()));
+        List<COSName> filters = image.getStream().getFilters();
+        boolean jpeg = filters.contains(COSName.DCT_DECODE);
+        if (factor >= 1 && (jpeg || profile.lossless())) {
+            return image;
+        }
+        BufferedImage source = image.getImage();
+        BufferedImage scaled = factor < 1 ? scale(source, factor, components == 1) : source;
+        PDImageXObject candidate = profile.lossless()
+                ? LosslessFactory.createFromImage(document, scaled)
+                : JPEGFactory.createFromImage(document, scaled, profile.jpegQuality() / 100f);
+        return candidate.getCOSObject().getLength() < image.getCOSObject().getLength() ? candidate : image;
+    }
+
+    /**
+     * Downsamples in steps of at most half, which keeps bilinear filtering from aliasing.
+     */
+    private static BufferedImage scale(BufferedImage source, double factor, boolean gray) {
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage current = source;
+        while (current.getWidth() > targetWidth || current.getHeight() > targetHeight) {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height, gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private void linearize(Path pdf) throws InterruptedException {
+        Path linearized = pdf.resolveSibling(pdf.getFileName() + ".linearized");
+        try {
+            Process process = new ProcessBuilder(linearizeCommand, "--linearize", pdf.toString(), linearized.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(linearizeTimeoutMs, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("timed out after " + linearizeTimeoutMs + "ms");
+            }
+            int exitCode = process.exitValue();
+            if (exitCode != 0 && exitCode != QPDF_WARNINGS) {
+                throw new IOException("exit code " + exitCode);
+            }
+            Files.move(linearized, pdf, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Cannot run program")) {
+                // Not installed: do not try again for every conversion
+                linearizeAvailable = false;
+                LOGGER.warn("Linearization disabled, {} is not available: {}", linearizeCommand, e.getMessage());
+                return;
+            }
+            failed("linearize", pdf, e);
+        } finally {
+            deleteQuietly(linearized);
+        }
+    }
+
+    private void failed(String step, Path pdf, Exception e) {
+        meterRegistry.counter("converter.pdf.optimize.failed", "step", step).increment();
+        LOGGER.warn("PDF {} failed for {}, serving it as rendered: {}", step, pdf.getFileName(), e.toString());
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.erdem.document_converter_service.html.PrintOptions;
+
+/**
+ * Output profile a conversion asks for with the {@value #PARAM} parameter. LibreOffice
+ * applies it through the PDF export FilterData; for the other engines the
+ * {@link PdfOptimizer} recompresses the images of the rendered PDF, and Chromium prints with
+ * the profile's {@link PrintOptions}. Fonts are subset by every engine already. PDF/A is only
+ * produced by LibreOffice, so {@code ARCHIVE} is refused for HTML.
+ */
+public enum PdfProfile {
+    // Output as the engines produce it without options
+    DEFAULT(0, 0, false, false, false, PrintOptions.DEFAULT),
+    // On-screen reading: JPEG images at quality 60 and at most 150 dpi, linearized for fast web view
+    SCREEN(60, 150, false, true, false, PrintOptions.DEFAULT),
+    // Office printing: JPEG images at quality 85 and at most 300 dpi, HTML at actual size without backgrounds
+    PRINT(85, 300, false, false, false, new PrintOptions(false, 1.0)),
+    // Long-term storage: lossless images at full resolution, PDF/A-2b from LibreOffice
+    ARCHIVE(0, 0, true, false, true, PrintOptions.DEFAULT);
+
+    public static final String PARAM = "profile";
+
+    private final int jpegQuality;
+    private final int maxImageDpi;
+    private final boolean lossless;
+    private final boolean linearize;
+    private final boolean pdfA;
+    private final PrintOptions printOptions;
+
+    PdfProfile(int jpegQuality, int maxImageDpi, boolean lossless, boolean linearize, boolean pdfA, PrintOptions printOptions) {
+        this.jpegQuality = jpegQuality;
+        this.maxImageDpi = maxImageDpi;
+        this.lossless = lossless;
+        this.linearize = linearize;
+        this.pdfA = pdfA;
+        this.printOptions = printOptions;
+    }
+
+    /**
+     * Parses the parameter value; null when it is missing, so the configured default applies.
+     *
+     * @throws IllegalArgumentException for an unknown profile
+     */
+    public static PdfProfile parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(PARAM + " must be one of " + names());
+        }
+    }
+
+    /**
+     * Like {@link #parse}, for an HTML conversion.
+     *
+     * @throws IllegalArgumentException also for a PDF/A profile, which only LibreOffice produces
+     */
+    public static PdfProfile parseHtml(String value) {
+        PdfProfile profile = parse(value);
+        if (profile != null && profile.pdfA) {
+            throw new IllegalArgumentException(PARAM + " " + profile.tag() + " is only available for Excel conversions");
+        }
+        return profile;
+    }
+
+    public static String names() {
+        return Arrays.stream(values()).map(PdfProfile::tag).collect(Collectors.joining(", "));
+    }
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * JPEG quality in percent, 0 when images are kept or compressed losslessly.
+     */
+    int jpegQuality() {
+        return jpegQuality;
+    }
+
+    /**
+     * Resolution images are downsampled to, 0 to keep them as they are.
+     */
+    int maxImageDpi() {
+        return maxImageDpi;
+    }
+
+    boolean lossless() {
+        return lossless;
+    }
+
+    boolean linearize() {
+        return linearize;
+    }
+
+    /**
+     * Whether the output is PDF/A, which only LibreOffice produces.
+     */
+    public boolean pdfA() {
+        return pdfA;
+    }
+
+    PrintOptions printOptions() {
+        return printOptions;
+    }
+
+    /**
+     * FilterData of the LibreOffice PDF export, empty for {@code DEFAULT}.
+     */
+    Map<String, Object> filterData() {
+        Map<String, Object> filterData = new LinkedHashMap<>();
+        if (this == DEFAULT) {
+            return filterData;
+        }
+        filterData.put("UseLosslessCompression", lossless);
+        if (!lossless) {
+            filterData.put("Quality", jpegQuality);
+        }
+        filterData.put("ReduceImageResolution", maxImageDpi > 0);
+        if (maxImageDpi > 0) {
+            filterData.put("MaxImageResolution", maxImageDpi);
+        }
+        if (pdfA) {
+            // PDF/A-2b embeds every font, the standard 14 included
+            filterData.put("SelectPdfVersion", 2);
+            filterData.put("EmbedStandardFonts", true);
+        }
+        return filterData;
+    }
+}
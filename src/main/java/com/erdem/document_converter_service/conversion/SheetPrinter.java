@@ -0,0 +1,601 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Second streaming pass over a worksheet: draws each row straight into the PDF as it is
+ * parsed, so memory does not grow with the number of rows.
+ * <p>
+ * Columns are split into bands that fit the printable width and rows into bands that fit the
+ * printable height, like the print layout of LibreOffice. All pages of one row band are
+ * written at the same time and pages are ordered down, then over once the sheet is done.
+ * Pages without any cell content are left out, unless the sheet prints gridlines, which
+ * Excel prints for the whole used range.
+ */
+final class SheetPrinter extends DefaultHandler {
+
+    private static final float PADDING = 2f;
+    private static final float LINE_SPACING = 1.2f;
+    private static final float GRID_WIDTH = 0.25f;
+    // Excel's smallest print scale; a sheet that only fits below it goes to LibreOffice, which paginates
+    private static final double MIN_SCALE = 0.1;
+
+    private record Cell(int col, XSSFCellStyle style, String text, boolean numeric, boolean bool) {
+    }
+
+    private final PDDocument document;
+    private final StylesTable styles;
+    private final SharedStrings strings;
+    private final DataFormatter formatter;
+    private final boolean date1904;
+    private final PdfFonts fonts;
+
+    private final int lastRow;
+    private final int lastCol;
+    private final float defaultRowHeight;
+    private final boolean gridLines;
+    private final Map<Integer, List<int[]>> mergesByRow = new HashMap<>();
+    private List<int[]> rowMerges = List.of();
+
+    private final PDRectangle pageSize;
+    private final float scale;
+    private final float originX;
+    private final float originY;
+    private final float bandHeight;
+    private final int[] bandOf;
+    private final float[] colX;
+    private final float[] colWidth;
+    private final float[] bandOffset;
+    private final List<List<PDPage>> pagesByBand = new ArrayList<>();
+
+    // Current row band; pages and streams are opened on first use
+    private final PDPage[] pages;
+    private final PDPageContentStream[] streams;
+    private float y;
+
+    // Parse state
+    private int nextRow;
+    private boolean done;
+    private int row = -1;
+    private float rowHeight;
+    private final List<Cell> cells = new ArrayList<>();
+    private final boolean[] occupied;
+    private int cellCol;
+    private String cellType;
+    private int cellStyle;
+    private boolean hasValue;
+    private boolean hasFormula;
+    private boolean inValue;
+    private boolean inInline;
+    private boolean inPhonetic;
+    private boolean inText;
+    private final StringBuilder value = new StringBuilder();
+
+    SheetPrinter(PDDocument document, SheetScan scan, StylesTable styles, SharedStrings strings, DataFormatter formatter,
+            boolean date1904, PdfFonts fonts, boolean landscape, boolean fitToPage) throws UnsupportedWorkbookException {
+        this.document = document;
+        this.styles = styles;
+        this.strings = strings;
+        this.formatter = formatter;
+        this.date1904 = date1904;
+        this.fonts = fonts;
+        this.lastRow = scan.lastRow;
+        this.lastCol = Math.max(scan.lastCol, 0);
+        this.defaultRowHeight = (float) scan.defaultRowHeight;
+        this.gridLines = scan.gridLines;
+        for (int[] merge : scan.merges) {
+            mergesByRow.computeIfAbsent(merge[0], r -> new ArrayList<>()).add(merge);
+        }
+
+        PDRectangle paper = paper(scan.paperSize);
+        pageSize = landscape || scan.landscape ? new PDRectangle(paper.getHeight(), paper.getWidth()) : paper;
+        float printableWidth = pageSize.getWidth() - (float) (scan.marginLeft + scan.marginRight) * 72;
+        float printableHeight = pageSize.getHeight() - (float) (scan.marginTop + scan.marginBottom) * 72;
+        if (printableWidth < 72 || printableHeight < 72) {
+            throw new UnsupportedWorkbookException("page-setup");
+        }
+        double usedWidth = Math.max(scan.usedWidth(), 1);
+        double usedHeight = Math.max(scan.usedHeight, 1);
+        double s;
+        if (fitToPage) {
+            s = Math.min(1, Math.min(printableWidth / usedWidth, printableHeight / usedHeight));
+        } else if (scan.sheetFitToPage) {
+            s = 1;
+            if (scan.fitToWidth == 1) {
+                s = Math.min(s, printableWidth / usedWidth);
+            }
+            if (scan.fitToHeight == 1) {
+                s = Math.min(s, printableHeight / usedHeight);
+            }
+        } else {
+            s = scan.scale / 100.0;
+        }
+        if (s < MIN_SCALE) {
+            throw new UnsupportedWorkbookException("fit-scale");
+        }
+        scale = (float) s;
+        originX = (float) scan.marginLeft * 72;
+        originY = pageSize.getHeight() - (float) scan.marginTop * 72;
+        bandHeight = printableHeight / scale;
+
+        float bandWidth = printableWidth / scale;
+        bandOf = new int[lastCol + 1];
+        colX = new float[lastCol + 1];
+        colWidth = new float[lastCol + 1];
+        List<Float> widths = new ArrayList<>();
+        float x = 0;
+        for (int col = 0; col <= lastCol; col++) {
+            colWidth[col] = (float) scan.columnWidth(col);
+            if (colWidth[col] <= 0) {
+                bandOf[col] = -1;
+                continue;
+            }
+            if (widths.isEmpty() || (x > 0 && x + colWidth[col] > bandWidth)) {
+                if (!widths.isEmpty()) {
+                    widths.set(widths.size() - 1, x);
+                }
+                widths.add(0f);
+                x = 0;
+            }
+            bandOf[col] = widths.size() - 1;
+            colX[col] = x;
+            x += colWidth[col];
+        }
+        if (widths.isEmpty()) {
+            widths.add(0f);
+        }
+        widths.set(widths.size() - 1, x);
+        bandOffset = new float[widths.size()];
+        for (int band = 0; band < bandOffset.length; band++) {
+            bandOffset[band] = scan.horizontalCentered ? Math.max(0, (bandWidth - widths.get(band)) / 2) : 0;
+            pagesByBand.add(new ArrayList<>());
+        }
+        pages = new PDPage[bandOffset.length];
+        streams = new PDPageContentStream[bandOffset.length];
+        occupied = new boolean[lastCol + 1];
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (done) {
+            return;
+        }
+        switch (localName) {
+            case "row" -> {
+                row = (int) SheetScan.number(attributes, "r", row + 2) - 1;
+                if (row > lastRow) {
+                    done = true;
+                    return;
+                }
+                rowHeight = SheetScan.flag(attributes, "hidden") ? 0
+                        : (float) SheetScan.number(attributes, "ht", defaultRowHeight);
+                cells.clear();
+                cellCol = -1;
+            }
+            case "c" -> {
+                cellCol = SheetScan.column(attributes.getValue("r"), cellCol + 1);
+                cellType = attributes.getValue("t");
+                String style = attributes.getValue("s");
+                cellStyle = style == null ? 0 : Integer.parseInt(style);
+                hasValue = false;
+                hasFormula = false;
+            }
+            case "v" -> {
+                inValue = true;
+                hasValue = true;
+                value.setLength(0);
+            }
+            case "f" -> hasFormula = true;
+            case "is" -> {
+                inInline = true;
+                hasValue = true;
+                value.setLength(0);
+            }
+            case "rPh" -> inPhonetic = true;
+            case "t" -> inText = inInline && !inPhonetic;
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (done) {
+            return;
+        }
+        switch (localName) {
+            case "v" -> inValue = false;
+            case "t" -> inText = false;
+            case "rPh" -> inPhonetic = false;
+            case "is" -> inInline = false;
+            case "c" -> endCell();
+            case "row" -> {
+                try {
+                    while (nextRow < row) {
+                        printRow(nextRow++, defaultRowHeight, List.of());
+                    }
+                    printRow(row, rowHeight, cells);
+                    nextRow = row + 1;
+                } catch (IOException e) {
+                    throw new SAXException(e);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inValue || inText) {
+            value.append(ch, start, length);
+        }
+    }
+
+    /**
+     * Closes the last row band and adds the pages of the sheet to the document, down, then over.
+     */
+    @Override
+    public void endDocument() throws SAXException {
+        try {
+            endBand();
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        for (List<PDPage> band : pagesByBand) {
+            for (PDPage page : band) {
+                document.addPage(page);
+            }
+        }
+    }
+
+    private void endCell() throws UnsupportedWorkbookException {
+        if (cellCol > lastCol) {
+            return;
+        }
+        if (hasFormula && !hasValue) {
+            throw new UnsupportedWorkbookException("uncached-formula");
+        }
+        XSSFCellStyle style = styles.getStyleAt(cellStyle);
+        if (!hasValue) {
+            cells.add(new Cell(cellCol, style, null, false, false));
+            return;
+        }
+        String raw = value.toString();
+        Cell cell;
+        if (cellType == null || "n".equals(cellType)) {
+            double number;
+            try {
+                number = Double.parseDouble(raw);
+            } catch (NumberFormatException e) {
+                throw new UnsupportedWorkbookException("cell-value");
+            }
+            String text = style == null ? formatter.formatRawCellContents(number, 0, "General", date1904)
+                    : formatter.formatRawCellContents(number, style.getDataFormat(), style.getDataFormatString(), date1904);
+            cell = new Cell(cellCol, style, text, true, false);
+        } else {
+            cell = switch (cellType) {
+                case "s" -> new Cell(cellCol, style, strings.getItemAt(Integer.parseInt(raw.trim())).getString(), false, false);
+                case "inlineStr", "str", "e" -> new Cell(cellCol, style, raw, false, "e".equals(cellType));
+                case "b" -> new Cell(cellCol, style, "1".equals(raw.trim()) ? "TRUE" : "FALSE", false, true);
+                default -> throw new UnsupportedWorkbookException("cell-type");
+            };
+        }
+        cells.add(cell);
+    }
+
+    private void printRow(int rowIndex, float height, List<Cell> rowCells) throws IOException {
+        if (height <= 0) {
+            return;
+        }
+        if (y > 0 && y + height > bandHeight) {
+            endBand();
+        }
+        rowMerges = mergesByRow.getOrDefault(rowIndex, List.of());
+        for (Cell cell : rowCells) {
+            occupied[cell.col()] = cell.text() != null;
+        }
+        try {
+            if (gridLines) {
+                drawGrid(height);
+            }
+            for (Cell cell : rowCells) {
+                if (bandOf[cell.col()] >= 0 && !covered(cell.col())) {
+                    drawFill(cell, height);
+                }
+            }
+            for (Cell cell : rowCells) {
+                if (bandOf[cell.col()] >= 0) {
+                    drawBorders(cell, height);
+                }
+            }
+            for (Cell cell : rowCells) {
+                if (cell.text() != null && !cell.text().isEmpty() && bandOf[cell.col()] >= 0 && !covered(cell.col())) {
+                    drawText(cell, height);
+                }
+            }
+        } finally {
+            for (Cell cell : rowCells) {
+                occupied[cell.col()] = false;
+            }
+        }
+        y += height;
+    }
+
+    private void drawGrid(float height) throws IOException {
+        for (int band = 0; band < pages.length; band++) {
+            PDPageContentStream stream = stream(band);
+            stream.setStrokingColor(0.75f, 0.75f, 0.75f);
+            stream.setLineWidth(GRID_WIDTH);
+            for (int col = 0; col <= lastCol; col++) {
+                if (bandOf[col] == band) {
+                    stream.addRect(colX[col], -(y + height), colWidth[col], height);
+                }
+            }
+            stream.stroke();
+        }
+    }
+
+    private void drawFill(Cell cell, float height) throws IOException {
+        XSSFCellStyle style = cell.style();
+        if (style == null || style.getFillPattern() != FillPatternType.SOLID_FOREGROUND) {
+            return;
+        }
+        float[] rgb = rgb(style.getFillForegroundColorColor());
+        if (rgb == null) {
+            return;
+        }
+        PDPageContentStream stream = stream(bandOf[cell.col()]);
+        stream.setNonStrokingColor(rgb[0], rgb[1], rgb[2]);
+        stream.addRect(colX[cell.col()], -(y + height), mergedWidth(cell.col()), height);
+        stream.fill();
+    }
+
+    private void drawBorders(Cell cell, float height) throws IOException {
+        XSSFCellStyle style = cell.style();
+        if (style == null) {
+            return;
+        }
+        float left = colX[cell.col()];
+        float right = left + colWidth[cell.col()];
+        float top = -y;
+        float bottom = -(y + height);
+        int band = bandOf[cell.col()];
+        drawLine(band, style.getBorderTop(), style.getTopBorderXSSFColor(), left, top, right, top);
+        drawLine(band, style.getBorderBottom(), style.getBottomBorderXSSFColor(), left, bottom, right, bottom);
+        drawLine(band, style.getBorderLeft(), style.getLeftBorderXSSFColor(), left, top, left, bottom);
+        drawLine(band, style.getBorderRight(), style.getRightBorderXSSFColor(), right, top, right, bottom);
+    }
+
+    private void drawLine(int band, BorderStyle border, XSSFColor color, float x1, float y1, float x2, float y2) throws IOException {
+        if (border == null || border == BorderStyle.NONE) {
+            return;
+        }
+        float[] rgb = rgb(color);
+        PDPageContentStream stream = stream(band);
+        if (rgb == null) {
+            stream.setStrokingColor(0f, 0f, 0f);
+        } else {
+            stream.setStrokingColor(rgb[0], rgb[1], rgb[2]);
+        }
+        stream.setLineWidth(switch (border) {
+            case MEDIUM, MEDIUM_DASHED, MEDIUM_DASH_DOT, MEDIUM_DASH_DOT_DOT, SLANTED_DASH_DOT -> 1f;
+            case THICK, DOUBLE -> 1.5f;
+            default -> 0.5f;
+        });
+        stream.moveTo(x1, y1);
+        stream.lineTo(x2, y2);
+        stream.stroke();
+    }
+
+    private void drawText(Cell cell, float height) throws IOException {
+        XSSFCellStyle style = cell.style();
+        XSSFFont font = style == null ? styles.getFontAt(0) : style.getFont();
+        PDFont pdfFont = fonts.get(font);
+        float size = font.getFontHeight() / 20f;
+        int col = cell.col();
+        int band = bandOf[col];
+        boolean merged = mergeEnd(col) >= 0;
+        float width = mergedWidth(col);
+        float inner = Math.max(width - 2 * PADDING, 1);
+        boolean wrap = style != null && style.getWrapText();
+        HorizontalAlignment align = style == null ? HorizontalAlignment.GENERAL : style.getAlignment();
+        if (align == HorizontalAlignment.GENERAL) {
+            align = cell.numeric() ? HorizontalAlignment.RIGHT : cell.bool() ? HorizontalAlignment.CENTER : HorizontalAlignment.LEFT;
+        }
+
+        List<String> lines;
+        try {
+            if (wrap) {
+                lines = wrap(cell.text(), pdfFont, size, inner);
+            } else {
+                String text = cell.text().replace('\r', ' ').replace('\n', ' ');
+                if (cell.numeric() && textWidth(text, pdfFont, size) > inner) {
+                    text = "#".repeat(Math.max(1, (int) (inner / textWidth("#", pdfFont, size))));
+                }
+                lines = List.of(text);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedWorkbookException("glyphs");
+        }
+
+        // Left aligned text runs on over empty neighbours in the same band, like in Excel
+        float clipLeft = colX[col];
+        float clipWidth = width;
+        if (!wrap && !merged && !cell.numeric() && align == HorizontalAlignment.LEFT) {
+            for (int next = col + 1; next <= lastCol && !occupied[next] && !covered(next)
+                    && (bandOf[next] == band || bandOf[next] < 0); next++) {
+                clipWidth += bandOf[next] < 0 ? 0 : colWidth[next];
+            }
+        }
+
+        PDFontDescriptor descriptor = pdfFont.getFontDescriptor();
+        float ascent = descriptor == null || descriptor.getAscent() == 0 ? 0.8f * size : descriptor.getAscent() / 1000 * size;
+        float descent = descriptor == null || descriptor.getDescent() == 0 ? 0.2f * size : Math.abs(descriptor.getDescent()) / 1000 * size;
+        float lineHeight = size * LINE_SPACING;
+        VerticalAlignment vertical = style == null ? VerticalAlignment.BOTTOM : style.getVerticalAlignment();
+        float baseline = switch (vertical) {
+            case TOP -> PADDING + ascent;
+            case CENTER, JUSTIFY, DISTRIBUTED -> (height - lines.size() * lineHeight) / 2 + (lineHeight - size) / 2 + ascent;
+            default -> height - PADDING - descent - (lines.size() - 1) * lineHeight;
+        };
+
+        PDPageContentStream stream = stream(band);
+        stream.saveGraphicsState();
+        stream.addRect(clipLeft, -(y + height), clipWidth, height);
+        stream.clip();
+        float[] rgb = rgb(font.getXSSFColor());
+        if (rgb == null) {
+            stream.setNonStrokingColor(0f, 0f, 0f);
+        } else {
+            stream.setNonStrokingColor(rgb[0], rgb[1], rgb[2]);
+        }
+        stream.beginText();
+        stream.setFont(pdfFont, size);
+        try {
+            for (String line : lines) {
+                float lineWidth = textWidth(line, pdfFont, size);
+                float x = switch (align) {
+                    case RIGHT -> colX[col] + width - PADDING - lineWidth;
+                    case CENTER, CENTER_SELECTION -> colX[col] + (width - lineWidth) / 2;
+                    default -> colX[col] + PADDING;
+                };
+                stream.setTextMatrix(Matrix.getTranslateInstance(x, -(y + baseline)));
+                stream.showText(line);
+                baseline += lineHeight;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedWorkbookException("glyphs");
+        }
+        stream.endText();
+        stream.restoreGraphicsState();
+    }
+
+    private static List<String> wrap(String text, PDFont font, float size, float width) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String paragraph : text.split("\r?\n", -1)) {
+            StringBuilder line = new StringBuilder();
+            for (String word : paragraph.split(" ", -1)) {
+                String candidate = line.isEmpty() ? word : line + " " + word;
+                if (!line.isEmpty() && textWidth(candidate, font, size) > width) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    line.append(word);
+                } else {
+                    line.setLength(0);
+                    line.append(candidate);
+                }
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static float textWidth(String text, PDFont font, float size) throws IOException {
+        return font.getStringWidth(text) / 1000 * size;
+    }
+
+    /**
+     * Stream of the given column band in the current row band, creating the page on first use.
+     * Drawing uses points of the sheet with the origin at the top left corner of the band.
+     */
+    private PDPageContentStream stream(int band) throws IOException {
+        if (streams[band] == null) {
+            PDPage page = new PDPage(pageSize);
+            PDPageContentStream stream = new PDPageContentStream(document, page);
+            stream.transform(new Matrix(scale, 0, 0, scale, originX + bandOffset[band] * scale, originY));
+            pages[band] = page;
+            streams[band] = stream;
+        }
+        return streams[band];
+    }
+
+    private void endBand() throws IOException {
+        for (int band = 0; band < pages.length; band++) {
+            if (streams[band] != null) {
+                streams[band].close();
+                pagesByBand.get(band).add(pages[band]);
+                streams[band] = null;
+                pages[band] = null;
+            }
+        }
+        y = 0;
+    }
+
+    private int mergeEnd(int col) {
+        for (int[] merge : rowMerges) {
+            if (merge[1] == col) {
+                return merge[2];
+            }
+        }
+        return -1;
+    }
+
+    private boolean covered(int col) {
+        for (int[] merge : rowMerges) {
+            if (col > merge[1] && col <= merge[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private float mergedWidth(int col) {
+        int end = Math.min(mergeEnd(col), lastCol);
+        float width = colWidth[col];
+        for (int next = col + 1; next <= end; next++) {
+            if (bandOf[next] == bandOf[col]) {
+                width += colWidth[next];
+            }
+        }
+        return width;
+    }
+
+    private static float[] rgb(XSSFColor color) {
+        if (color == null || color.isAuto()) {
+            return null;
+        }
+        byte[] rgb = color.getRGBWithTint();
+        if (rgb == null || rgb.length < 3) {
+            return null;
+        }
+        int offset = rgb.length - 3;
+        return new float[] {(rgb[offset] & 0xff) / 255f, (rgb[offset + 1] & 0xff) / 255f, (rgb[offset + 2] & 0xff) / 255f};
+    }
+
+    private static PDRectangle paper(int paperSize) throws UnsupportedWorkbookException {
+        return switch (paperSize) {
+            case 1 -> PDRectangle.LETTER;
+            case 5 -> PDRectangle.LEGAL;
+            case 8 -> PDRectangle.A3;
+            case 9 -> PDRectangle.A4;
+            case 11 -> PDRectangle.A5;
+            default -> throw new UnsupportedWorkbookException("paper-size");
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.erdem.document_converter_service.conversion;
+
+import org.jodconverter.core.office.OfficeContext;
+import org.jodconverter.local.filter.Filter;
+import org.jodconverter.local.filter.FilterChain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.star.beans.XPropertySet;
+import com.sun.star.container.XIndexAccess;
+import com.sun.star.lang.XComponent;
+import com.sun.star.sheet.XSpreadsheetDocument;
+import com.sun.star.uno.UnoRuntime;
+
+/**
+ * Limits the PDF export to a range of the workbook's visible sheets by hiding the others;
+ * Calc leaves hidden sheets out of the export. Hiding rather than deleting keeps formulas
+ * that refer to other sheets intact. Sheets hidden in the workbook itself are not counted.
+ */
+final class SheetRangeFilter implements Filter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SheetRangeFilter.class);
+
+    private final int from;
+    private final int to;
+
+    /**
+     * @param from first visible sheet to export, zero-based
+     * @param to   visible sheet to stop before
+     */
+    SheetRangeFilter(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public void doFilter(OfficeContext context, XComponent document, FilterChain chain) throws Exception {
+        XSpreadsheetDocument spreadsheet = UnoRuntime.queryInterface(XSpreadsheetDocument.class, document);
+        if (spreadsheet == null) {
+            throw new IllegalStateException("Document is not a spreadsheet, cannot export a sheet range");
+        }
+        XIndexAccess sheets = UnoRuntime.queryInterface(XIndexAccess.class, spreadsheet.getSheets());
+        int visible = 0;
+        int count = sheets.getCount();
+        for (int i = 0; i < count; i++) {
+            XPropertySet sheet = UnoRuntime.queryInterface(XPropertySet.class, sheets.getByIndex(i));
+            if (!(Boolean) sheet.getPropertyValue("IsVisible")) {
+                continue;
+            }
+            if (visible < from || visible >= to) {
+                sheet.setPropertyValue("IsVisible", Boolean.FALSE);
+            }
+            visible++;
+        }
+        LOGGER.debug("Exporting visible sheets {} to {} of {}", from, Math.min(to, visible) - 1, visible);
+
+        chain.doFilter(context, document);
+    }
+}
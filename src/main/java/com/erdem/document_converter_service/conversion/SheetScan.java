@@ -0,0 +1,284 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * First streaming pass over a worksheet for the {@link NativeExcelRenderer}: finds the used
+ * range, column widths, the total height of the printed rows, merged cells and the page
+ * setup, and rejects what the renderer does not support. Keeps nothing per row, only the
+ * column definitions and the merged ranges, which are bounded.
+ */
+final class SheetScan extends DefaultHandler {
+
+    static final int MAX_COLUMNS = 16384;
+    private static final int MAX_COLUMN_DEFINITIONS = 1024;
+    private static final int MAX_MERGES = 10000;
+
+    private final StylesTable styles;
+    private final int maxConditionalFormats;
+
+    // Used range: last row and column with a value, a fill or a border
+    int lastRow = -1;
+    int lastCol = -1;
+
+    double defaultRowHeight = 15;
+    private double defaultColWidthPx = 64;
+    private final List<double[]> columns = new ArrayList<>();
+
+    // Height of rows 0..lastRow in points, hidden rows excluded
+    double usedHeight;
+    private double heightDelta;
+    private int lastRowSeen = -1;
+
+    // Merged ranges as {row, firstCol, lastCol}; ranges over several rows are rejected
+    final List<int[]> merges = new ArrayList<>();
+    private int conditionalFormats;
+
+    boolean sheetFitToPage;
+    int fitToWidth = 1;
+    int fitToHeight = 1;
+    int scale = 100;
+    int paperSize = 9;
+    boolean landscape;
+    boolean gridLines;
+    boolean horizontalCentered;
+    double marginLeft = 0.7;
+    double marginRight = 0.7;
+    double marginTop = 0.75;
+    double marginBottom = 0.75;
+
+    private int row = -1;
+    private boolean rowHasContent;
+    private int cellCol;
+    private boolean cellVisible;
+    private boolean inHeaderFooter;
+    private final StringBuilder headerFooterText = new StringBuilder();
+
+    SheetScan(StylesTable styles, int maxConditionalFormats) {
+        this.styles = styles;
+        this.maxConditionalFormats = maxConditionalFormats;
+    }
+
+    /**
+     * Width of a column in points, 0 for a hidden one.
+     */
+    double columnWidth(int col) {
+        for (double[] definition : columns) {
+            if (col >= definition[0] && col <= definition[1]) {
+                return definition[3] > 0 ? 0 : Math.round(definition[2] * 7) * 0.75;
+            }
+        }
+        return defaultColWidthPx * 0.75;
+    }
+
+    double usedWidth() {
+        double width = 0;
+        for (int col = 0; col <= lastCol; col++) {
+            width += columnWidth(col);
+        }
+        return width;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        switch (localName) {
+            case "pageSetUpPr" -> sheetFitToPage = "1".equals(attributes.getValue("fitToPage")) || "true".equals(attributes.getValue("fitToPage"));
+            case "sheetFormatPr" -> {
+                defaultRowHeight = number(attributes, "defaultRowHeight", defaultRowHeight);
+                double defaultColWidth = number(attributes, "defaultColWidth", 0);
+                defaultColWidthPx = defaultColWidth > 0
+                        ? Math.round(defaultColWidth * 7)
+                        : Math.round(number(attributes, "baseColWidth", 8) * 7 + 8);
+            }
+            case "col" -> {
+                if (columns.size() >= MAX_COLUMN_DEFINITIONS) {
+                    throw new UnsupportedWorkbookException("columns");
+                }
+                columns.add(new double[] {
+                        number(attributes, "min", 1) - 1,
+                        number(attributes, "max", 1) - 1,
+                        number(attributes, "width", defaultColWidthPx / 7.0),
+                        flag(attributes, "hidden") ? 1 : 0});
+            }
+            case "row" -> startRow(attributes);
+            case "c" -> {
+                cellCol = column(attributes.getValue("r"), cellCol + 1);
+                cellVisible = hasVisibleStyle(attributes.getValue("s"));
+                if (cellCol >= MAX_COLUMNS) {
+                    throw new UnsupportedWorkbookException("columns");
+                }
+            }
+            case "v", "is" -> cellVisible = true;
+            case "mergeCell" -> addMerge(attributes.getValue("ref"));
+            case "conditionalFormatting" -> {
+                if (++conditionalFormats > maxConditionalFormats) {
+                    throw new UnsupportedWorkbookException("conditional-formatting");
+                }
+            }
+            case "printOptions" -> {
+                gridLines = flag(attributes, "gridLines");
+                horizontalCentered = flag(attributes, "horizontalCentered");
+                if (flag(attributes, "headings") || flag(attributes, "verticalCentered")) {
+                    throw new UnsupportedWorkbookException("page-setup");
+                }
+            }
+            case "pageMargins" -> {
+                marginLeft = number(attributes, "left", marginLeft);
+                marginRight = number(attributes, "right", marginRight);
+                marginTop = number(attributes, "top", marginTop);
+                marginBottom = number(attributes, "bottom", marginBottom);
+            }
+            case "pageSetup" -> {
+                paperSize = (int) number(attributes, "paperSize", paperSize);
+                scale = (int) number(attributes, "scale", scale);
+                fitToWidth = (int) number(attributes, "fitToWidth", fitToWidth);
+                fitToHeight = (int) number(attributes, "fitToHeight", fitToHeight);
+                landscape = "landscape".equals(attributes.getValue("orientation"));
+            }
+            case "oddHeader", "oddFooter", "evenHeader", "evenFooter", "firstHeader", "firstFooter" -> inHeaderFooter = true;
+            case "rowBreaks", "colBreaks" -> throw new UnsupportedWorkbookException("page-breaks");
+            case "drawing" -> throw new UnsupportedWorkbookException("drawing");
+            case "tablePart" -> throw new UnsupportedWorkbookException("table");
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        switch (localName) {
+            case "c" -> {
+                if (cellVisible) {
+                    rowHasContent = true;
+                    lastCol = Math.max(lastCol, cellCol);
+                }
+            }
+            case "row" -> {
+                if (rowHasContent) {
+                    lastRow = row;
+                    usedHeight = defaultRowHeight * (row + 1) + heightDelta;
+                }
+            }
+            case "oddHeader", "oddFooter", "evenHeader", "evenFooter", "firstHeader", "firstFooter" -> {
+                inHeaderFooter = false;
+                if (!headerFooterText.toString().isBlank()) {
+                    throw new UnsupportedWorkbookException("header-footer");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inHeaderFooter) {
+            headerFooterText.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        for (int[] merge : merges) {
+            if (merge[0] <= lastRow) {
+                lastCol = Math.max(lastCol, merge[2]);
+            }
+        }
+        if (fitToWidth > 1 || fitToHeight > 1 || scale < 10 || scale > 400) {
+            throw new UnsupportedWorkbookException("page-setup");
+        }
+    }
+
+    private void startRow(Attributes attributes) {
+        row = (int) number(attributes, "r", row + 2) - 1;
+        rowHasContent = false;
+        cellCol = -1;
+        if (row <= lastRowSeen) {
+            return;
+        }
+        lastRowSeen = row;
+        if (flag(attributes, "hidden")) {
+            heightDelta -= defaultRowHeight;
+        } else if (attributes.getValue("ht") != null) {
+            heightDelta += number(attributes, "ht", defaultRowHeight) - defaultRowHeight;
+        }
+    }
+
+    private void addMerge(String ref) throws UnsupportedWorkbookException {
+        int colon = ref == null ? -1 : ref.indexOf(':');
+        if (colon < 0) {
+            return;
+        }
+        int firstRow = row(ref.substring(0, colon));
+        int lastRowOfMerge = row(ref.substring(colon + 1));
+        if (firstRow != lastRowOfMerge) {
+            throw new UnsupportedWorkbookException("merged-rows");
+        }
+        if (merges.size() >= MAX_MERGES) {
+            throw new UnsupportedWorkbookException("merged-cells");
+        }
+        merges.add(new int[] {firstRow, column(ref.substring(0, colon), 0), column(ref.substring(colon + 1), 0)});
+    }
+
+    private boolean hasVisibleStyle(String styleIndex) {
+        if (styleIndex == null) {
+            return false;
+        }
+        XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(styleIndex));
+        return style != null && (style.getFillPattern() == FillPatternType.SOLID_FOREGROUND
+                || style.getBorderTop() != BorderStyle.NONE || style.getBorderBottom() != BorderStyle.NONE
+                || style.getBorderLeft() != BorderStyle.NONE || style.getBorderRight() != BorderStyle.NONE);
+    }
+
+    /**
+     * Zero-based column of a cell reference like {@code AB12}, or the fallback without one.
+     */
+    static int column(String ref, int fallback) {
+        if (ref == null) {
+            return fallback;
+        }
+        int col = 0;
+        int i = 0;
+        for (; i < ref.length() && Character.isLetter(ref.charAt(i)); i++) {
+            col = col * 26 + (Character.toUpperCase(ref.charAt(i)) - 'A' + 1);
+        }
+        return i == 0 ? fallback : col - 1;
+    }
+
+    /**
+     * Zero-based row of a cell reference like {@code AB12}.
+     */
+    static int row(String ref) {
+        int i = 0;
+        while (i < ref.length() && Character.isLetter(ref.charAt(i))) {
+            i++;
+        }
+        return Integer.parseInt(ref.substring(i)) - 1;
+    }
+
+    static boolean flag(Attributes attributes, String name) {
+        String value = attributes.getValue(name);
+        return "1".equals(value) || "true".equals(value);
+    }
+
+    static double number(Attributes attributes, String name, double fallback) {
+        String value = attributes.getValue(name);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+
+/**
+ * Collects a conversion output in memory and moves it to a temp file only once it grows past
+ * memoryLimit, so typical results never touch the disk.
+ */
+final class SpillableOutputStream extends OutputStream {
+
+    private final TempFileManager tempFiles;
+    private final String spillFileName;
+    private final int memoryLimit;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream(64 * 1024);
+    private OutputStream file;
+    private Path spillPath;
+
+    SpillableOutputStream(TempFileManager tempFiles, String spillFileName, int memoryLimit) {
+        this.tempFiles = tempFiles;
+        this.spillFileName = spillFileName;
+        this.memoryLimit = memoryLimit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target(1).write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        target(len).write(b, off, len);
+    }
+
+    private OutputStream target(int len) throws IOException {
+        if (file == null && memory.size() + len > memoryLimit) {
+            spillPath = tempFiles.allocate(spillFileName);
+            file = new BufferedOutputStream(Files.newOutputStream(spillPath), 64 * 1024);
+            memory.writeTo(file);
+            memory = null;
+        }
+        return file != null ? file : memory;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (file != null) {
+            file.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * The collected output; a spilled one is file-backed and owned by the caller from now on.
+     */
+    CachedPdf toPdf() throws IOException {
+        return spillPath != null ? CachedPdf.ofFile(spillPath) : CachedPdf.ofBytes(memory.toByteArray());
+    }
+
+    /**
+     * Drops the output after a failed conversion.
+     */
+    void discard() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // the file is deleted either way
+        }
+        if (spillPath != null) {
+            tempFiles.release(spillPath);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jodconverter.core.document.DefaultDocumentFormatRegistry;
+import org.jodconverter.core.document.DocumentFormat;
+
+/**
+ * Input format of a workbook handed to LibreOffice as a stream, where there is no file name
+ * for JODConverter to detect it from.
+ */
+final class SpreadsheetFormats {
+
+    // Office Open XML files are ZIP archives, legacy .xls files OLE2 compound documents
+    private static final byte[] ZIP_MAGIC = {0x50, 0x4B, 0x03, 0x04};
+    private static final byte[] OLE2_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+
+    // <sheet .../> elements of xl/workbook.xml, with or without a namespace prefix
+    private static final Pattern SHEET_ELEMENT = Pattern.compile("<(?:\\w+:)?sheet\\b[^>]*>");
+    private static final Pattern HIDDEN_STATE = Pattern.compile("\\bstate\\s*=\\s*[\"'](?:hidden|veryHidden)[\"']");
+    private static final int MAX_WORKBOOK_XML_BYTES = 4 * 1024 * 1024;
+
+    private SpreadsheetFormats() {
+    }
+
+    /**
+     * Detects the format from the magic bytes at the start of the stream, falling back to the
+     * file name. The stream must support mark/reset and is left at its start.
+     */
+    static DocumentFormat detect(InputStream in, String filename) throws IOException {
+        in.mark(OLE2_MAGIC.length);
+        byte[] head = in.readNBytes(OLE2_MAGIC.length);
+        in.reset();
+
+        if (startsWith(head, ZIP_MAGIC)) {
+            return DefaultDocumentFormatRegistry.XLSX;
+        }
+        if (startsWith(head, OLE2_MAGIC)) {
+            return DefaultDocumentFormatRegistry.XLS;
+        }
+        String lower = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".xls") ? DefaultDocumentFormatRegistry.XLS : DefaultDocumentFormatRegistry.XLSX;
+    }
+
+    /**
+     * Number of sheets of an .xlsx workbook not hidden in it, read from {@code xl/workbook.xml}
+     * without unpacking the worksheets themselves. Returns 0 when the stream is not an .xlsx
+     * package.
+     */
+    static int visibleSheetCount(InputStream in) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if ("xl/workbook.xml".equals(entry.getName())) {
+                    String xml = new String(zip.readNBytes(MAX_WORKBOOK_XML_BYTES), StandardCharsets.UTF_8);
+                    Matcher matcher = SHEET_ELEMENT.matcher(xml);
+                    int sheets = 0;
+                    while (matcher.find()) {
+                        if (!HIDDEN_STATE.matcher(matcher.group()).find()) {
+                            sheets++;
+                        }
+                    }
+                    return sheets;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
@@ -0,0 +1,230 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Owns the working directory for conversion inputs and outputs.
+ * <p>
+ * Every allocated file is indexed by its deadline. Callers release files as soon as they are
+ * no longer needed (input after conversion, output once the response is written); a single
+ * sweeper thread deletes whatever was never released once it is older than
+ * {@code app.temp.max-age-seconds}. Orphans left by a previous run are removed on start-up.
+ */
+@Component
+public class TempFileManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TempFileManager.class);
+
+    private static final Set<String> ARTIFACT_EXTENSIONS = Set.of(".pdf", ".xlsx", ".xls", ".html", ".htm", ".tmp");
+
+    // Use Spring Boot's standard 'debug' flag to control cleanup behavior
+    // When debug=false (production), output files will be deleted after serving
+    // When debug=true (dev), output files will be retained
+    @Value("${debug:false}")
+    private boolean debugEnabled;
+
+    // Optional configurable output directory; if set, all temp files will be created here
+    @Value("${app.output.directory:}")
+    private String configuredOutputDirectory;
+
+    @Value("${app.temp.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    @Value("${app.temp.sweep-interval-ms:5000}")
+    private long sweepIntervalMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record Entry(Path path, long deadline, long seq) {
+    }
+
+    private final NavigableSet<Entry> byDeadline = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Entry::deadline).thenComparingLong(Entry::seq));
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Path directory;
+    private boolean ownsDirectory;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = resolveDirectory();
+        Gauge.builder("converter.temp.tracked", entries, Map::size).register(meterRegistry);
+
+        if (!ownsDirectory) {
+            sweepOrphans();
+        }
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "temp-file-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepExpired, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        LOGGER.info("Temp file manager initialized: dir={} maxAge={}s retainOutputs={}", directory, maxAgeSeconds, debugEnabled);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Returns a path for a new temp artifact in the working directory and starts tracking it.
+     */
+    public Path allocate(String fileName) {
+        Path path = directory.resolve(fileName);
+        Entry entry = new Entry(path, System.currentTimeMillis() + maxAgeSeconds * 1000L, sequence.incrementAndGet());
+        Entry previous = entries.put(path, entry);
+        if (previous != null) {
+            byDeadline.remove(previous);
+        }
+        byDeadline.add(entry);
+        return path;
+    }
+
+    /**
+     * Deletes an input or intermediate file right away.
+     */
+    public void release(Path path) {
+        untrack(path);
+        delete(path, "released");
+    }
+
+    /**
+     * Deletes a served output, or keeps it for inspection when debug is enabled.
+     */
+    public void releaseOutput(Path path) {
+        if (debugEnabled) {
+            untrack(path);
+            return;
+        }
+        release(path);
+    }
+
+    private void untrack(Path path) {
+        Entry entry = entries.remove(path);
+        if (entry != null) {
+            byDeadline.remove(entry);
+        }
+    }
+
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : byDeadline) {
+            if (entry.deadline() > now) {
+                break;
+            }
+            if (byDeadline.remove(entry) && entries.remove(entry.path(), entry)) {
+                if (debugEnabled && isOutput(entry.path())) {
+                    continue;
+                }
+                LOGGER.debug("Deleting expired temp file {}", entry.path());
+                delete(entry.path(), "expired");
+            }
+        }
+    }
+
+    /**
+     * Nothing is in flight at start-up, so conversion artifacts at the top of the working
+     * directory are leftovers of a previous run. Subdirectories (cache, jobs) are not touched,
+     * and neither are outputs retained on purpose in debug mode.
+     */
+    private void sweepOrphans() throws IOException {
+        int removed = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && isArtifact(file) && !(debugEnabled && isOutput(file))) {
+                    delete(file, "orphan");
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            LOGGER.info("Removed {} orphaned temp files from {}", removed, directory);
+        }
+    }
+
+    private void delete(Path path, String reason) {
+        try {
+            if (Files.deleteIfExists(path)) {
+                meterRegistry.counter("converter.temp.deleted", "reason", reason).increment();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete temp file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static boolean isArtifact(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return ARTIFACT_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    private static boolean isOutput(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    private Path resolveDirectory() throws IOException {
+        if (configuredOutputDirectory != null && !configuredOutputDirectory.isBlank()) {
+            Path configuredDir = Paths.get(configuredOutputDirectory);
+            Files.createDirectories(configuredDir);
+            return configuredDir;
+        }
+
+        Path localOutputsDir = Paths.get("outputs");
+        if (Files.exists(localOutputsDir) && Files.isDirectory(localOutputsDir)) {
+            return localOutputsDir;
+        }
+
+        if (debugEnabled) {
+            Path debugDir = Paths.get("/tmp/outputs");
+            Files.createDirectories(debugDir);
+            return debugDir;
+        }
+
+        // One private directory per process instead of one per request
+        ownsDirectory = true;
+        return Files.createTempDirectory("convert-");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        if (ownsDirectory) {
+            try {
+                FileSystemUtils.deleteRecursively(directory);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete temp directory {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.erdem.document_converter_service.conversion;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+/**
+ * File-name derivation for temp artifacts: uploads are reduced to a safe name and given a
+ * timestamp and sequence suffix so concurrent uploads of the same file never collide.
+ */
+public final class TempFileNames {
+
+    private static final Pattern UNSAFE_CHARS = Pattern.compile("[^a-zA-Z0-9._-]");
+    private static final DateTimeFormatter TIMESTAMP_FMT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private TempFileNames() {
+    }
+
+    public static String safeName(String originalFilename) {
+        return UNSAFE_CHARS.matcher(originalFilename).replaceAll("_");
+    }
+
+    /**
+     * Extension of a safe name including the dot, or defaultExtension when there is none.
+     */
+    public static String extension(String safeName, String defaultExtension) {
+        int dot = safeName.lastIndexOf('.');
+        return dot >= 0 ? safeName.substring(dot) : defaultExtension;
+    }
+
+    public static String stem(String safeName) {
+        int dot = safeName.lastIndexOf('.');
+        return dot >= 0 ? safeName.substring(0, dot) : safeName;
+    }
+
+    public static String uniqueBaseName(String safeName, long sequence) {
+        return stem(safeName) + "-" + LocalDateTime.now().format(TIMESTAMP_FMT) + "-" + sequence;
+    }
+}
@@ -0,0 +1,25 @@
+package com.erdem.document_converter_service.conversion;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Raised when a workbook uses something the {@link NativeExcelRenderer} does not render, so
+ * that the conversion goes to LibreOffice instead. A {@link SAXException} so the streaming
+ * sheet handlers can abort the parse with it.
+ */
+final class UnsupportedWorkbookException extends SAXException {
+
+    private final String reason;
+
+    UnsupportedWorkbookException(String reason) {
+        super("Workbook not supported by the native renderer: " + reason);
+        this.reason = reason;
+    }
+
+    /**
+     * Short metric-friendly reason, e.g. {@code chart} or {@code conditional-formatting}.
+     */
+    String reason() {
+        return reason;
+    }
+}
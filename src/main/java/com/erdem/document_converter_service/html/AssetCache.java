@@ -0,0 +1,218 @@
+package com.erdem.document_converter_service.html;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.microsoft.playwright.APIResponse;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Serves the sub-resources of rendered HTML (fonts, stylesheets, images) from a local,
+ * size-bounded LRU instead of letting Chromium refetch them on every render.
+ * <p>
+ * Only hosts on {@code playwright.assets.allowed-hosts} and resource types on
+ * {@code playwright.assets.resource-types} are fetched; every other request is aborted, which
+ * also keeps uploaded documents from reaching internal addresses. Redirects are not followed
+ * for the same reason.
+ * <p>
+ * Misses are fetched with {@link Route#fetch}, so the request runs in the Playwright driver.
+ * While it waits, the calling thread keeps dispatching the events and routes of the other pages
+ * on its connection. A slow asset host therefore delays only the renders that need it, and
+ * misses of concurrent renders overlap. Nothing blocks the dispatching thread on another fetch,
+ * so two renders that miss the same URL at once both fetch it.
+ */
+@Component
+public class AssetCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetCache.class);
+
+    // Asset origins differ from the throw-away document origin; fonts are only used with CORS
+    private static final Map<String, String> CORS_HEADERS = Map.of("access-control-allow-origin", "*");
+
+    // Comma separated; "*.example.com" also matches subdomains. Empty = block all remote assets
+    @Value("${playwright.assets.allowed-hosts:}")
+    private String allowedHostsProperty;
+
+    @Value("${playwright.assets.resource-types:font,stylesheet,image}")
+    private String resourceTypesProperty;
+
+    @Value("${playwright.assets.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${playwright.assets.max-asset-bytes:5242880}")
+    private long maxAssetBytes;
+
+    @Value("${playwright.assets.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${playwright.assets.fetch-timeout-ms:5000}")
+    private long fetchTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record Asset(byte[] body, String contentType, long fetchedAt) {
+    }
+
+    private final Map<String, Asset> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private List<String> allowedHosts;
+    private Set<String> resourceTypes;
+
+    @PostConstruct
+    public void init() {
+        allowedHosts = split(allowedHostsProperty).collect(Collectors.toList());
+        resourceTypes = split(resourceTypesProperty).collect(Collectors.toSet());
+        Gauge.builder("converter.html.assets.cache.bytes", this, AssetCache::cachedBytes).register(meterRegistry);
+        LOGGER.info("HTML asset cache initialized: allowedHosts={} resourceTypes={} maxBytes={}", allowedHosts, resourceTypes, maxBytes);
+    }
+
+    /**
+     * Answers a sub-resource request of a render: from the cache, by fetching it once when it
+     * is allowed, or by aborting it.
+     */
+    void handle(Route route) {
+        Request request = route.request();
+        String url = request.url();
+        if (!isAllowed(url, request.resourceType())) {
+            count("blocked");
+            LOGGER.debug("Blocked {} request to {}", request.resourceType(), url);
+            route.abort("blockedbyclient");
+            return;
+        }
+        Asset asset = lookup(url);
+        if (asset != null) {
+            count("hit");
+        } else {
+            asset = fetch(route, url);
+            if (asset == null) {
+                route.abort("failed");
+                return;
+            }
+            store(url, asset);
+        }
+        route.fulfill(new Route.FulfillOptions()
+                .setStatus(200)
+                .setContentType(asset.contentType())
+                .setHeaders(CORS_HEADERS)
+                .setBodyBytes(asset.body()));
+    }
+
+    private boolean isAllowed(String url, String resourceType) {
+        if (!resourceTypes.contains(resourceType)) {
+            return false;
+        }
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (host == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            return false;
+        }
+        String lowerHost = host.toLowerCase(Locale.ROOT);
+        for (String allowed : allowedHosts) {
+            if (allowed.startsWith("*.") ? lowerHost.endsWith(allowed.substring(1)) || lowerHost.equals(allowed.substring(2))
+                    : lowerHost.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fetches the asset with the request's own headers; font CSS services pick the font format by
+     * the user agent. Returns null when it fails, answers anything but 200 or is too large.
+     */
+    private Asset fetch(Route route, String url) {
+        APIResponse response;
+        try {
+            response = route.fetch(new Route.FetchOptions().setMaxRedirects(0).setTimeout(fetchTimeoutMs));
+        } catch (PlaywrightException e) {
+            count("failed");
+            LOGGER.debug("Failed to fetch asset {}: {}", url, e.getMessage());
+            return null;
+        }
+        try {
+            if (response.status() != 200) {
+                count("failed");
+                LOGGER.debug("Asset {} answered {}", url, response.status());
+                return null;
+            }
+            byte[] data = response.body();
+            if (data.length > maxAssetBytes) {
+                count("too-large");
+                LOGGER.debug("Asset {} exceeds {} bytes", url, maxAssetBytes);
+                return null;
+            }
+            count("miss");
+            String contentType = response.headers().getOrDefault("content-type", "application/octet-stream");
+            return new Asset(data, contentType, System.currentTimeMillis());
+        } finally {
+            response.dispose();
+        }
+    }
+
+    private synchronized Asset lookup(String url) {
+        Asset asset = entries.get(url);
+        if (asset != null && System.currentTimeMillis() - asset.fetchedAt() > ttlSeconds * 1000L) {
+            entries.remove(url);
+            bytes -= asset.body().length;
+            return null;
+        }
+        return asset;
+    }
+
+    private synchronized void store(String url, Asset asset) {
+        if (asset.body().length > maxBytes) {
+            return;
+        }
+        Asset previous = entries.put(url, asset);
+        if (previous != null) {
+            bytes -= previous.body().length;
+        }
+        bytes += asset.body().length;
+        Iterator<Asset> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().body().length;
+            eldest.remove();
+            count("evicted");
+        }
+    }
+
+    private synchronized long cachedBytes() {
+        return bytes;
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("converter.html.assets", "result", result).increment();
+    }
+
+    private static Stream<String> split(String property) {
+        return Stream.of(property.split(","))
+                .map(s -> s.trim().toLowerCase(Locale.ROOT))
+                .filter(s -> !s.isEmpty());
+    }
+}
@@ -0,0 +1,242 @@
+package com.erdem.document_converter_service.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Fixed-size pool of pre-warmed browser contexts/pages.
+ * Pages are reset between renders, recycled after a number of uses or when their
+ * renderer crashes, and probed when borrowed after {@link #healthCheck()} marked them.
+ */
+public class BrowserPagePool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrowserPagePool.class);
+
+    private static final String BLANK_PAGE = "<!DOCTYPE html><html><head></head><body></body></html>";
+
+    private final String name;
+    private final Browser browser;
+    private final int size;
+    private final int maxUsesPerPage;
+    private final int pageTimeoutMs;
+
+    // LIFO so the most recently used (warmest) page is handed out first
+    private final LinkedBlockingDeque<PooledPage> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean closed;
+
+    private final Timer waitTimer;
+    private final MeterRegistry meterRegistry;
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    public BrowserPagePool(String name, Browser browser, int size, int maxUsesPerPage, int pageTimeoutMs, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.browser = browser;
+        this.size = size;
+        this.maxUsesPerPage = maxUsesPerPage;
+        this.pageTimeoutMs = pageTimeoutMs;
+        this.meterRegistry = meterRegistry;
+
+        this.waitTimer = Timer.builder("converter.browser.pool.wait")
+                .tag("pool", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        gauges.add(Gauge.builder("converter.browser.pool.active", active, AtomicInteger::get).tag("pool", name).register(meterRegistry));
+        gauges.add(Gauge.builder("converter.browser.pool.idle", idle, LinkedBlockingDeque::size).tag("pool", name).register(meterRegistry));
+        gauges.add(Gauge.builder("converter.browser.pool.size", () -> size).tag("pool", name).register(meterRegistry));
+        gauges.add(Gauge.builder("converter.browser.pool.utilization", active, a -> (double) a.get() / size).tag("pool", name).register(meterRegistry));
+    }
+
+    /**
+     * Creates every page up front so the first requests do not pay context creation.
+     */
+    public void prewarm() {
+        while (tryReserveSlot()) {
+            idle.offerFirst(createPageReleasingSlotOnFailure());
+        }
+        LOGGER.info("Browser page pool '{}' pre-warmed with {} pages (maxUsesPerPage={})", name, size, maxUsesPerPage);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int available() {
+        return size - active.get();
+    }
+
+    /**
+     * Borrows a page, waiting up to the given timeout. Returns null when none became available.
+     * A page marked by {@link #healthCheck()} is probed first, on the calling thread, and
+     * replaced when it does not respond.
+     */
+    public PooledPage borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Browser page pool '" + name + "' is closed");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        try {
+            while (true) {
+                PooledPage page = idle.pollFirst();
+                if (page == null && tryReserveSlot()) {
+                    page = createPageReleasingSlotOnFailure();
+                }
+                if (page == null) {
+                    page = idle.pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+                if (page == null) {
+                    return null;
+                }
+                if (page.takeProbeDue() && !responds(page)) {
+                    LOGGER.warn("Pooled page in '{}' failed health check, recycling it", name);
+                    retire(page, "health");
+                    replenish();
+                    continue;
+                }
+                active.incrementAndGet();
+                page.markUsed();
+                return page;
+            }
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns a page to the pool after resetting it, or retires it when it is worn out or broken.
+     */
+    public void release(PooledPage page) {
+        active.decrementAndGet();
+
+        if (closed) {
+            retire(page, "closed");
+            return;
+        }
+        if (page.isBroken()) {
+            retire(page, "crash");
+            replenish();
+            return;
+        }
+        if (page.uses() >= maxUsesPerPage) {
+            retire(page, "max-uses");
+            replenish();
+            return;
+        }
+
+        try {
+            reset(page);
+            idle.offerFirst(page);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to reset pooled page, recycling it: {}", e.getMessage());
+            retire(page, "reset-failed");
+            replenish();
+        }
+    }
+
+    /**
+     * Marks the idle pages for a probe. Playwright objects must not be used from two threads at
+     * once, so the probe runs when a page is next borrowed, on the borrowing thread, rather than
+     * on the health check thread next to renders on the same connection.
+     */
+    public void healthCheck() {
+        if (closed) {
+            return;
+        }
+        idle.forEach(PooledPage::markProbeDue);
+    }
+
+    private static boolean responds(PooledPage page) {
+        try {
+            return !page.isBroken() && Integer.valueOf(2).equals(page.page().evaluate("1 + 1"));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public void close() {
+        closed = true;
+        PooledPage page;
+        while ((page = idle.pollFirst()) != null) {
+            page.close();
+        }
+        gauges.forEach(meterRegistry::remove);
+        meterRegistry.remove(waitTimer);
+    }
+
+    private void reset(PooledPage page) {
+        BrowserContext context = page.context();
+        context.clearCookies();
+        context.clearPermissions();
+        page.page().setContent(BLANK_PAGE);
+    }
+
+    private void retire(PooledPage page, String reason) {
+        created.decrementAndGet();
+        page.close();
+        Counter.builder("converter.browser.pool.recycled")
+                .tag("pool", name)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        LOGGER.debug("Retired pooled page from '{}' after {} uses (reason={})", name, page.uses(), reason);
+    }
+
+    private void replenish() {
+        if (closed || !tryReserveSlot()) {
+            return;
+        }
+        try {
+            idle.offerLast(createPage());
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            LOGGER.warn("Failed to replenish browser page pool '{}': {}", name, e.getMessage());
+        }
+    }
+
+    private boolean tryReserveSlot() {
+        int current;
+        do {
+            current = created.get();
+            if (current >= size) {
+                return false;
+            }
+        } while (!created.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledPage createPageReleasingSlotOnFailure() {
+        try {
+            return createPage();
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PooledPage createPage() {
+        BrowserContext context = browser.newContext();
+        Page page = context.newPage();
+        page.setDefaultTimeout(pageTimeoutMs);
+        page.setDefaultNavigationTimeout(pageTimeoutMs);
+        // Warm the renderer so the first real render does not pay for process start-up
+        page.setContent(BLANK_PAGE);
+        return new PooledPage(context, page);
+    }
+}
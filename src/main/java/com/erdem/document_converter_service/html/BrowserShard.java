@@ -0,0 +1,348 @@
+package com.erdem.document_converter_service.html;
+
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.erdem.document_converter_service.metrics.StageMetrics;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * One Playwright driver + Chromium browser with its own page pool.
+ * <p>
+ * Playwright's Java client is not thread-safe, so a dedicated shard creates and drives its
+ * Playwright instance from a single owner thread; every call is marshalled onto that thread.
+ * A shared shard (the non-sharded mode) is used directly from request threads instead; renders
+ * hold a read lock there so that a restart waits for them to drain.
+ * <p>
+ * The health check waits for the owner thread for a few seconds only. A shard whose current
+ * task has been running for longer than {@code hangTimeoutMs} is wedged: its browser is closed
+ * from the health check thread, which fails the stuck call, and relaunched on the owner thread.
+ */
+class BrowserShard {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrowserShard.class);
+
+    // How long the health check waits for the owner thread before looking for a hung task
+    private static final long HEALTH_CHECK_WAIT_MS = 5000;
+
+    interface PageAction {
+        void run(Page page) throws Exception;
+    }
+
+    private final String name;
+    private final int pagesPerShard;
+    private final int maxUsesPerPage;
+    private final int pageTimeoutMs;
+    private final long hangTimeoutMs;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService ownerThread;
+    private final HtmlPrinter printer;
+    private final Timer pageWaitTimer;
+
+    private final AtomicInteger load = new AtomicInteger();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicBoolean healthCheckPending = new AtomicBoolean();
+    private final ReentrantReadWriteLock renderLock = new ReentrantReadWriteLock();
+
+    // System.nanoTime() when the owner thread started its current task, 0 while idle
+    private volatile long taskStartedAt;
+
+    private volatile Playwright playwright;
+    private volatile Browser browser;
+    private volatile BrowserPagePool pagePool;
+    private volatile boolean healthy;
+
+    BrowserShard(String name, boolean dedicatedThread, int pagesPerShard, int maxUsesPerPage, int pageTimeoutMs,
+            long hangTimeoutMs, HtmlPrinter printer, MeterRegistry meterRegistry, StageMetrics stageMetrics) {
+        this.name = name;
+        this.pagesPerShard = pagesPerShard;
+        this.maxUsesPerPage = maxUsesPerPage;
+        this.pageTimeoutMs = pageTimeoutMs;
+        this.hangTimeoutMs = hangTimeoutMs;
+        this.meterRegistry = meterRegistry;
+        this.printer = printer;
+        this.pageWaitTimer = stageMetrics.timer(StageMetrics.PAGE_WAIT, "html");
+        if (dedicatedThread) {
+            // A plain ThreadPoolExecutor so its queue shows up in the executor metrics
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "browser-" + name);
+                t.setDaemon(true);
+                return t;
+            });
+            new ExecutorServiceMetrics(executor, "browser-" + name, Tags.empty()).bindTo(meterRegistry);
+            this.ownerThread = executor;
+        } else {
+            this.ownerThread = null;
+        }
+
+        Gauge.builder("converter.browser.shard.load", load, AtomicInteger::get).tag("shard", name).register(meterRegistry);
+        Gauge.builder("converter.browser.shard.restarts", restarts, AtomicInteger::get).tag("shard", name).register(meterRegistry);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int load() {
+        return load.get();
+    }
+
+    int capacity() {
+        return pagesPerShard;
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    void start() throws Exception {
+        onOwnerThread(() -> {
+            launch();
+            return null;
+        });
+    }
+
+    /**
+     * @param maxMs time for the whole render including the wait for a page, {@link Long#MAX_VALUE} for no bound
+     */
+    void render(Path htmlPath, Path outputPath, PrintOptions printOptions, long acquireTimeoutMs, long maxMs) throws Exception {
+        long start = System.nanoTime();
+        withPage(page -> printer.print(page, htmlPath, outputPath, printOptions,
+                maxMs == Long.MAX_VALUE ? maxMs : maxMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)), acquireTimeoutMs);
+    }
+
+    /**
+     * Runs the action on a pooled page of this shard. Requests that wait longer than
+     * acquireTimeoutMs for the shard are rejected instead of piling up.
+     */
+    void withPage(PageAction action, long acquireTimeoutMs) throws Exception {
+        long enqueuedAt = System.nanoTime();
+        load.incrementAndGet();
+        // Shared mode: keeps a restart from closing the browser under this render
+        Lock renderSlot = ownerThread == null ? renderLock.readLock() : null;
+        if (renderSlot != null) {
+            renderSlot.lock();
+        }
+        try {
+            onOwnerThread(() -> {
+                BrowserPagePool pool = pagePool;
+                if (!healthy || pool == null) {
+                    throw new IllegalStateException("Browser " + name + " is not available");
+                }
+                long remainingMs = acquireTimeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt);
+                PooledPage pooled = remainingMs > 0 ? pool.borrow(remainingMs, TimeUnit.MILLISECONDS) : null;
+                // Includes the wait for the owner thread in sharded mode
+                pageWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                if (pooled == null) {
+                    LOGGER.warn("No Playwright page available on {} (pages={})", name, pagesPerShard);
+                    throw new RuntimeException("Server is busy. Try again later.");
+                }
+                try {
+                    action.run(pooled.page());
+                } catch (Exception e) {
+                    // Do not hand a page in an unknown state to the next request
+                    pooled.markBroken();
+                    throw e;
+                } finally {
+                    pool.release(pooled);
+                }
+                return null;
+            });
+        } finally {
+            if (renderSlot != null) {
+                renderSlot.unlock();
+            }
+            load.decrementAndGet();
+            if (browser != null && !browser.isConnected()) {
+                healthy = false;
+            }
+        }
+    }
+
+    /**
+     * Marks idle pages for a probe and relaunches the browser when it has crashed or disconnected.
+     */
+    void healthCheck() {
+        if (!healthCheckPending.compareAndSet(false, true)) {
+            // The previous check is still queued behind renders on the owner thread
+            checkForHang();
+            return;
+        }
+        try {
+            CompletableFuture<Void> check = onOwnerThreadAsync(() -> {
+                try {
+                    if (!healthy || browser == null || !browser.isConnected()) {
+                        LOGGER.warn("Browser {} is unhealthy, restarting it", name);
+                        restart();
+                    } else {
+                        pagePool.healthCheck();
+                    }
+                } finally {
+                    healthCheckPending.set(false);
+                }
+                return null;
+            });
+            check.get(HEALTH_CHECK_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            checkForHang();
+        } catch (Exception e) {
+            LOGGER.error("Health check of browser {} failed: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the shard unhealthy and closes its browser from the calling thread when the owner
+     * thread has been stuck in one task for longer than hangTimeoutMs; the stuck call then fails
+     * and the queued health check relaunches the browser.
+     */
+    private void checkForHang() {
+        long startedAt = taskStartedAt;
+        long runningMs = startedAt == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if (runningMs < hangTimeoutMs) {
+            LOGGER.debug("Browser {} is busy, health check deferred", name);
+            return;
+        }
+        LOGGER.warn("Browser {} has been stuck in one task for {}ms, closing it", name, runningMs);
+        healthy = false;
+        Playwright stuck = playwright;
+        if (stuck != null) {
+            try {
+                stuck.close();
+            } catch (Exception e) {
+                LOGGER.warn("Error closing stuck Playwright {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Relaunches the browser. In shared mode it first waits up to hangTimeoutMs for running
+     * renders to finish; new ones are turned away while it is unhealthy.
+     */
+    private void restart() throws InterruptedException {
+        healthy = false;
+        restarts.incrementAndGet();
+        Lock exclusive = ownerThread == null ? renderLock.writeLock() : null;
+        boolean drained = exclusive == null || exclusive.tryLock(hangTimeoutMs, TimeUnit.MILLISECONDS);
+        if (!drained) {
+            LOGGER.warn("Renders on browser {} did not finish within {}ms, restarting under them", name, hangTimeoutMs);
+        }
+        try {
+            closeResources();
+            launch();
+        } finally {
+            if (exclusive != null && drained) {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    void close() {
+        try {
+            onOwnerThread(() -> {
+                closeResources();
+                return null;
+            });
+        } catch (Exception e) {
+            LOGGER.warn("Error closing browser {}: {}", name, e.getMessage());
+        }
+        if (ownerThread != null) {
+            ownerThread.shutdownNow();
+        }
+    }
+
+    private void launch() {
+        healthy = false;
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(PlaywrightEngine.launchOptions());
+        browser.onDisconnected(b -> healthy = false);
+        BrowserPagePool pool = new BrowserPagePool(name, browser, pagesPerShard, maxUsesPerPage, pageTimeoutMs, meterRegistry);
+        pool.prewarm();
+        pagePool = pool;
+        healthy = true;
+        LOGGER.info("Playwright browser {} launched (pages={})", name, pagesPerShard);
+    }
+
+    private void closeResources() {
+        healthy = false;
+        if (pagePool != null) {
+            pagePool.close();
+            pagePool = null;
+        }
+        if (browser != null) {
+            try {
+                browser.close();
+            } catch (Exception e) {
+                LOGGER.warn("Error closing Playwright browser {}: {}", name, e.getMessage());
+            }
+        }
+        if (playwright != null) {
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                LOGGER.warn("Error closing Playwright {}: {}", name, e.getMessage());
+            }
+        }
+        browser = null;
+        playwright = null;
+    }
+
+    private <T> T onOwnerThread(Callable<T> task) throws Exception {
+        if (ownerThread == null) {
+            return task.call();
+        }
+        try {
+            return onOwnerThreadAsync(task).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the task on the owner thread, or runs it right away in shared mode.
+     */
+    private <T> CompletableFuture<T> onOwnerThreadAsync(Callable<T> task) {
+        if (ownerThread == null) {
+            try {
+                return CompletableFuture.completedFuture(task.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ownerThread.execute(() -> {
+            taskStartedAt = System.nanoTime();
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                taskStartedAt = 0;
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,479 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Splits a large HTML document into standalone chunk documents that can be printed in parallel.
+ * <p>
+ * The document is streamed once. Everything up to and including {@code <body>} is the prologue
+ * repeated at the top of every chunk, so styles apply to all of them. Documents with scripts
+ * are not meant to be split: a script in the prologue would run once per chunk, one at the end
+ * of the body only in the last; callers check {@link HtmlClassifier#isScripted} first. Once a chunk
+ * has reached the target size it is cut at the next split point: a marker comment such as
+ * {@code <!-- page-break -->}, or the end tag of one of the configured elements (table rows,
+ * list items, sections). Elements still open at the cut are closed and reopened with their
+ * original start tags in the next chunk. Table headers and column groups are repeated, as
+ * Chromium does at a page break. Cuts inside ordered lists are skipped, since the numbering
+ * would restart. Comments, CDATA sections and the content of raw text elements such as
+ * {@code <script>} and {@code <style>} are copied whole and never cut.
+ * <p>
+ * Tags are matched byte-wise like {@link PrintCssInjector}; the scanner only tracks enough of
+ * HTML's implicit end tags to keep tables and lists balanced.
+ */
+public final class HtmlChunker {
+
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr");
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "textarea", "title");
+    // Repeated after a reopened <table>, the way a printed table repeats its header on every page
+    private static final Set<String> REPLAYED_TABLE_PARTS = Set.of("caption", "colgroup", "thead");
+    private static final byte[] CHUNK_END = "</body></html>\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BODY_START = "<body>".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * @param targetBytes     minimum size of a chunk before it is cut
+     * @param marker          text of the marker comment to cut at, or null to cut at element boundaries
+     * @param splitAfter      elements whose end tag is a cut point when no marker is used
+     * @param maxPrologueBytes documents whose body starts later than this are not split
+     */
+    public record Settings(long targetBytes, String marker, Set<String> splitAfter, int maxPrologueBytes) {
+    }
+
+    private static final class Frame {
+        final String name;
+        final byte[] startTag;
+        ByteArrayOutputStream replay;
+
+        Frame(String name, byte[] startTag) {
+            this.name = name;
+            this.startTag = startTag;
+        }
+    }
+
+    private final InputStream in;
+    private final IntFunction<Path> chunkPaths;
+    private final Settings settings;
+
+    private final ByteArrayOutputStream prologue = new ByteArrayOutputStream();
+    private final Deque<Frame> open = new ArrayDeque<>();
+    private final List<Path> chunks = new ArrayList<>();
+    private OutputStream out;
+    private long chunkBytes;
+    private boolean inBody;
+    private boolean headClosed;
+    private boolean bodyClosed;
+    private Frame captureTable;
+    private Frame capturePart;
+    // Depth of a cut at an element boundary waiting for the next start tag, -1 if none
+    private int pendingCutDepth = -1;
+    // Bytes read ahead and put back, at most two
+    private final int[] pushback = new int[2];
+    private int pushed;
+
+    private HtmlChunker(InputStream in, IntFunction<Path> chunkPaths, Settings settings) {
+        this.in = in;
+        this.chunkPaths = chunkPaths;
+        this.settings = settings;
+    }
+
+    /**
+     * Writes the chunks of the document to the paths handed out by chunkPaths (by chunk index)
+     * and returns them in order. Returns an empty list when the document cannot be split, in
+     * which case nothing was written.
+     */
+    public static List<Path> split(Path html, IntFunction<Path> chunkPaths, Settings settings) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(html), 64 * 1024)) {
+            HtmlChunker chunker = new HtmlChunker(in, chunkPaths, settings);
+            try {
+                return chunker.run();
+            } finally {
+                if (chunker.out != null) {
+                    chunker.out.close();
+                }
+            }
+        }
+    }
+
+    private List<Path> run() throws IOException {
+        for (int b = read(); b != -1; b = read()) {
+            if (!inBody && prologue.size() > settings.maxPrologueBytes()) {
+                return List.of();
+            }
+            if (b == '<') {
+                markup();
+            } else {
+                emit(b);
+            }
+        }
+        if (!inBody) {
+            return List.of();
+        }
+        out.close();
+        out = null;
+        return chunks;
+    }
+
+    private void markup() throws IOException {
+        int next = read();
+        if (next == '!') {
+            ByteArrayOutputStream tag = new ByteArrayOutputStream();
+            tag.write('<');
+            tag.write('!');
+            int a = read();
+            if (a == '[') {
+                tag.write(a);
+                cdata(tag);
+                return;
+            }
+            int b = a == '-' ? read() : -1;
+            if (a == '-' && b == '-') {
+                comment(tag);
+                return;
+            }
+            unread(b);
+            unread(a);
+            readTagRest(tag);
+            emit(tag.toByteArray());
+            return;
+        }
+        boolean endTag = next == '/';
+        if (!endTag && !isNameStart(next)) {
+            // A bare '<' in text
+            emit('<');
+            unread(next);
+            return;
+        }
+
+        ByteArrayOutputStream tag = new ByteArrayOutputStream();
+        tag.write('<');
+        if (endTag) {
+            tag.write('/');
+        } else {
+            unread(next);
+        }
+        String name = readTagName(tag);
+        readTagRest(tag);
+        byte[] bytes = tag.toByteArray();
+        if (endTag) {
+            endTag(name, bytes);
+        } else {
+            startTag(name, bytes, bytes.length >= 2 && bytes[bytes.length - 2] == '/');
+        }
+    }
+
+    private void startTag(String name, byte[] bytes, boolean selfClosing) throws IOException {
+        if (!inBody) {
+            if (headClosed && !name.equals("body") && !name.equals("html")) {
+                // Body content without a <body> tag
+                startBody(BODY_START);
+            } else {
+                emit(bytes);
+                if (name.equals("body")) {
+                    startBody(null);
+                } else if (RAW_TEXT_ELEMENTS.contains(name)) {
+                    rawText(name);
+                }
+                return;
+            }
+        }
+        if (name.equals("body") || name.equals("html")) {
+            emit(bytes);
+            return;
+        }
+
+        if (pendingCutDepth >= 0) {
+            // Content follows at the depth of the boundary, so the next chunk is not empty
+            pendingCutDepth = -1;
+            cut();
+        }
+        closeImplicitly(name);
+        boolean replayed = REPLAYED_TABLE_PARTS.contains(name) && captureTable == null
+                && !open.isEmpty() && open.peek().name.equals("table");
+        Frame frame = selfClosing || VOID_ELEMENTS.contains(name) ? null : new Frame(name, bytes);
+        if (replayed && frame != null) {
+            captureTable = open.peek();
+            if (captureTable.replay == null) {
+                captureTable.replay = new ByteArrayOutputStream();
+            }
+            capturePart = frame;
+        }
+        emit(bytes);
+        if (frame != null) {
+            open.push(frame);
+            if (RAW_TEXT_ELEMENTS.contains(name)) {
+                rawText(name);
+            }
+        }
+    }
+
+    private void endTag(String name, byte[] bytes) throws IOException {
+        emit(bytes);
+        if (!inBody) {
+            if (name.equals("head")) {
+                headClosed = true;
+            }
+            return;
+        }
+        if (name.equals("body") || name.equals("html")) {
+            bodyClosed = true;
+            return;
+        }
+        if (!contains(name)) {
+            return;
+        }
+        Frame popped;
+        do {
+            popped = pop();
+        } while (!popped.name.equals(name));
+
+        if (open.size() < pendingCutDepth) {
+            // The enclosing element ended right after the boundary, e.g. the last row of a table
+            pendingCutDepth = -1;
+        }
+        if (settings.marker() == null && settings.splitAfter().contains(name) && canCut()) {
+            pendingCutDepth = open.size();
+        }
+    }
+
+    private void comment(ByteArrayOutputStream tag) throws IOException {
+        tag.write('-');
+        tag.write('-');
+        int dashes = 0;
+        for (int b = read(); b != -1; b = read()) {
+            tag.write(b);
+            if (b == '>' && dashes >= 2) {
+                break;
+            }
+            dashes = b == '-' ? dashes + 1 : 0;
+        }
+        byte[] bytes = tag.toByteArray();
+        emit(bytes);
+        if (inBody && settings.marker() != null && bytes.length >= 7) {
+            String text = new String(bytes, 4, bytes.length - 7, StandardCharsets.UTF_8).trim();
+            if (text.equalsIgnoreCase(settings.marker()) && canCut()) {
+                cut();
+            }
+        }
+    }
+
+    /**
+     * Copies a CDATA section (or a bogus {@code <![} declaration) up to {@code ]]>}, which
+     * may contain anything that looks like markup.
+     */
+    private void cdata(ByteArrayOutputStream tag) throws IOException {
+        int brackets = 0;
+        for (int b = read(); b != -1; b = read()) {
+            tag.write(b);
+            if (b == '>' && brackets >= 2) {
+                break;
+            }
+            brackets = b == ']' ? brackets + 1 : 0;
+        }
+        emit(tag.toByteArray());
+    }
+
+    /**
+     * Copies the content of script, style and similar elements up to their end tag without
+     * looking for markup in it.
+     */
+    private void rawText(String name) throws IOException {
+        byte[] end = ("</" + name).getBytes(StandardCharsets.US_ASCII);
+        int matched = 0;
+        for (int b = read(); b != -1; b = read()) {
+            if (Character.toLowerCase((char) b) == end[matched]) {
+                matched++;
+                if (matched == end.length) {
+                    ByteArrayOutputStream tag = new ByteArrayOutputStream();
+                    tag.write(end);
+                    readTagRest(tag);
+                    if (inBody) {
+                        endTag(name, tag.toByteArray());
+                    } else {
+                        emit(tag.toByteArray());
+                    }
+                    return;
+                }
+            } else {
+                if (matched > 0) {
+                    emit(end, matched);
+                }
+                matched = Character.toLowerCase((char) b) == end[0] ? 1 : 0;
+                if (matched == 0) {
+                    emit(b);
+                }
+            }
+        }
+        if (matched > 0) {
+            emit(end, matched);
+        }
+    }
+
+    /**
+     * Drops the elements a start tag closes implicitly: a new row closes the open cell and
+     * row, a new list item or paragraph the previous one.
+     */
+    private void closeImplicitly(String name) {
+        switch (name) {
+            case "tr" -> popWhileTop("td", "th", "tr");
+            case "td", "th" -> popWhileTop("td", "th");
+            case "thead", "tbody", "tfoot" -> popWhileTop("td", "th", "tr", "thead", "tbody", "tfoot");
+            case "li" -> popWhileTop("li");
+            case "p" -> popWhileTop("p");
+            case "option" -> popWhileTop("option");
+            default -> {
+            }
+        }
+    }
+
+    private void popWhileTop(String... names) {
+        List<String> closed = List.of(names);
+        while (!open.isEmpty() && closed.contains(open.peek().name)) {
+            pop();
+        }
+    }
+
+    private Frame pop() {
+        Frame frame = open.pop();
+        if (frame == capturePart) {
+            captureTable = null;
+            capturePart = null;
+        }
+        return frame;
+    }
+
+    private boolean contains(String name) {
+        for (Frame frame : open) {
+            if (frame.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canCut() {
+        return chunkBytes >= settings.targetBytes() && !bodyClosed && captureTable == null && !contains("ol");
+    }
+
+    private void cut() throws IOException {
+        for (Frame frame : open) {
+            out.write(("</" + frame.name + ">").getBytes(StandardCharsets.US_ASCII));
+        }
+        out.write(CHUNK_END);
+        out.close();
+        openChunk();
+    }
+
+    private void startBody(byte[] bodyTag) throws IOException {
+        if (bodyTag != null) {
+            prologue.write(bodyTag);
+        }
+        inBody = true;
+        openChunk();
+    }
+
+    private void openChunk() throws IOException {
+        Path path = chunkPaths.apply(chunks.size());
+        chunks.add(path);
+        out = new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024);
+        prologue.writeTo(out);
+        for (Iterator<Frame> it = open.descendingIterator(); it.hasNext();) {
+            Frame frame = it.next();
+            out.write(frame.startTag);
+            if (frame.replay != null) {
+                frame.replay.writeTo(out);
+            }
+        }
+        chunkBytes = 0;
+    }
+
+    private String readTagName(ByteArrayOutputStream tag) throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int b = read(); b != -1; b = read()) {
+            if (b == '>' || b == '/' || isWhitespace(b)) {
+                unread(b);
+                break;
+            }
+            tag.write(b);
+            name.append(Character.toLowerCase((char) b));
+        }
+        return name.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private void readTagRest(ByteArrayOutputStream tag) throws IOException {
+        int quote = 0;
+        for (int b = read(); b != -1; b = read()) {
+            tag.write(b);
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return;
+            }
+        }
+    }
+
+    private void emit(int b) throws IOException {
+        if (!inBody) {
+            prologue.write(b);
+            return;
+        }
+        out.write(b);
+        chunkBytes++;
+        if (captureTable != null) {
+            captureTable.replay.write(b);
+        }
+    }
+
+    private void emit(byte[] bytes) throws IOException {
+        emit(bytes, bytes.length);
+    }
+
+    private void emit(byte[] bytes, int length) throws IOException {
+        if (!inBody) {
+            prologue.write(bytes, 0, length);
+            return;
+        }
+        out.write(bytes, 0, length);
+        chunkBytes += length;
+        if (captureTable != null) {
+            captureTable.replay.write(bytes, 0, length);
+        }
+    }
+
+    private int read() throws IOException {
+        return pushed > 0 ? pushback[--pushed] : in.read();
+    }
+
+    private void unread(int b) {
+        if (b != -1) {
+            pushback[pushed++] = b;
+        }
+    }
+
+    private static boolean isNameStart(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+}
@@ -0,0 +1,124 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a document is simple enough for the {@link NativeHtmlRenderer}: static
+ * markup with inline or embedded CSS, no JavaScript, no remote resources, no layout features
+ * the native renderer lacks, and only text its fonts can show. Everything else goes to
+ * Chromium. The checks are deliberately conservative; a false "not simple" only costs the
+ * Chromium render the document would have had anyway.
+ */
+public final class HtmlClassifier {
+
+    private static final Rule SCRIPT = new Rule("script", "<script\\b|javascript:|<[a-z][^>]*\\son[a-z]+\\s*=");
+
+    // Checked in order, the first match names the reason
+    private static final Rule[] RULES = {
+            SCRIPT,
+            new Rule("element", "<(?:iframe|frame|object|embed|canvas|video|audio|svg|math|form|input|select|textarea|template)\\b"),
+            new Rule("external-resource", "<link\\b|@import\\b|\\s(?:src|srcset|background|poster)\\s*=\\s*[\"']?(?!data:)[^\\s\"'>]"
+                    + "|url\\(\\s*[\"']?(?!data:)[^)\\s\"']"),
+            new Rule("css-layout", "display\\s*:\\s*(?:inline-)?(?:flex|grid)|position\\s*:\\s*(?:fixed|sticky)|\\b(?:column-count|columns|gap|writing-mode)\\s*:"),
+            new Rule("css-function", "\\b(?:var|calc|clamp|min|max|env)\\("),
+            new Rule("css-effect", "\\b(?:transform|filter|clip-path|mask|backdrop-filter|mix-blend-mode)\\s*:"),
+            new Rule("css-at-rule", "@(?:media|supports|font-face|container|layer|keyframes)\\b"),
+    };
+
+    private record Rule(String reason, Pattern pattern) {
+        Rule(String reason, String regex) {
+            this(reason, Pattern.compile(regex));
+        }
+    }
+
+    private HtmlClassifier() {
+    }
+
+    // Characters of Windows-1252 above Latin-1, which the standard PDF fonts can show
+    // Documents are scanned for scripts in windows of this many characters, overlapping by the
+    // longest tag the script rule is sure to see whole
+    private static final int SCAN_WINDOW = 1024 * 1024;
+    private static final int SCAN_OVERLAP = 16 * 1024;
+
+    private static final String WIN_ANSI_EXTRA = "\u20ac\u201a\u0192\u201e\u2026\u2020\u2021\u02c6\u2030\u0160\u2039\u0152\u017d"
+            + "\u2018\u2019\u201c\u201d\u2022\u2013\u2014\u02dc\u2122\u0161\u203a\u0153\u017e\u0178";
+
+    /**
+     * Returns why the document needs Chromium, or null if the native renderer can print it.
+     *
+     * @param maxBytes      larger documents always go to Chromium
+     * @param extendedFonts whether TrueType fonts covering Latin, Greek and Cyrillic are
+     *                      registered; without them only Windows-1252 text can be shown
+     */
+    public static String rejectReason(Path html, long maxBytes, boolean extendedFonts) throws IOException {
+        if (Files.size(html) > maxBytes) {
+            return "size";
+        }
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(Files.readAllBytes(html)))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return "charset";
+        }
+        return rejectReason(text, extendedFonts);
+    }
+
+    static String rejectReason(String html, boolean extendedFonts) {
+        if (!html.codePoints().allMatch(c -> covered(c, extendedFonts))) {
+            return "glyphs";
+        }
+        String lower = html.toLowerCase(Locale.ROOT);
+        for (Rule rule : RULES) {
+            Matcher matcher = rule.pattern().matcher(lower);
+            if (matcher.find()) {
+                return rule.reason();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the document runs JavaScript, by the same rule that sends it to Chromium. Reads
+     * the document in windows, so it also suits documents too large to classify as a whole.
+     */
+    public static boolean isScripted(Path html) throws IOException {
+        // Latin-1 maps every byte to one character, which is all the ASCII patterns need
+        try (Reader reader = Files.newBufferedReader(html, StandardCharsets.ISO_8859_1)) {
+            char[] buffer = new char[SCAN_WINDOW];
+            String tail = "";
+            for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
+                String window = (tail + new String(buffer, 0, n)).toLowerCase(Locale.ROOT);
+                if (SCRIPT.pattern().matcher(window).find()) {
+                    return true;
+                }
+                tail = window.substring(Math.max(0, window.length() - SCAN_OVERLAP));
+            }
+        }
+        return false;
+    }
+
+    private static boolean covered(int c, boolean extendedFonts) {
+        if (c <= 0xff) {
+            return true;
+        }
+        if (extendedFonts) {
+            // Latin extended, Greek, Cyrillic, general punctuation, currency and letterlike symbols
+            return c <= 0x052f || (c >= 0x2000 && c <= 0x20cf) || (c >= 0x2100 && c <= 0x214f);
+        }
+        return WIN_ANSI_EXTRA.indexOf(c) >= 0;
+    }
+}
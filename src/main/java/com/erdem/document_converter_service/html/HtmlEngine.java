@@ -0,0 +1,32 @@
+package com.erdem.document_converter_service.html;
+
+import java.util.Locale;
+
+/**
+ * Engine an HTML conversion asks for with the {@value #HEADER} header. {@code AUTO} lets
+ * the {@link HtmlClassifier} pick the native renderer for simple documents and Chromium for
+ * everything else.
+ */
+public enum HtmlEngine {
+    AUTO, NATIVE, CHROMIUM;
+
+    public static final String HEADER = "X-Html-Engine";
+
+    /**
+     * Parses the header value; a missing or unknown value means {@code AUTO}.
+     */
+    public static HtmlEngine parse(String value) {
+        if (value == null || value.isBlank()) {
+            return AUTO;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return AUTO;
+        }
+    }
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,139 @@
+package com.erdem.document_converter_service.html;
+
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+import com.microsoft.playwright.TimeoutError;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.Margin;
+import com.microsoft.playwright.options.WaitUntilState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Loads one document on a pooled page and prints it to PDF.
+ * <p>
+ * The page is ready once the DOM has loaded, the load event has fired, {@code document.fonts}
+ * is ready and no routed request is pending. There is no fixed 500ms network-idle window, so
+ * a document without remote resources prints as soon as it is parsed. Everything the document
+ * requests goes through the {@link AssetCache}. Navigation and waiting for resources are capped
+ * by a per-render budget, or by what is left of the request's time if that is less; once the
+ * document has loaded, a render past the budget is printed as it is.
+ */
+final class HtmlPrinter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HtmlPrinter.class);
+
+    private static final String HTML_CONTENT_TYPE = "text/html; charset=utf-8";
+    // Resolves to false when the fonts are not ready within the given milliseconds
+    private static final String FONTS_READY = "budget => Promise.race(["
+            + "document.fonts.ready.then(() => true), new Promise(resolve => setTimeout(() => resolve(false), budget))])";
+
+    private final AssetCache assetCache;
+    private final long budgetMs;
+    private final Timer navigateTimer;
+    private final Timer pdfTimer;
+    private final Counter budgetExceeded;
+
+    /**
+     * @param assetCache serves allowed sub-resources, or null to block all of them
+     */
+    HtmlPrinter(AssetCache assetCache, long budgetMs, Timer navigateTimer, Timer pdfTimer, Counter budgetExceeded) {
+        this.assetCache = assetCache;
+        this.budgetMs = budgetMs;
+        this.navigateTimer = navigateTimer;
+        this.pdfTimer = pdfTimer;
+        this.budgetExceeded = budgetExceeded;
+    }
+
+    /**
+     * Loads the document from disk through a route on a throw-away origin instead of
+     * {@code setContent}, so the HTML never has to be held as a Java String. A file:// URL is
+     * avoided on purpose: it would let the document read other local files, and the unique
+     * host keeps storage from leaking between renders on the same pooled page.
+     *
+     * @param maxMs what is left of the request's time, {@link Long#MAX_VALUE} for no bound
+     */
+    void print(Page page, Path htmlPath, Path outputPath, PrintOptions printOptions, long maxMs) {
+        String documentUrl = "http://doc-" + UUID.randomUUID().toString().replace("-", "") + ".invalid/";
+        int[] pending = new int[1];
+        Consumer<Request> started = request -> pending[0]++;
+        Consumer<Request> finished = request -> pending[0]--;
+        Consumer<Route> router = route -> {
+            if (documentUrl.equals(route.request().url())) {
+                route.fulfill(new Route.FulfillOptions()
+                        .setStatus(200)
+                        .setContentType(HTML_CONTENT_TYPE)
+                        .setPath(htmlPath));
+            } else if (assetCache != null) {
+                assetCache.handle(route);
+            } else {
+                route.abort("blockedbyclient");
+            }
+        };
+
+        page.route("**/*", router);
+        page.onRequest(started);
+        page.onRequestFinished(finished);
+        page.onRequestFailed(finished);
+        try {
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(Math.min(budgetMs, maxMs));
+            page.navigate(documentUrl, new Page.NavigateOptions()
+                    .setWaitUntil(WaitUntilState.DOMCONTENTLOADED)
+                    .setTimeout(remainingMs(deadline)));
+            awaitReady(page, pending, deadline);
+            navigateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            start = System.nanoTime();
+            page.pdf(new Page.PdfOptions()
+                    .setPath(outputPath)
+                    .setFormat(PlaywrightEngine.PAGE_FORMAT)
+                    .setMargin(new Margin()
+                            .setTop(PlaywrightEngine.PAGE_MARGIN)
+                            .setRight(PlaywrightEngine.PAGE_MARGIN)
+                            .setBottom(PlaywrightEngine.PAGE_MARGIN)
+                            .setLeft(PlaywrightEngine.PAGE_MARGIN))
+                    .setPrintBackground(printOptions.printBackground())
+                    .setPreferCSSPageSize(true)
+                    .setDisplayHeaderFooter(false)
+                    .setScale(printOptions.scale()));
+            pdfTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            page.offRequest(started);
+            page.offRequestFinished(finished);
+            page.offRequestFailed(finished);
+            page.unroute("**/*", router);
+        }
+    }
+
+    /**
+     * Load event, fonts and pending requests, each bounded by what is left of the budget.
+     * Request events are dispatched while Playwright waits for the pending count to drop.
+     */
+    private void awaitReady(Page page, int[] pending, long deadline) {
+        try {
+            page.waitForLoadState(LoadState.LOAD, new Page.WaitForLoadStateOptions().setTimeout(remainingMs(deadline)));
+            if (Boolean.TRUE.equals(page.evaluate(FONTS_READY, (long) remainingMs(deadline)))) {
+                page.waitForCondition(() -> pending[0] <= 0, new Page.WaitForConditionOptions().setTimeout(remainingMs(deadline)));
+                return;
+            }
+        } catch (TimeoutError e) {
+            // Load event or the last request not reached within the budget
+        }
+        budgetExceeded.increment();
+        LOGGER.debug("Render budget of {}ms exceeded ({} requests pending), printing as is", budgetMs, pending[0]);
+    }
+
+    private static double remainingMs(long deadline) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+}
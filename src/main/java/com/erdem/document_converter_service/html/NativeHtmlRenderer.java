@@ -0,0 +1,130 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FontStyle;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Renders simple HTML documents to PDF inside the JVM with openhtmltopdf, without a browser
+ * page, for the documents the {@link HtmlClassifier} accepts. The document is parsed with
+ * jsoup, so it does not have to be well-formed XHTML.
+ * <p>
+ * Nothing outside the document is loaded: only {@code data:} URIs are resolved. Fonts come
+ * from {@code app.html.native.font-directory}; the Liberation families shipped with the image
+ * also stand in for Arial, Times New Roman, Courier New and the generic families.
+ */
+@Component
+public class NativeHtmlRenderer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NativeHtmlRenderer.class);
+
+    // Families the Liberation fonts are metric-compatible with
+    private static final Map<String, List<String>> ALIASES = Map.of(
+            "Liberation Sans", List.of("Arial", "Helvetica", "sans-serif"),
+            "Liberation Serif", List.of("Times New Roman", "Times", "serif"),
+            "Liberation Mono", List.of("Courier New", "Courier", "monospace"));
+
+    @Value("${app.html.native.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.html.native.max-bytes:2097152}")
+    private long maxBytes;
+
+    // TrueType fonts to register; empty = the standard PDF fonts only (Windows-1252 text)
+    @Value("${app.html.native.font-directory:/usr/share/fonts/truetype/liberation}")
+    private String fontDirectory;
+
+    // 0 = one render per CPU; renders are CPU-bound
+    @Value("${app.html.native.max-concurrent:0}")
+    private int maxConcurrent;
+
+    private record Font(File file, String family, int weight, FontStyle style) {
+    }
+
+    private final List<Font> fonts = new ArrayList<>();
+    private Semaphore slots;
+
+    @PostConstruct
+    public void init() {
+        slots = new Semaphore(maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors(), true);
+        if (!enabled) {
+            return;
+        }
+        if (!fontDirectory.isBlank() && Files.isDirectory(Paths.get(fontDirectory))) {
+            try (Stream<Path> files = Files.list(Paths.get(fontDirectory))) {
+                files.filter(file -> file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".ttf"))
+                        .sorted()
+                        .forEach(this::addFont);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to list fonts in {}: {}", fontDirectory, e.getMessage());
+            }
+        }
+        LOGGER.info("Native HTML renderer enabled: maxBytes={} fonts={} maxConcurrent={}", maxBytes, fonts.size(), slots.availablePermits());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Why the document has to go to Chromium, or null if this renderer can print it.
+     */
+    public String rejectReason(Path htmlPath) throws IOException {
+        return HtmlClassifier.rejectReason(htmlPath, maxBytes, !fonts.isEmpty());
+    }
+
+    public void renderPdf(Path htmlPath, Path outputPath) throws Exception {
+        slots.acquire();
+        try (OutputStream out = Files.newOutputStream(outputPath)) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            builder.withW3cDocument(new W3CDom().fromJsoup(Jsoup.parse(htmlPath.toFile(), "UTF-8")), null);
+            builder.useUriResolver((baseUri, uri) -> uri != null && uri.startsWith("data:") ? uri : null);
+            for (Font font : fonts) {
+                builder.useFont(font.file(), font.family(), font.weight(), font.style(), true);
+            }
+            builder.toStream(out);
+            builder.run();
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Registers a font named like {@code LiberationSans-BoldItalic.ttf} under its family and
+     * the aliases of that family.
+     */
+    private void addFont(Path file) {
+        String name = file.getFileName().toString();
+        name = name.substring(0, name.length() - 4);
+        int dash = name.indexOf('-');
+        String family = (dash > 0 ? name.substring(0, dash) : name).replaceAll("(?<=[a-z])(?=[A-Z])", " ");
+        String variant = dash > 0 ? name.substring(dash + 1) : "";
+        int weight = variant.contains("Bold") ? 700 : 400;
+        FontStyle style = variant.contains("Italic") || variant.contains("Oblique") ? FontStyle.ITALIC : FontStyle.NORMAL;
+        fonts.add(new Font(file.toFile(), family, weight, style));
+        for (String alias : ALIASES.getOrDefault(family, List.of())) {
+            fonts.add(new Font(file.toFile(), alias, weight, style));
+        }
+    }
+}
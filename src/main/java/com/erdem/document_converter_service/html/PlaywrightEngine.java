@@ -0,0 +1,187 @@
+package com.erdem.document_converter_service.html;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.erdem.document_converter_service.metrics.StageMetrics;
+import com.microsoft.playwright.BrowserType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Owns the Playwright/Chromium lifecycle and renders HTML to PDF on pooled, pre-warmed pages.
+ * <p>
+ * By default a single browser is shared by all request threads. With
+ * {@code playwright.sharding.enabled=true} N independent Playwright+Chromium shards are
+ * launched, each driven by its own thread; renders go to the least-loaded healthy shard and
+ * crashed shards are relaunched by the health check.
+ */
+@Component
+public class PlaywrightEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlaywrightEngine.class);
+
+    // Page settings for HTML rendering; they are part of the result cache key, and scale and
+    // printBackground are the defaults of PrintOptions
+    public static final String PAGE_FORMAT = "A4";
+    public static final String PAGE_MARGIN = "5mm";
+    public static final double PAGE_SCALE = 0.9;
+    public static final Map<String, Object> PAGE_SETTINGS = Map.of(
+            "format", PAGE_FORMAT,
+            "margin", PAGE_MARGIN,
+            "scale", PAGE_SCALE,
+            "printBackground", true,
+            "preferCssPageSize", true);
+
+    @Value("${playwright.browser.pool.size:4}")
+    private int poolSize;
+
+    @Value("${playwright.browser.timeout:30000}")
+    private long acquireTimeoutMs;
+
+    // Default timeout of page operations such as navigation
+    @Value("${playwright.page.timeout:30000}")
+    private int pageTimeoutMs;
+
+    @Value("${playwright.page.max-uses:100}")
+    private int maxUsesPerPage;
+
+    @Value("${playwright.pool.health-check-interval-ms:30000}")
+    private long healthCheckIntervalMs;
+
+    // A browser stuck in one call for longer than this is closed and relaunched by the health check
+    @Value("${playwright.browser.hang-timeout-ms:60000}")
+    private long hangTimeoutMs;
+
+    @Value("${playwright.sharding.enabled:false}")
+    private boolean shardingEnabled;
+
+    // 0 = one shard per available processor
+    @Value("${playwright.sharding.shards:0}")
+    private int configuredShards;
+
+    // Longest a render waits for its resources before the page is printed as it is
+    @Value("${playwright.render.budget-ms:10000}")
+    private long renderBudgetMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private AssetCache assetCache;
+
+    private final List<BrowserShard> shards = new ArrayList<>();
+    private ScheduledExecutorService healthChecker;
+
+    @PostConstruct
+    public void init() {
+        HtmlPrinter printer = new HtmlPrinter(assetCache, renderBudgetMs,
+                stageMetrics.timer(StageMetrics.NAVIGATE, "html"),
+                stageMetrics.timer(StageMetrics.PDF, "html"),
+                meterRegistry.counter("converter.html.budget-exceeded"));
+        if (shardingEnabled) {
+            int shardCount = configuredShards > 0 ? configuredShards : Runtime.getRuntime().availableProcessors();
+            for (int i = 0; i < shardCount; i++) {
+                // One page per shard: the owner thread renders one document at a time
+                shards.add(new BrowserShard("shard-" + i, true, 1, maxUsesPerPage, pageTimeoutMs, hangTimeoutMs, printer, meterRegistry, stageMetrics));
+            }
+        } else {
+            shards.add(new BrowserShard("default", false, poolSize, maxUsesPerPage, pageTimeoutMs, hangTimeoutMs, printer, meterRegistry, stageMetrics));
+        }
+
+        for (BrowserShard shard : shards) {
+            try {
+                shard.start();
+            } catch (Exception e) {
+                LOGGER.error("Failed to initialize Playwright browser {}: {}", shard.name(), e.getMessage(), e);
+            }
+        }
+        LOGGER.info("Playwright initialized: mode={} browsers={} healthy={}",
+                shardingEnabled ? "sharded" : "shared", shards.size(), shards.stream().filter(BrowserShard::isHealthy).count());
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "browser-pool-health");
+            t.setDaemon(true);
+            return t;
+        });
+        healthChecker.scheduleWithFixedDelay(this::healthCheck, healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    static BrowserType.LaunchOptions launchOptions() {
+        return new BrowserType.LaunchOptions()
+                .setHeadless(true)
+                .setArgs(java.util.Arrays.asList(
+                        "--no-sandbox",
+                        "--disable-dev-shm-usage",
+                        "--disable-gpu",
+                        "--disable-extensions",
+                        "--disable-plugins",
+                        "--disable-background-timer-throttling",
+                        "--disable-backgrounding-occluded-windows",
+                        "--disable-renderer-backgrounding"
+                ));
+    }
+
+    public boolean isAvailable() {
+        return shards.stream().anyMatch(BrowserShard::isHealthy);
+    }
+
+    /**
+     * Number of documents that can render at the same time across all browsers.
+     */
+    public int capacity() {
+        return shards.stream().mapToInt(BrowserShard::capacity).sum();
+    }
+
+    /**
+     * Renders the HTML document at htmlPath into a PDF at outputPath on the least-loaded healthy browser.
+     */
+    public void renderPdf(Path htmlPath, Path outputPath) throws Exception {
+        renderPdf(htmlPath, outputPath, PrintOptions.DEFAULT, acquireTimeoutMs);
+    }
+
+    /**
+     * Like {@link #renderPdf(Path, Path)} with the given print options, within maxMs, e.g. what
+     * is left of the request's deadline: it bounds the wait for a page, navigation and the wait
+     * for resources ({@link Long#MAX_VALUE} for no bound).
+     */
+    public void renderPdf(Path htmlPath, Path outputPath, PrintOptions printOptions, long maxMs) throws Exception {
+        BrowserShard shard = shards.stream()
+                .filter(BrowserShard::isHealthy)
+                .min(Comparator.comparingInt(BrowserShard::load))
+                .orElseThrow(() -> new IllegalStateException("No healthy Playwright browser available"));
+        shard.render(htmlPath, outputPath, printOptions, Math.min(acquireTimeoutMs, maxMs), maxMs);
+    }
+
+    private void healthCheck() {
+        for (BrowserShard shard : shards) {
+            shard.healthCheck();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (BrowserShard shard : shards) {
+            shard.close();
+        }
+    }
+}
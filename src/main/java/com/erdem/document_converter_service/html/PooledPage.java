@@ -0,0 +1,74 @@
+package com.erdem.document_converter_service.html;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+
+/**
+ * A browser context with a single page, reused across renders by {@link BrowserPagePool}.
+ */
+public final class PooledPage {
+
+    private final BrowserContext context;
+    private final Page page;
+    private final long createdAt = System.currentTimeMillis();
+    private int uses;
+    private volatile boolean broken;
+    private volatile boolean probeDue;
+
+    PooledPage(BrowserContext context, Page page) {
+        this.context = context;
+        this.page = page;
+        // A crashed renderer leaves the page unusable, retire it on release
+        page.onCrash(p -> broken = true);
+        page.onClose(p -> broken = true);
+    }
+
+    public Page page() {
+        return page;
+    }
+
+    BrowserContext context() {
+        return context;
+    }
+
+    int uses() {
+        return uses;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    void markUsed() {
+        uses++;
+    }
+
+    void markProbeDue() {
+        probeDue = true;
+    }
+
+    /**
+     * Whether the page is due for a health probe, clearing the mark.
+     */
+    boolean takeProbeDue() {
+        boolean due = probeDue;
+        probeDue = false;
+        return due;
+    }
+
+    void markBroken() {
+        broken = true;
+    }
+
+    boolean isBroken() {
+        return broken || page.isClosed();
+    }
+
+    void close() {
+        try {
+            context.close();
+        } catch (RuntimeException e) {
+            // Context is already gone together with a crashed page or browser
+        }
+    }
+}
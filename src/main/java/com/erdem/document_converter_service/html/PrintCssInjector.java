@@ -0,0 +1,100 @@
+package com.erdem.document_converter_service.html;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams an HTML document while injecting the print stylesheet into its head.
+ * <p>
+ * Only the first {@link #LOOKAHEAD_BYTES} bytes are buffered to locate the {@code <head>} or
+ * {@code <html>} start tag; the rest of the document is copied through untouched. Tag names
+ * are matched byte-wise, which is safe for UTF-8 and single-byte encodings. A document whose
+ * tags do not appear within the lookahead window is wrapped in a minimal skeleton instead.
+ */
+public final class PrintCssInjector {
+
+    static final int LOOKAHEAD_BYTES = 64 * 1024;
+
+    private static final byte[] PRINT_CSS = """
+            <style type="text/css" media="print">@page{margin:0.5cm;size:A4;}body{margin:0;padding:10px;font-family:Arial, sans-serif;-webkit-print-color-adjust:exact;}</style>
+            """.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEAD_OPEN = "<head>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEAD_CLOSE = "</head>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] WRAP_OPEN = "<!DOCTYPE html><html><head>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] WRAP_BODY = "</head><body>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] WRAP_CLOSE = "</body></html>".getBytes(StandardCharsets.UTF_8);
+
+    private PrintCssInjector() {
+    }
+
+    public static void inject(InputStream in, OutputStream out) throws IOException {
+        byte[] prefix = in.readNBytes(LOOKAHEAD_BYTES);
+
+        int insertAt = findStartTagEnd(prefix, "head");
+        if (insertAt >= 0) {
+            out.write(prefix, 0, insertAt);
+            out.write(PRINT_CSS);
+            out.write(prefix, insertAt, prefix.length - insertAt);
+            in.transferTo(out);
+            return;
+        }
+
+        insertAt = findStartTagEnd(prefix, "html");
+        if (insertAt >= 0) {
+            out.write(prefix, 0, insertAt);
+            out.write(HEAD_OPEN);
+            out.write(PRINT_CSS);
+            out.write(HEAD_CLOSE);
+            out.write(prefix, insertAt, prefix.length - insertAt);
+            in.transferTo(out);
+            return;
+        }
+
+        out.write(WRAP_OPEN);
+        out.write(PRINT_CSS);
+        out.write(WRAP_BODY);
+        out.write(prefix);
+        in.transferTo(out);
+        out.write(WRAP_CLOSE);
+    }
+
+    /**
+     * Returns the index just past the first {@code <name ...>} start tag, or -1 when the
+     * buffer does not contain a complete one. {@code <header>} does not count as {@code <head>}.
+     */
+    static int findStartTagEnd(byte[] buf, String name) {
+        int last = buf.length - name.length() - 1;
+        for (int i = 0; i < last; i++) {
+            if (buf[i] != '<' || !regionMatchesIgnoreCase(buf, i + 1, name)) {
+                continue;
+            }
+            int after = i + 1 + name.length();
+            byte next = buf[after];
+            if (next != '>' && next != '/' && !isWhitespace(next)) {
+                continue;
+            }
+            for (int j = after; j < buf.length; j++) {
+                if (buf[j] == '>') {
+                    return j + 1;
+                }
+            }
+            return -1;
+        }
+        return -1;
+    }
+
+    private static boolean regionMatchesIgnoreCase(byte[] buf, int offset, String name) {
+        for (int k = 0; k < name.length(); k++) {
+            if (Character.toLowerCase((char) buf[offset + k]) != name.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+}
@@ -0,0 +1,23 @@
+package com.erdem.document_converter_service.html;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Chromium print settings an output profile may change; the other page settings are fixed
+ * by {@link PlaywrightEngine#PAGE_SETTINGS}.
+ */
+public record PrintOptions(boolean printBackground, double scale) {
+
+    public static final PrintOptions DEFAULT = new PrintOptions(true, PlaywrightEngine.PAGE_SCALE);
+
+    /**
+     * All page settings with these options applied, for the result cache key.
+     */
+    public Map<String, Object> pageSettings() {
+        Map<String, Object> settings = new HashMap<>(PlaywrightEngine.PAGE_SETTINGS);
+        settings.put("printBackground", printBackground);
+        settings.put("scale", scale);
+        return settings;
+    }
+}
@@ -0,0 +1,54 @@
+package com.erdem.document_converter_service.job;
+
+/**
+ * State of an asynchronous conversion job. Persisted as job.json next to the job's input
+ * and result files so queued jobs survive a restart. Timestamps are epoch millis, 0 when unset.
+ */
+public record ConversionJob(
+        String id,
+        JobType type,
+        String originalFilename,
+        boolean landscape,
+        boolean fitToPage,
+        String profile,
+        String callbackUrl,
+        JobStatus status,
+        String error,
+        long resultBytes,
+        long createdAt,
+        long startedAt,
+        long finishedAt) {
+
+    static ConversionJob queued(String id, JobType type, String originalFilename, boolean landscape, boolean fitToPage,
+            String profile, String callbackUrl) {
+        return new ConversionJob(id, type, originalFilename, landscape, fitToPage, profile, callbackUrl,
+                JobStatus.QUEUED, null, 0, System.currentTimeMillis(), 0, 0);
+    }
+
+    ConversionJob requeued() {
+        return new ConversionJob(id, type, originalFilename, landscape, fitToPage, profile, callbackUrl,
+                JobStatus.QUEUED, null, 0, createdAt, 0, 0);
+    }
+
+    ConversionJob running() {
+        return new ConversionJob(id, type, originalFilename, landscape, fitToPage, profile, callbackUrl,
+                JobStatus.RUNNING, null, 0, createdAt, System.currentTimeMillis(), 0);
+    }
+
+    ConversionJob succeeded(long resultBytes) {
+        return finished(JobStatus.SUCCEEDED, null, resultBytes);
+    }
+
+    ConversionJob failed(String error) {
+        return finished(JobStatus.FAILED, error, 0);
+    }
+
+    ConversionJob cancelled() {
+        return finished(JobStatus.CANCELLED, null, 0);
+    }
+
+    private ConversionJob finished(JobStatus status, String error, long resultBytes) {
+        return new ConversionJob(id, type, originalFilename, landscape, fitToPage, profile, callbackUrl,
+                status, error, resultBytes, createdAt, startedAt, System.currentTimeMillis());
+    }
+}
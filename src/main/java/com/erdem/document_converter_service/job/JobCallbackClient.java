@@ -0,0 +1,155 @@
+package com.erdem.document_converter_service.job;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Posts a job's final state to its completion webhook. Delivery happens off the worker
+ * threads and is retried with exponential backoff; a callback that keeps failing is logged
+ * and dropped, the job result stays available for polling.
+ * <p>
+ * Callbacks are posted from inside the cluster, so only hosts on
+ * {@code app.jobs.callback.allowed-hosts} are accepted when it is set. Otherwise any host is,
+ * as long as it resolves to public addresses only: loopback, link-local (cloud metadata),
+ * private and unique-local addresses are refused. The host is resolved again before every
+ * attempt.
+ */
+@Component
+public class JobCallbackClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobCallbackClient.class);
+
+    @Value("${app.jobs.callback.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.jobs.callback.timeout-ms:5000}")
+    private int timeoutMs;
+
+    // Comma-separated hosts callbacks may go to, "*.example.com" for subdomains; empty = any public host
+    @Value("${app.jobs.callback.allowed-hosts:}")
+    private String allowedHostsProperty;
+
+    private List<String> allowedHosts;
+
+    private RestClient restClient;
+    private ScheduledExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        allowedHosts = Arrays.stream(allowedHostsProperty.split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .map(host -> host.toLowerCase(Locale.ROOT))
+                .toList();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-callback");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Whether the URL may receive callbacks: http(s), and an allowed host or one resolving to
+     * public addresses only.
+     */
+    public boolean isAllowed(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) || uri.getHost() == null) {
+            return false;
+        }
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        if (!allowedHosts.isEmpty()) {
+            return allowedHosts.stream().anyMatch(allowed -> allowed.startsWith("*.")
+                    ? host.endsWith(allowed.substring(1)) || host.equals(allowed.substring(2))
+                    : host.equals(allowed));
+        }
+        try {
+            // Brackets of an IPv6 literal are part of URI.getHost()
+            InetAddress[] addresses = InetAddress.getAllByName(host.replace("[", "").replace("]", ""));
+            return Arrays.stream(addresses).noneMatch(JobCallbackClient::isInternal);
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        return address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isSiteLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()
+                // IPv6 unique local addresses (fc00::/7), which isSiteLocalAddress does not cover
+                || address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc;
+    }
+
+    public void notify(ConversionJob job, String resultPath) {
+        if (job.callbackUrl() == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", job.id());
+        payload.put("status", job.status());
+        payload.put("error", job.error());
+        payload.put("resultUrl", job.status() == JobStatus.SUCCEEDED ? resultPath : null);
+        sender.execute(() -> send(job, payload, 1));
+    }
+
+    private void send(ConversionJob job, Map<String, Object> payload, int attempt) {
+        if (!isAllowed(job.callbackUrl())) {
+            // Checked on submit already; the name may resolve differently by now
+            LOGGER.warn("Dropping callback for job {}: {} is not an allowed callback host", job.id(), job.callbackUrl());
+            return;
+        }
+        try {
+            restClient.post()
+                    .uri(job.callbackUrl())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(payload)
+                    .retrieve()
+                    .toBodilessEntity();
+            LOGGER.debug("Delivered callback for job {} to {}", job.id(), job.callbackUrl());
+        } catch (RuntimeException e) {
+            if (attempt >= maxAttempts) {
+                LOGGER.warn("Giving up on callback for job {} after {} attempts: {}", job.id(), attempt, e.getMessage());
+                return;
+            }
+            long delayMs = 1000L << (attempt - 1);
+            LOGGER.debug("Callback for job {} failed (attempt {}), retrying in {}ms: {}", job.id(), attempt, delayMs, e.getMessage());
+            sender.schedule(() -> send(job, payload, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.erdem.document_converter_service.job;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+import com.erdem.document_converter_service.conversion.AdmissionRejectedException;
+import com.erdem.document_converter_service.conversion.ConversionService;
+import com.erdem.document_converter_service.conversion.PdfProfile;
+import com.erdem.document_converter_service.conversion.TempFileNames;
+import com.erdem.document_converter_service.html.HtmlEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs conversions as asynchronous jobs.
+ * <p>
+ * Every job owns a directory under {@code <app.output.directory>/jobs/<id>} holding job.json,
+ * the uploaded input and, once done, result.pdf. The bounded in-memory queue is rebuilt from
+ * those directories on start-up, so queued jobs and jobs interrupted by a restart run again.
+ * Finished jobs and their results are kept for {@code app.jobs.retention-seconds}.
+ */
+@Service
+public class JobService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobService.class);
+
+    private static final String JOB_FILE = "job.json";
+    private static final String RESULT_FILE = "result.pdf";
+    private static final String INPUT_FILE = "input";
+
+    @Value("${app.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.jobs.retention-seconds:3600}")
+    private long retentionSeconds;
+
+    @Value("${app.output.directory:}")
+    private String configuredOutputDirectory;
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Autowired
+    private JobCallbackClient callbackClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Thread> running = new ConcurrentHashMap<>();
+    private BlockingQueue<String> queue;
+    private Path jobsDir;
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService janitor;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void init() throws IOException {
+        jobsDir = resolveJobsDir();
+        Files.createDirectories(jobsDir);
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("converter.jobs.queued", this, s -> s.queue.size()).register(meterRegistry);
+        Gauge.builder("converter.jobs.running", running, Map::size).register(meterRegistry);
+
+        recover();
+
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "job-worker-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workLoop);
+        }
+
+        janitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-janitor");
+            t.setDaemon(true);
+            return t;
+        });
+        janitor.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.MINUTES);
+
+        LOGGER.info("Job service initialized: dir={} workers={} queueCapacity={} queued={} retention={}s",
+                jobsDir, workers, queueCapacity, queue.size(), retentionSeconds);
+    }
+
+    /**
+     * Stores the upload and queues a conversion job.
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public ConversionJob submit(JobType type, MultipartFile file, boolean landscape, boolean fitToPage, PdfProfile profile,
+            String callbackUrl) throws IOException {
+        if (queue.remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Job queue is full");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path dir = jobsDir.resolve(id);
+        Files.createDirectories(dir);
+        file.transferTo(inputPath(dir, file.getOriginalFilename()));
+
+        ConversionJob job = ConversionJob.queued(id, type, file.getOriginalFilename(), landscape, fitToPage,
+                profile != null ? profile.tag() : null, callbackUrl);
+        persist(job);
+        jobs.put(id, job);
+        if (!queue.offer(id)) {
+            jobs.remove(id);
+            deleteDirectory(dir);
+            throw new RejectedExecutionException("Job queue is full");
+        }
+
+        LOGGER.info("Queued {} job {} for {} (queued={})", type, id, file.getOriginalFilename(), queue.size());
+        return job;
+    }
+
+    public Optional<ConversionJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public Path resultPath(ConversionJob job) {
+        return jobsDir.resolve(job.id()).resolve(RESULT_FILE);
+    }
+
+    /**
+     * Cancels a queued or running job. A running conversion is interrupted; its result, if it
+     * still completes, is discarded. Returns the job as it is after the call.
+     */
+    public Optional<ConversionJob> cancel(String id) {
+        ConversionJob cancelled = transition(id, job -> job.status().isTerminal() ? job : job.cancelled());
+        if (cancelled == null) {
+            return Optional.empty();
+        }
+        if (cancelled.status() == JobStatus.CANCELLED && queue.remove(id)) {
+            LOGGER.info("Cancelled queued job {}", id);
+        }
+        // Atomic with the worker's removal, so the interrupt cannot reach the worker's next job
+        running.computeIfPresent(id, (key, worker) -> {
+            LOGGER.info("Cancelling running job {}", id);
+            worker.interrupt();
+            return worker;
+        });
+        return Optional.of(cancelled);
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                run(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Unexpected error in job worker: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void run(String id) {
+        ConversionJob job = transition(id, j -> j.status() == JobStatus.QUEUED ? j.running() : j);
+        if (job == null || job.status() != JobStatus.RUNNING) {
+            return;
+        }
+
+        running.put(id, Thread.currentThread());
+        Path dir = jobsDir.resolve(id);
+        ConversionJob finished;
+        try {
+            CachedPdf pdf = convert(job, inputPath(dir, job.originalFilename()));
+            Path result = dir.resolve(RESULT_FILE);
+            Path tmp = dir.resolve(RESULT_FILE + ".tmp");
+            try (InputStream in = pdf.openStream()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                pdf.release();
+            }
+            Files.move(tmp, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = pdf.length();
+            finished = transition(id, j -> j.status() == JobStatus.RUNNING ? j.succeeded(size) : j);
+        } catch (AdmissionRejectedException e) {
+            // The engine is saturated; jobs are not latency sensitive, so retry later instead of failing
+            requeueLater(id, e.retryAfterSeconds());
+            return;
+        } catch (Exception e) {
+            if (stopping) {
+                // Leave the job RUNNING on disk, recover() queues it again on the next start
+                return;
+            }
+            LOGGER.warn("Job {} failed: {}", id, e.getMessage());
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            finished = transition(id, j -> j.status() == JobStatus.RUNNING ? j.failed(message) : j);
+        } finally {
+            running.remove(id);
+            // Clear a cancellation interrupt so it does not hit the next job on this worker
+            Thread.interrupted();
+        }
+
+        if (finished == null) {
+            return;
+        }
+        if (finished.status() == JobStatus.CANCELLED) {
+            deleteQuietly(dir.resolve(RESULT_FILE));
+        }
+        meterRegistry.counter("converter.jobs.completed", "type", finished.type().name().toLowerCase(), "status", finished.status().name().toLowerCase()).increment();
+        LOGGER.info("Job {} finished: status={} duration={}ms", id, finished.status(), finished.finishedAt() - finished.startedAt());
+    }
+
+    private void requeueLater(String id, long delaySeconds) {
+        ConversionJob job = transition(id, j -> j.status() == JobStatus.RUNNING ? j.requeued() : j);
+        if (job == null || job.status() != JobStatus.QUEUED) {
+            return;
+        }
+        LOGGER.info("Engine busy, retrying job {} in {}s", id, delaySeconds);
+        janitor.schedule(() -> {
+            if (!queue.offer(id)) {
+                transition(id, j -> j.status() == JobStatus.QUEUED ? j.failed("Job queue is full") : j);
+            }
+        }, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private CachedPdf convert(ConversionJob job, Path input) throws Exception {
+        FileSystemResource source = new FileSystemResource(input);
+        return switch (job.type()) {
+            case EXCEL -> conversionService.convertExcel(source, job.originalFilename(), job.landscape(), job.fitToPage(),
+                    PdfProfile.parse(job.profile()));
+            case HTML -> conversionService.convertHtml(source, job.originalFilename(), HtmlEngine.AUTO, PdfProfile.parse(job.profile()));
+        };
+    }
+
+    /**
+     * Applies a state change and persists it. Returns the new state, or null for an unknown job.
+     * The change that makes a job terminal sends its callback, whichever path made it.
+     */
+    private synchronized ConversionJob transition(String id, UnaryOperator<ConversionJob> change) {
+        ConversionJob current = jobs.get(id);
+        if (current == null) {
+            return null;
+        }
+        ConversionJob next = change.apply(current);
+        if (next != current) {
+            jobs.put(id, next);
+            try {
+                persist(next);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to persist job {}: {}", id, e.getMessage());
+            }
+            if (next.status().isTerminal() && !current.status().isTerminal()) {
+                callbackClient.notify(next, resultUrl(id));
+            }
+        }
+        return next;
+    }
+
+    private void persist(ConversionJob job) throws IOException {
+        Path dir = jobsDir.resolve(job.id());
+        Path tmp = dir.resolve(JOB_FILE + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), job);
+        Files.move(tmp, dir.resolve(JOB_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reloads jobs from disk. Queued and interrupted running jobs are queued again in
+     * submission order; unreadable job directories are removed.
+     */
+    private void recover() throws IOException {
+        List<ConversionJob> pending = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(jobsDir)) {
+            for (Path dir : (Iterable<Path>) dirs::iterator) {
+                Path jobFile = dir.resolve(JOB_FILE);
+                if (!Files.isRegularFile(jobFile)) {
+                    deleteDirectory(dir);
+                    continue;
+                }
+                ConversionJob job;
+                try {
+                    job = objectMapper.readValue(jobFile.toFile(), ConversionJob.class);
+                } catch (IOException e) {
+                    LOGGER.warn("Dropping unreadable job {}: {}", dir.getFileName(), e.getMessage());
+                    deleteDirectory(dir);
+                    continue;
+                }
+                if (!job.status().isTerminal()) {
+                    job = job.requeued();
+                    persist(job);
+                    pending.add(job);
+                }
+                jobs.put(job.id(), job);
+            }
+        }
+
+        pending.sort(Comparator.comparingLong(ConversionJob::createdAt));
+        for (ConversionJob job : pending) {
+            if (!queue.offer(job.id())) {
+                transition(job.id(), j -> j.failed("Job queue was full after restart"));
+            }
+        }
+        if (!pending.isEmpty()) {
+            LOGGER.info("Recovered {} unfinished jobs", pending.size());
+        }
+    }
+
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionSeconds * 1000L;
+        jobs.values().stream()
+                .filter(job -> job.status().isTerminal() && job.finishedAt() < cutoff)
+                .map(ConversionJob::id)
+                .toList()
+                .forEach(id -> {
+                    jobs.remove(id);
+                    deleteDirectory(jobsDir.resolve(id));
+                    LOGGER.debug("Purged expired job {}", id);
+                });
+    }
+
+    private static String resultUrl(String id) {
+        return "/api/jobs/" + id + "/result";
+    }
+
+    private static Path inputPath(Path dir, String originalFilename) {
+        String ext = originalFilename != null
+                ? TempFileNames.extension(TempFileNames.safeName(originalFilename), "")
+                : "";
+        return dir.resolve(INPUT_FILE + ext);
+    }
+
+    private static void deleteDirectory(Path dir) {
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete job directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path resolveJobsDir() {
+        if (configuredOutputDirectory != null && !configuredOutputDirectory.isBlank()) {
+            return Paths.get(configuredOutputDirectory, "jobs");
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "convert-jobs");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (janitor != null) {
+            janitor.shutdownNow();
+        }
+        stopping = true;
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+    }
+}
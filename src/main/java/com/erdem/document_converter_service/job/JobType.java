@@ -0,0 +1,6 @@
+package com.erdem.document_converter_service.job;
+
+public enum JobType {
+    EXCEL,
+    HTML
+}
@@ -0,0 +1,72 @@
+package com.erdem.document_converter_service.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-stage latency timers, all under one meter name {@code converter.stage} tagged with
+ * stage, type (excel, html, batch) and options, so a slow request can be attributed to the
+ * stage it spent its time in. Timers are created once per tag combination and cached; the hot
+ * path only records a nanoTime delta.
+ */
+@Component
+public class StageMetrics {
+
+    public static final String UPLOAD = "upload";
+    public static final String ADMISSION = "admission";
+    public static final String OFFICE = "office";
+    public static final String OFFICE_FILTERS = "office-filters";
+    public static final String PAGE_WAIT = "page-wait";
+    public static final String NAVIGATE = "navigate";
+    public static final String PDF = "pdf";
+    public static final String STITCH = "stitch";
+    // Whole render by one in-JVM or browser engine, tagged with the engine as options
+    public static final String RENDER = "render";
+    // Applying a non-default output profile to the rendered PDF, tagged with the profile as options
+    public static final String OPTIMIZE = "optimize";
+    public static final String RESPONSE = "response";
+
+    public static final String DEFAULT_OPTIONS = "default";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public Timer timer(String stage, String type, String options) {
+        return timers.computeIfAbsent(stage + '|' + type + '|' + options, k -> Timer.builder("converter.stage")
+                .description("Time spent in one stage of a conversion")
+                .tag("stage", stage)
+                .tag("type", type)
+                .tag("options", options)
+                .publishPercentileHistogram()
+                // Bounds keep the histogram to the buckets a conversion can actually hit
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry));
+    }
+
+    public Timer timer(String stage, String type) {
+        return timer(stage, type, DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Options tag for an Excel conversion.
+     */
+    public static String excelOptions(boolean landscape, boolean fitToPage) {
+        if (landscape && fitToPage) {
+            return "landscape,fitToPage";
+        }
+        if (landscape) {
+            return "landscape";
+        }
+        return fitToPage ? "fitToPage" : DEFAULT_OPTIONS;
+    }
+}
@@ -0,0 +1,124 @@
+package com.erdem.document_converter_service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Claims of {@link LocalResultStore}: only one replica may take over an expired claim, and
+ * releasing never removes a claim another replica holds.
+ */
+class LocalResultStoreTest {
+
+    private static final String HASH = "0f1e2d3c4b5a69788796a5b4c3d2e1f0";
+
+    @TempDir
+    private Path directory;
+
+    private LocalResultStore store;
+
+    @BeforeEach
+    void start() throws IOException {
+        store = new LocalResultStore(directory);
+    }
+
+    @Test
+    void refusesALiveClaim() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", 60_000)).isTrue();
+        assertThat(store.tryClaim(HASH, "replica-b", 60_000)).isFalse();
+        assertThat(claim()).endsWith(" replica-a");
+    }
+
+    @Test
+    void takesOverAnExpiredClaim() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", -1)).isTrue();
+        assertThat(store.tryClaim(HASH, "replica-b", 60_000)).isTrue();
+        assertThat(claim()).endsWith(" replica-b");
+    }
+
+    @Test
+    void takesOverAnUnreadableClaim() throws IOException {
+        Files.writeString(directory.resolve(HASH + ".claim"), "");
+        assertThat(store.tryClaim(HASH, "replica-a", 60_000)).isTrue();
+        assertThat(claim()).endsWith(" replica-a");
+    }
+
+    @Test
+    void grantsAnExpiredClaimToOneReplicaOnly() throws Exception {
+        assertThat(store.tryClaim(HASH, "replica-a", -1)).isTrue();
+        int replicas = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Boolean>> takeovers = new ArrayList<>();
+        for (int i = 0; i < replicas; i++) {
+            String owner = "replica-" + i;
+            takeovers.add(() -> {
+                start.await();
+                return store.tryClaim(HASH, owner, 60_000);
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(replicas);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            takeovers.forEach(takeover -> results.add(executor.submit(takeover)));
+            start.countDown();
+            int granted = 0;
+            for (Future<Boolean> result : results) {
+                granted += result.get() ? 1 : 0;
+            }
+            assertThat(granted).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(leftovers()).isEmpty();
+    }
+
+    @Test
+    void releasesOnlyItsOwnClaim() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", 60_000)).isTrue();
+        store.releaseClaim(HASH, "replica-b");
+        assertThat(claim()).endsWith(" replica-a");
+        store.releaseClaim(HASH, "replica-a");
+        assertThat(directory.resolve(HASH + ".claim")).doesNotExist();
+        assertThat(leftovers()).isEmpty();
+    }
+
+    @Test
+    void storesAResultOnlyOnce() throws IOException {
+        assertThat(store.putIfAbsent(HASH, file("first"))).isTrue();
+        assertThat(store.putIfAbsent(HASH, file("second"))).isFalse();
+        assertThat(directory.resolve(HASH + ".pdf")).hasContent("first");
+    }
+
+    private String claim() throws IOException {
+        return Files.readString(directory.resolve(HASH + ".claim"), StandardCharsets.UTF_8);
+    }
+
+    private Path file(String content) throws IOException {
+        return Files.writeString(Files.createTempFile("result", ".pdf"), content);
+    }
+
+    /**
+     * Temp files and tombstones nobody cleaned up.
+     */
+    private List<Path> leftovers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".tmp") || path.toString().endsWith(".stale")).toList();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.erdem.document_converter_service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Conditional writes, claim takeover and ranged reads of {@link S3ResultStore} against a
+ * local S3 stub.
+ */
+class S3ResultStoreTest {
+
+    private static final String HASH = "0f1e2d3c4b5a69788796a5b4c3d2e1f0";
+    private static final String RESULT = "results/" + HASH + ".pdf";
+    private static final String CLAIM = "results/" + HASH + ".claim";
+
+    @TempDir
+    private Path directory;
+
+    private S3Stub s3;
+    private S3ResultStore store;
+
+    @BeforeEach
+    void start() throws IOException {
+        s3 = new S3Stub();
+        store = new S3ResultStore(s3.endpoint() + "/", S3Stub.BUCKET, "results/", "us-east-1", "access", "secret",
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stop() {
+        s3.close();
+    }
+
+    @Test
+    void storesAResultOnlyOnce() throws IOException {
+        assertThat(store.putIfAbsent(HASH, file("first"))).isTrue();
+        assertThat(store.putIfAbsent(HASH, file("second"))).isFalse();
+        assertThat(s3.content(RESULT)).isEqualTo(bytes("first"));
+    }
+
+    @Test
+    void losesAConcurrentConditionalWrite() throws IOException {
+        s3.answerNext("PUT", 409);
+        assertThat(store.putIfAbsent(HASH, file("first"))).isFalse();
+    }
+
+    @Test
+    void failsOnOtherErrors() {
+        s3.answerNext("PUT", 500);
+        assertThatThrownBy(() -> store.putIfAbsent(HASH, file("first"))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void refusesALiveClaim() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", 60_000)).isTrue();
+        assertThat(store.tryClaim(HASH, "replica-b", 60_000)).isFalse();
+        assertThat(text(CLAIM)).endsWith(" replica-a");
+    }
+
+    @Test
+    void takesOverAnExpiredClaim() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", -1)).isTrue();
+        assertThat(store.tryClaim(HASH, "replica-b", 60_000)).isTrue();
+        assertThat(text(CLAIM)).endsWith(" replica-b");
+    }
+
+    @Test
+    void losesATakeoverToAConcurrentOne() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", -1)).isTrue();
+        // The create fails as the claim exists, then the If-Match replace finds it changed
+        s3.answerNext("PUT", 412, 412);
+        assertThat(store.tryClaim(HASH, "replica-b", 60_000)).isFalse();
+        assertThat(text(CLAIM)).endsWith(" replica-a");
+    }
+
+    @Test
+    void releasesOnlyItsOwnClaim() throws IOException {
+        assertThat(store.tryClaim(HASH, "replica-a", 60_000)).isTrue();
+        store.releaseClaim(HASH, "replica-b");
+        assertThat(s3.content(CLAIM)).isNotNull();
+        store.releaseClaim(HASH, "replica-a");
+        assertThat(s3.content(CLAIM)).isNull();
+    }
+
+    @Test
+    void readsRanges() throws IOException {
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        s3.put(RESULT, content);
+
+        assertThat(store.size(HASH)).isEqualTo(100);
+        try (InputStream in = store.read(HASH, 10, 20)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 10, 30));
+        }
+        assertThat(s3.ranges()).containsExactly("bytes=10-29");
+    }
+
+    @Test
+    void reportsAMissingResult() throws IOException {
+        assertThat(store.size(HASH)).isEqualTo(-1);
+    }
+
+    private Path file(String content) throws IOException {
+        return Files.write(Files.createTempFile(directory, "result", ".pdf"), bytes(content));
+    }
+
+    private String text(String key) {
+        return new String(s3.content(key), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
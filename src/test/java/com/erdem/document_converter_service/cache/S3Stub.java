@@ -0,0 +1,174 @@
+package com.erdem.document_converter_service.cache;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-memory S3 bucket on 127.0.0.1 with path-style URLs, enough for {@link S3ResultStore}:
+ * HEAD, ranged GET, and PUT and DELETE honouring {@code If-None-Match: *} and {@code If-Match}.
+ * Requests without a SigV4 authorization are refused. Status codes queued per method answer
+ * the next requests of that method instead.
+ */
+final class S3Stub implements AutoCloseable {
+
+    static final String BUCKET = "results-bucket";
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private record StoredObject(byte[] content, String etag) {
+    }
+
+    private final HttpServer server;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Integer>> answers = new ConcurrentHashMap<>();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger versions = new AtomicInteger();
+
+    S3Stub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/" + BUCKET + "/", exchange -> {
+            try (exchange) {
+                handle(exchange);
+            }
+        });
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Answers the next requests with this method with these status codes.
+     */
+    void answerNext(String method, int... statuses) {
+        Queue<Integer> queue = answers.computeIfAbsent(method, m -> new ConcurrentLinkedQueue<>());
+        for (int status : statuses) {
+            queue.add(status);
+        }
+    }
+
+    void put(String key, byte[] content) {
+        objects.put(key, new StoredObject(content, nextEtag()));
+    }
+
+    /**
+     * The stored object, or null if there is none.
+     */
+    byte[] content(String key) {
+        StoredObject object = objects.get(key);
+        return object != null ? object.content() : null;
+    }
+
+    /**
+     * The Range headers of the GET requests so far.
+     */
+    List<String> ranges() {
+        return ranges;
+    }
+
+    void reset() {
+        objects.clear();
+        answers.clear();
+        ranges.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        Integer answer = answers.getOrDefault(method, new ConcurrentLinkedQueue<>()).poll();
+        if (answer != null) {
+            exchange.sendResponseHeaders(answer, -1);
+            return;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=")) {
+            exchange.sendResponseHeaders(403, -1);
+            return;
+        }
+
+        String key = exchange.getRequestURI().getPath().substring(BUCKET.length() + 2);
+        StoredObject object = objects.get(key);
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        switch (method) {
+            case "HEAD" -> {
+                if (object == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", object.etag());
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content().length));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> {
+                if (object == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", object.etag());
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                byte[] content = object.content();
+                int status = 200;
+                if (range != null) {
+                    ranges.add(range);
+                    Matcher matcher = RANGE.matcher(range);
+                    if (!matcher.matches()) {
+                        exchange.sendResponseHeaders(416, -1);
+                        return;
+                    }
+                    int first = Integer.parseInt(matcher.group(1));
+                    int last = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+                    content = Arrays.copyOfRange(content, first, last + 1);
+                    status = 206;
+                }
+                exchange.sendResponseHeaders(status, content.length);
+                exchange.getResponseBody().write(content);
+            }
+            case "PUT" -> {
+                boolean ifNoneMatch = "*".equals(exchange.getRequestHeaders().getFirst("If-None-Match"));
+                if ((ifNoneMatch && object != null)
+                        || (ifMatch != null && (object == null || !ifMatch.equals(object.etag())))) {
+                    exchange.sendResponseHeaders(412, -1);
+                    return;
+                }
+                StoredObject stored = new StoredObject(body, nextEtag());
+                objects.put(key, stored);
+                exchange.getResponseHeaders().set("ETag", stored.etag());
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "DELETE" -> {
+                if (ifMatch != null && object != null && !ifMatch.equals(object.etag())) {
+                    exchange.sendResponseHeaders(412, -1);
+                    return;
+                }
+                objects.remove(key);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    private String nextEtag() {
+        return "\"v" + versions.incrementAndGet() + "\"";
+    }
+}
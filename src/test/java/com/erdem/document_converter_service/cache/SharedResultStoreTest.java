@@ -0,0 +1,150 @@
+package com.erdem.document_converter_service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The S3 store as the cache uses it: chunked downloads with a retry per range, and claims that
+ * degrade to rendering locally when the store fails.
+ */
+@SpringJUnitConfig({ SharedResultStore.class, SharedResultStoreTest.Beans.class })
+@TestPropertySource(properties = {
+        "app.store.type=s3",
+        "app.store.s3.bucket=" + S3Stub.BUCKET,
+        "app.store.s3.access-key=access",
+        "app.store.s3.secret-key=secret",
+        "app.store.timeout-ms=5000",
+        "app.store.read-chunk-bytes=7" })
+class SharedResultStoreTest {
+
+    private static final S3Stub S3 = startStub();
+
+    private static final byte[] PDF = "%PDF-1.4\n1 0 obj\n<<>>\nendobj\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Configuration
+    static class Beans {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DynamicPropertySource
+    static void endpoint(DynamicPropertyRegistry registry) {
+        registry.add("app.store.s3.endpoint", S3::endpoint);
+    }
+
+    @Autowired
+    private SharedResultStore sharedStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    private Path directory;
+
+    private CacheKey key;
+
+    @BeforeEach
+    void reset() {
+        S3.reset();
+        key = new CacheKey(UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        S3.close();
+    }
+
+    @Test
+    void downloadsInRanges() throws IOException {
+        sharedStore.publish(key, Files.write(directory.resolve("rendered.pdf"), PDF));
+        Path target = directory.resolve("downloaded.pdf");
+
+        assertThat(sharedStore.download(key, target)).isTrue();
+        assertThat(target).hasBinaryContent(PDF);
+        assertThat(S3.ranges()).hasSize((PDF.length + 6) / 7).first().isEqualTo("bytes=0-6");
+    }
+
+    @Test
+    void retriesAFailedRange() throws IOException {
+        S3.put("results/" + key.hash() + ".pdf", PDF);
+        S3.answerNext("GET", 500);
+        Path target = directory.resolve("downloaded.pdf");
+
+        assertThat(sharedStore.download(key, target)).isTrue();
+        assertThat(target).hasBinaryContent(PDF);
+    }
+
+    @Test
+    void missesAfterARangeFailsTwice() {
+        S3.put("results/" + key.hash() + ".pdf", PDF);
+        S3.answerNext("GET", 500, 500);
+        double errors = count("download", "error");
+
+        assertThat(sharedStore.download(key, directory.resolve("downloaded.pdf"))).isFalse();
+        assertThat(count("download", "error")).isEqualTo(errors + 1);
+    }
+
+    @Test
+    void missesWithoutAStoredResult() {
+        assertThat(sharedStore.download(key, directory.resolve("downloaded.pdf"))).isFalse();
+    }
+
+    @Test
+    void keepsTheFirstPublishedResult() throws IOException {
+        sharedStore.publish(key, Files.write(directory.resolve("first.pdf"), PDF));
+        sharedStore.publish(key, Files.write(directory.resolve("second.pdf"), new byte[] { 1, 2, 3 }));
+
+        assertThat(S3.content("results/" + key.hash() + ".pdf")).isEqualTo(PDF);
+        assertThat(count("publish", "exists")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void grantsAClaimOnlyOnce() {
+        assertThat(sharedStore.tryClaim(key)).isTrue();
+        assertThat(sharedStore.tryClaim(key)).isFalse();
+        sharedStore.releaseClaim(key);
+        assertThat(sharedStore.tryClaim(key)).isTrue();
+    }
+
+    @Test
+    void grantsTheClaimWhenTheStoreFails() {
+        S3.answerNext("PUT", 500);
+        assertThat(sharedStore.tryClaim(key)).isTrue();
+        assertThat(count("claim", "error")).isGreaterThanOrEqualTo(1);
+    }
+
+    private double count(String operation, String result) {
+        return meterRegistry.counter("converter.store.requests", "operation", operation, "result", result).count();
+    }
+
+    private static S3Stub startStub() {
+        try {
+            return new S3Stub();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
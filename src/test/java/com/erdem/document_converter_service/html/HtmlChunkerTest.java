@@ -0,0 +1,140 @@
+package com.erdem.document_converter_service.html;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Cut points of {@link HtmlChunker}: markup that only looks like a cut point, such as end tags
+ * in comments, CDATA, scripts, styles and attribute values, is copied whole, and every chunk is
+ * a well-formed UTF-8 document.
+ */
+class HtmlChunkerTest {
+
+    private static final String END = "</body></html>\n";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void cutsAfterSplitElements() throws IOException {
+        List<String> chunks = split("<html><head><title>t</title></head><body><p>one</p><p>two</p><p>three</p></body></html>");
+
+        assertThat(chunks).containsExactly(
+                "<html><head><title>t</title></head><body><p>one</p>" + END,
+                "<html><head><title>t</title></head><body><p>two</p>" + END,
+                "<html><head><title>t</title></head><body><p>three</p></body></html>");
+    }
+
+    @Test
+    void reopensTablesWithTheirHeader() throws IOException {
+        List<String> chunks = split("<body><table><thead><tr><th>h</th></tr></thead>"
+                + "<tbody><tr><td>1</td></tr><tr><td>2</td></tr></tbody></table></body>");
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).endsWith("<tr><td>1</td></tr></tbody></table>" + END);
+        assertThat(chunks.get(1)).startsWith("<body><table><thead><tr><th>h</th></tr></thead><tbody><tr><td>2</td></tr>");
+    }
+
+    @Test
+    void cutsAtMarkers() throws IOException {
+        List<String> chunks = split("<body><div>a<!-- page-break -->b</div></body>",
+                new HtmlChunker.Settings(1, "page-break", Set.of(), 64 * 1024));
+
+        assertThat(chunks).containsExactly("<body><div>a<!-- page-break --></div>" + END, "<body><div>b</div></body>");
+    }
+
+    @Test
+    void neverCutsInsideAComment() throws IOException {
+        assertWhole("<!-- </p><p>x</p> -->", split("<body><p>a</p><!-- </p><p>x</p> --><p>b</p></body>"));
+    }
+
+    @Test
+    void neverCutsInsideCdata() throws IOException {
+        assertWhole("<![CDATA[ </p><p> > ]]>", split("<body><p>a</p><svg><![CDATA[ </p><p> > ]]></svg><p>b</p></body>"));
+    }
+
+    @Test
+    void neverCutsInsideAScript() throws IOException {
+        assertWhole("<script>var s = \"</p><p>\";</script>",
+                split("<body><p>a</p><script>var s = \"</p><p>\";</script><p>b</p></body>"));
+    }
+
+    @Test
+    void neverCutsInsideAStyle() throws IOException {
+        assertWhole("<style>p > b { color: red } /* </p> */</style>",
+                split("<body><p>a</p><style>p > b { color: red } /* </p> */</style><p>b</p></body>"));
+    }
+
+    @Test
+    void readsAttributesContainingMarkup() throws IOException {
+        List<String> chunks = split("<body><p title=\"a > b\">a</p><p data-end='</p>'>b</p><p>c</p></body>");
+
+        assertThat(chunks).hasSize(3);
+        assertWhole("<p title=\"a > b\">a</p>", chunks);
+        assertWhole("<p data-end='</p>'>b</p>", chunks);
+    }
+
+    @Test
+    void keepsMultibyteCharactersWhole() throws IOException {
+        // Two-, three- and four-byte sequences right before each cut
+        String[] texts = { "\u011f\u00fc\u015f", "\u20ac\ud83d\ude00", "\u00e7\u00f6" };
+        StringBuilder html = new StringBuilder("<body>");
+        for (String text : texts) {
+            html.append("<p>").append(text).append("</p>");
+        }
+        List<String> chunks = split(html.append("</body>").toString());
+
+        assertThat(chunks).hasSize(texts.length);
+        for (int i = 0; i < texts.length; i++) {
+            assertThat(chunks.get(i)).contains("<p>" + texts[i] + "</p>");
+        }
+    }
+
+    @Test
+    void leavesADocumentWithoutBodyWhole() throws IOException {
+        assertThat(split("just text, no markup")).isEmpty();
+    }
+
+    @Test
+    void leavesADocumentWithALongPrologueWhole() throws IOException {
+        assertThat(split("<html><head><style>" + "p{}".repeat(100) + "</style></head><body><p>a</p><p>b</p></body>",
+                new HtmlChunker.Settings(1, null, Set.of("p"), 64))).isEmpty();
+    }
+
+    private static void assertWhole(String markup, List<String> chunks) {
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(chunks).filteredOn(chunk -> chunk.contains(markup)).hasSize(1);
+    }
+
+    private List<String> split(String html) throws IOException {
+        return split(html, new HtmlChunker.Settings(1, null, Set.of("p", "tr"), 64 * 1024));
+    }
+
+    /**
+     * The chunks of the document, each decoded strictly so that a cut through a character fails.
+     */
+    private List<String> split(String html, HtmlChunker.Settings settings) throws IOException {
+        Path input = Files.writeString(directory.resolve("input.html"), html, StandardCharsets.UTF_8);
+        List<String> chunks = new ArrayList<>();
+        for (Path chunk : HtmlChunker.split(input, i -> directory.resolve("chunk" + i + ".html"), settings)) {
+            chunks.add(StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(Files.readAllBytes(chunk)))
+                    .toString());
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,55 @@
+package com.erdem.document_converter_service.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/**
+ * Callback URL checks without an allow-list: only hosts resolving to public addresses.
+ */
+@SpringJUnitConfig(JobCallbackClient.class)
+@TestPropertySource(properties = "app.jobs.callback.max-attempts=1")
+class JobCallbackClientTest {
+
+    @Autowired
+    private JobCallbackClient callbackClient;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "http://127.0.0.1:8080/hook",
+            "http://localhost/hook",
+            "http://169.254.169.254/latest/meta-data/",
+            "http://10.0.0.7/hook",
+            "http://172.16.3.4/hook",
+            "http://192.168.1.10/hook",
+            "http://0.0.0.0/hook",
+            "http://[::1]/hook",
+            "http://[fd12:3456::1]/hook",
+            "http://[fe80::1]/hook",
+            "ftp://93.184.215.14/hook",
+            "not a url"})
+    void refusesInternalAndNonHttpUrls(String url) {
+        assertThat(callbackClient.isAllowed(url)).isFalse();
+    }
+
+    @Test
+    void acceptsPublicAddresses() {
+        assertThat(callbackClient.isAllowed("https://93.184.215.14/hook")).isTrue();
+    }
+
+    @Test
+    void doesNotPostToLoopback() throws Exception {
+        try (WebhookStub webhook = new WebhookStub()) {
+            ConversionJob job = ConversionJob.queued("job-1", JobType.HTML, "a.html", false, false, null, webhook.url()).cancelled();
+            callbackClient.notify(job, "/api/jobs/job-1/result");
+            assertThat(webhook.next(1, TimeUnit.SECONDS)).isNull();
+        }
+    }
+}
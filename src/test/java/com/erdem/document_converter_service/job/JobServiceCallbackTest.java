@@ -0,0 +1,193 @@
+package com.erdem.document_converter_service.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.erdem.document_converter_service.cache.CachedPdf;
+import com.erdem.document_converter_service.conversion.AdmissionRejectedException;
+import com.erdem.document_converter_service.conversion.ConversionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Completion webhooks of real jobs against a local stub: delivery, retry, and jobs cancelled
+ * while their conversion is still running or while they wait to be retried.
+ */
+@SpringJUnitConfig({ JobService.class, JobCallbackClient.class, JobServiceCallbackTest.Beans.class })
+@TestPropertySource(properties = {
+        "app.jobs.workers=1",
+        "app.jobs.callback.max-attempts=3",
+        "app.jobs.callback.allowed-hosts=127.0.0.1" })
+class JobServiceCallbackTest {
+
+    private static final Path OUTPUT_DIRECTORY = createTempDirectory();
+
+    private static final byte[] PDF = "%PDF-1.4\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Configuration
+    static class Beans {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @DynamicPropertySource
+    static void outputDirectory(DynamicPropertyRegistry registry) {
+        registry.add("app.output.directory", OUTPUT_DIRECTORY::toString);
+    }
+
+    @MockitoBean
+    private ConversionService conversionService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private WebhookStub webhook;
+
+    @BeforeEach
+    void startWebhook() throws IOException {
+        webhook = new WebhookStub();
+    }
+
+    @AfterEach
+    void stopWebhook() {
+        webhook.close();
+    }
+
+    @Test
+    void deliversTheFinalState() throws Exception {
+        when(conversionService.convertHtml(any(), any(), any(), any())).thenReturn(CachedPdf.ofBytes(PDF));
+
+        ConversionJob job = submit();
+
+        Map<String, Object> callback = nextCallback();
+        assertThat(callback).containsEntry("id", job.id()).containsEntry("status", "SUCCEEDED")
+                .containsEntry("resultUrl", "/api/jobs/" + job.id() + "/result");
+        assertThat(jobService.resultPath(job)).hasBinaryContent(PDF);
+    }
+
+    @Test
+    void retriesAFailedDelivery() throws Exception {
+        when(conversionService.convertHtml(any(), any(), any(), any())).thenReturn(CachedPdf.ofBytes(PDF));
+        webhook.respond(500);
+
+        ConversionJob job = submit();
+
+        assertThat(nextCallback()).containsEntry("id", job.id()).containsEntry("status", "SUCCEEDED");
+        // Retried after the first backoff step of one second
+        assertThat(nextCallback()).containsEntry("id", job.id()).containsEntry("status", "SUCCEEDED");
+        assertThat(webhook.next(2, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void cancelWhileRunningReportsCancelledOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(conversionService.convertHtml(any(), any(), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            // Ignore the cancellation interrupt, like an engine call that completes anyway
+            while (true) {
+                try {
+                    finish.await();
+                    return CachedPdf.ofBytes(PDF);
+                } catch (InterruptedException e) {
+                    // keep waiting
+                }
+            }
+        });
+
+        ConversionJob job = submit();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(jobService.cancel(job.id())).get().extracting(ConversionJob::status).isEqualTo(JobStatus.CANCELLED);
+        finish.countDown();
+
+        assertThat(nextCallback()).containsEntry("id", job.id()).containsEntry("status", "CANCELLED")
+                .containsEntry("resultUrl", null);
+        assertThat(webhook.next(2, TimeUnit.SECONDS)).isNull();
+        assertThat(jobService.find(job.id())).get().extracting(ConversionJob::status).isEqualTo(JobStatus.CANCELLED);
+        assertThat(jobService.resultPath(job)).doesNotExist();
+    }
+
+    @Test
+    void cancelWhileWaitingForARetryReportsCancelled() throws Exception {
+        CountDownLatch rejected = new CountDownLatch(1);
+        when(conversionService.convertHtml(any(), any(), any(), any())).thenAnswer(invocation -> {
+            rejected.countDown();
+            throw new AdmissionRejectedException("browser", "Busy", HttpStatus.SERVICE_UNAVAILABLE, 1);
+        });
+
+        ConversionJob job = submit();
+        assertThat(rejected.await(5, TimeUnit.SECONDS)).isTrue();
+        // Back in QUEUED, but neither in the queue nor running until the retry delay has passed
+        awaitStatus(job, JobStatus.QUEUED);
+        assertThat(jobService.cancel(job.id())).get().extracting(ConversionJob::status).isEqualTo(JobStatus.CANCELLED);
+
+        assertThat(nextCallback()).containsEntry("id", job.id()).containsEntry("status", "CANCELLED");
+        // The retry finds the job cancelled and does not report it again
+        assertThat(webhook.next(2, TimeUnit.SECONDS)).isNull();
+    }
+
+    private void awaitStatus(ConversionJob job, JobStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jobService.find(job.id()).map(ConversionJob::status).orElse(null) != status && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(jobService.find(job.id())).get().extracting(ConversionJob::status).isEqualTo(status);
+    }
+
+    private ConversionJob submit() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "page.html", "text/html",
+                "<html><body>hi</body></html>".getBytes(StandardCharsets.UTF_8));
+        return jobService.submit(JobType.HTML, file, false, false, null, webhook.url());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> nextCallback() throws Exception {
+        String body = webhook.next(10, TimeUnit.SECONDS);
+        assertThat(body).as("callback").isNotNull();
+        return objectMapper.readValue(body, Map.class);
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("job-callback-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
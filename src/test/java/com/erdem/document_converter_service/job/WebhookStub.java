@@ -0,0 +1,58 @@
+package com.erdem.document_converter_service.job;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local webhook receiver on 127.0.0.1 that records every POST body and answers with the
+ * queued status codes, 204 once they run out.
+ */
+final class WebhookStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Integer> statuses = new LinkedBlockingQueue<>();
+
+    WebhookStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/hook", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+
+    /**
+     * Answers the next requests with these status codes.
+     */
+    void respond(int... codes) {
+        for (int code : codes) {
+            statuses.add(code);
+        }
+    }
+
+    /**
+     * The next request body, or null when none arrives within the timeout.
+     */
+    String next(long timeout, TimeUnit unit) throws InterruptedException {
+        return received.poll(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}